@@ -0,0 +1,194 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.constraints.ComplexMutationConstraints;
+import ch.brotzilla.monalisa.evolution.constraints.GeneAlphaConstraint;
+import ch.brotzilla.monalisa.evolution.constraints.GeneAngleConstraint;
+import ch.brotzilla.monalisa.evolution.constraints.GeneSelfIntersectionConstraint;
+import ch.brotzilla.monalisa.evolution.constraints.GeneStrictCoordinatesConstraint;
+import ch.brotzilla.monalisa.evolution.constraints.GeneVertexToEdgeDistanceConstraint;
+import ch.brotzilla.monalisa.evolution.fitness.BasicFitnessFunction;
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
+import ch.brotzilla.monalisa.evolution.intf.RendererFactory;
+import ch.brotzilla.monalisa.evolution.mutations.GeneAddPointMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneAlphaChannelMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneColorBrighterMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneColorChannelMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneColorDarkerMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneColorHueMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneDilateMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneMoveMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GenePointMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneRemovePointMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GeneSwapPointsMutation;
+import ch.brotzilla.monalisa.evolution.mutations.GenomeSwapGenesMutation;
+import ch.brotzilla.monalisa.evolution.mutations.ProbabilityGeneMutationSelector;
+import ch.brotzilla.monalisa.evolution.selectors.GaussianRangeSelector;
+import ch.brotzilla.monalisa.evolution.selectors.TailIndexSelector;
+import ch.brotzilla.monalisa.evolution.strategies.BasicGenomeFactory;
+import ch.brotzilla.monalisa.evolution.strategies.BasicMutationStrategy;
+import ch.brotzilla.monalisa.evolution.strategies.MutationConfig;
+import ch.brotzilla.monalisa.evolution.strategies.PassThroughEvolutionStrategy;
+import ch.brotzilla.monalisa.images.ImageData;
+import ch.brotzilla.monalisa.images.ImageType;
+import ch.brotzilla.monalisa.rendering.CachingTailRenderer;
+import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+import ch.brotzilla.util.MersenneTwister;
+
+// synthetic inputs shared by all benchmarks, everything is derived from fixed seeds to keep the results reproducible
+public final class Benchmarks {
+
+    public static final int TargetSeed = 17;
+    public static final int GenomeSeed = 42;
+    public static final int MutationSeed = 4711;
+
+    private Benchmarks() {
+    }
+
+    public static int parseWidth(String resolution) {
+        Preconditions.checkNotNull(resolution, "The parameter 'resolution' must not be null");
+        return Integer.parseInt(resolution.substring(0, resolution.indexOf('x')));
+    }
+
+    public static int parseHeight(String resolution) {
+        Preconditions.checkNotNull(resolution, "The parameter 'resolution' must not be null");
+        return Integer.parseInt(resolution.substring(resolution.indexOf('x') + 1));
+    }
+
+    // a smooth gradient overlaid with random opaque rectangles, which gives the fitness function some edges to work with
+    public static ImageData createTarget(int width, int height, int seed) {
+        Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
+        Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
+        final MersenneTwister rng = new MersenneTwister(seed);
+        final int[] data = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int r = x * 255 / width, g = y * 255 / height, b = (x + y) * 255 / (width + height);
+                data[y * width + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        for (int i = 0; i < 32; i++) {
+            final int x0 = rng.nextInt(width), y0 = rng.nextInt(height);
+            final int x1 = Math.min(width, x0 + 1 + rng.nextInt(width / 4 + 1));
+            final int y1 = Math.min(height, y0 + 1 + rng.nextInt(height / 4 + 1));
+            final int color = 0xFF000000 | rng.nextInt(0x01000000);
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    data[y * width + x] = color;
+                }
+            }
+        }
+        return new ImageData(width, height, ImageType.ARGB, data, false);
+    }
+
+    public static MutationConfig createMutationConfig() {
+        return new MutationConfig.Builder()
+        .setOuterBorder(0, 0)
+        .setInnerBorder(0, 0)
+        .setGeneIndexSelector(new TailIndexSelector(15))
+        .setPointMutationRange(new GaussianRangeSelector(15, false))
+        .setColorChannelMutationRange(new GaussianRangeSelector(10, false))
+        .setGeneVersusGenomeMutationProbability(0.99d)
+        .setMinMutationsPerGenome(1)
+        .setMaxMutationsPerGenome(2)
+        .build();
+    }
+
+    public static GeneMutation[] createGeneMutations() {
+        return new GeneMutation[] {
+                new GenePointMutation(), new GeneColorHueMutation(), new GeneAlphaChannelMutation(), new GeneColorChannelMutation(),
+                new GeneColorBrighterMutation(), new GeneColorDarkerMutation(), new GeneMoveMutation(), new GeneAddPointMutation(),
+                new GeneRemovePointMutation(), new GeneSwapPointsMutation(), new GeneDilateMutation() };
+    }
+
+    public static GeneMutation findGeneMutation(String id) {
+        for (final GeneMutation m : createGeneMutations()) {
+            if (m.getID().equals(id)) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gene mutation (" + id + ")");
+    }
+
+    public static MutationStrategy createMutationStrategy() {
+        return new BasicMutationStrategy(
+                new ProbabilityGeneMutationSelector.Builder()
+                .add(0.75d, new GenePointMutation())
+                .add(0.15d, new GeneColorHueMutation(), new GeneAlphaChannelMutation(), new GeneColorChannelMutation(), new GeneColorBrighterMutation(), new GeneColorDarkerMutation())
+                .add(0.10d, new GeneMoveMutation(), new GeneAddPointMutation(), new GeneRemovePointMutation(), new GeneSwapPointsMutation())
+                .build(),
+                new GenomeSwapGenesMutation());
+    }
+
+    public static ComplexMutationConstraints createConstraints() {
+        return new ComplexMutationConstraints.Builder()
+        .add(new GeneAlphaConstraint(10, 245))
+        .add(new GeneAngleConstraint(15.0d))
+        .add(new GeneStrictCoordinatesConstraint())
+        .add(new GeneVertexToEdgeDistanceConstraint(5.0d))
+        .add(new GeneSelfIntersectionConstraint())
+        .build();
+    }
+
+    public static RendererFactory createRendererFactory() {
+        return new RendererFactory() {
+            @Override
+            public Renderer createRenderer(VectorizerConfig config) {
+                return new CachingTailRenderer(15, config.getWidth(), config.getHeight(), true, true);
+            }
+        };
+    }
+
+    // mirrors the configuration used by Monalisa
+    public static VectorizerConfig createConfig(VectorizerContext context, FitnessFunction fitnessFunction, MutationStrategy mutationStrategy, EvolutionStrategy evolutionStrategy) {
+        Preconditions.checkNotNull(context, "The parameter 'context' must not be null");
+        return new VectorizerConfig.Builder()
+        .setVectorizerContext(context)
+        .setMutationConfig(createMutationConfig())
+        .setMutationStrategy(mutationStrategy != null ? mutationStrategy : createMutationStrategy())
+        .setEvolutionStrategy(evolutionStrategy != null ? evolutionStrategy : new PassThroughEvolutionStrategy())
+        .setRendererFactory(createRendererFactory())
+        .setGenomeFactory(new BasicGenomeFactory(5, 5))
+        .setConstraints(createConstraints())
+        .setFitnessFunction(fitnessFunction != null ? fitnessFunction : new BasicFitnessFunction(3.0, 1.0, 1.0, 1.0))
+        .build();
+    }
+
+    public static VectorizerConfig createConfig(int width, int height) {
+        return createConfig(new VectorizerContext(createTarget(width, height, TargetSeed), null, 0, null), null, null, null);
+    }
+
+    // random genes which satisfy all constraints, created by the same code the genome factory uses
+    public static Genome createGenome(VectorizerConfig config, int numberOfPolygons, int seed) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkArgument(numberOfPolygons > 0, "The parameter 'numberOfPolygons' has to be greater than zero");
+        final MersenneTwister rng = new MersenneTwister(seed);
+        final BasicGenomeFactory factory = new BasicGenomeFactory(1, 1);
+        final Gene[] genes = new Gene[numberOfPolygons];
+        for (int i = 0; i < numberOfPolygons; i++) {
+            genes[i] = factory.createGene(rng, config);
+        }
+        return new Genome(genes, false);
+    }
+
+    // mutants of the parent genome as the worker threads would create them
+    public static Genome[] createMutants(VectorizerConfig config, Genome parent, int numberOfMutants, int seed) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(parent, "The parameter 'parent' must not be null");
+        final MersenneTwister rng = new MersenneTwister(seed);
+        final MutationStrategy ms = config.getMutationStrategy();
+        final Genome[] result = new Genome[numberOfMutants];
+        for (int i = 0; i < numberOfMutants; i++) {
+            result[i] = ms.mutate(rng, config, parent);
+        }
+        return result;
+    }
+}
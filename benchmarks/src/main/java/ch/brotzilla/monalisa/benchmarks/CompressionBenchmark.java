@@ -0,0 +1,81 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.images.ImageData;
+import ch.brotzilla.monalisa.utils.Compression;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Images {
+
+        @Param({ "200x150", "800x600", "1600x1200" })
+        public String resolution;
+
+        private ImageData image;
+        private byte[] encoded;
+
+        @Setup
+        public void setup() throws IOException {
+            image = Benchmarks.createTarget(Benchmarks.parseWidth(resolution), Benchmarks.parseHeight(resolution), Benchmarks.TargetSeed);
+            encoded = Compression.encode(image);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Genomes {
+
+        @Param({ "10", "100", "1000" })
+        public int polygons;
+
+        private Genome genome;
+        private byte[] encoded;
+
+        @Setup
+        public void setup() throws IOException {
+            genome = Benchmarks.createGenome(Benchmarks.createConfig(800, 600), polygons, Benchmarks.GenomeSeed);
+            encoded = Compression.encode(genome);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeImage(Images images) throws IOException {
+        return Compression.encode(images.image);
+    }
+
+    @Benchmark
+    public ImageData decodeImage(Images images) throws IOException {
+        return Compression.decodeImageData(images.encoded);
+    }
+
+    @Benchmark
+    public byte[] encodeGenome(Genomes genomes) throws IOException {
+        return Compression.encode(genomes.genome);
+    }
+
+    @Benchmark
+    public Genome decodeGenome(Genomes genomes) throws IOException {
+        return Compression.decodeGenome(genomes.encoded);
+    }
+
+}
@@ -0,0 +1,62 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.constraints.ComplexMutationConstraints;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.util.MersenneTwister;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintsBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int polygons;
+
+    private VectorizerConfig config;
+    private ComplexMutationConstraints constraints;
+    private Genome genome;
+    private MersenneTwister rng;
+    private int next;
+
+    @Setup
+    public void setup() {
+        config = Benchmarks.createConfig(800, 600);
+        constraints = Benchmarks.createConstraints();
+        genome = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+        rng = new MersenneTwister(Benchmarks.MutationSeed);
+        next = 0;
+    }
+
+    // the genes satisfy all constraints, so every constraint has to be checked
+    @Benchmark
+    public boolean satisfied() {
+        final boolean result = constraints.satisfied(config, genome.genes[next]);
+        next = (next + 1) % genome.genes.length;
+        return result;
+    }
+
+    // the complete mutation of a genome as done by the worker threads, including all constraint checks
+    @Benchmark
+    public Genome mutateGenome() {
+        return config.getMutationStrategy().mutate(rng, config, genome);
+    }
+
+}
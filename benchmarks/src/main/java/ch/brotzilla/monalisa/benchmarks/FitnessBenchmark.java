@@ -0,0 +1,68 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.fitness.BasicFitnessFunction;
+import ch.brotzilla.monalisa.evolution.fitness.FusedFitnessFunction;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.rendering.ScanlineRenderer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+
+// the basic fitness function compares a rendered buffer, the fused one rasterizes and compares in a single pass
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnessBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int polygons;
+
+    @Param({ "200x150", "800x600", "1600x1200" })
+    public String resolution;
+
+    @Param({ "basic", "fused" })
+    public String function;
+
+    private VectorizerConfig config;
+    private FitnessFunction fitnessFunction;
+    private Genome genome;
+    private int[] buffer;
+
+    @Setup
+    public void setup() {
+        final int width = Benchmarks.parseWidth(resolution), height = Benchmarks.parseHeight(resolution);
+        fitnessFunction = "fused".equals(function) ? new FusedFitnessFunction(3.0, 1.0, 1.0, 1.0) : new BasicFitnessFunction(3.0, 1.0, 1.0, 1.0);
+        final VectorizerContext context = new VectorizerContext(Benchmarks.createTarget(width, height, Benchmarks.TargetSeed), null, 0, null);
+        config = Benchmarks.createConfig(context, fitnessFunction, null, null);
+        genome = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+        final ScanlineRenderer renderer = new ScanlineRenderer(width, height);
+        renderer.render(genome);
+        buffer = renderer.getBuffer();
+    }
+
+    @Benchmark
+    public double compute() {
+        if (!fitnessFunction.needsRenderer()) {
+            return fitnessFunction.compute(config, genome);
+        }
+        return fitnessFunction.compute(config, genome, buffer);
+    }
+
+}
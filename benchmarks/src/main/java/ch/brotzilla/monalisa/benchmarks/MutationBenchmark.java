@@ -0,0 +1,73 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.constraints.ComplexMutationConstraints;
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.util.MersenneTwister;
+
+// mutations do not depend on the resolution, so a single small target is used
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int polygons;
+
+    @Param({ "move-point", "color-hue-change", "alpha-channel", "color-channel", "brighter-color", "darker-color",
+        "move-gene", "add-point", "remove-point", "swap-points", "dilate" })
+    public String mutation;
+
+    private VectorizerConfig config;
+    private ComplexMutationConstraints constraints;
+    private GeneMutation geneMutation;
+    private Genome genome;
+    private MersenneTwister rng;
+    private int next;
+
+    @Setup
+    public void setup() {
+        config = Benchmarks.createConfig(800, 600);
+        constraints = Benchmarks.createConstraints();
+        geneMutation = Benchmarks.findGeneMutation(mutation);
+        genome = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+        rng = new MersenneTwister(Benchmarks.MutationSeed);
+        next = 0;
+    }
+
+    private Gene nextGene() {
+        final Gene result = genome.genes[next];
+        next = (next + 1) % genome.genes.length;
+        return result;
+    }
+
+    @Benchmark
+    public Gene mutate() {
+        return geneMutation.apply(rng, config, nextGene());
+    }
+
+    @Benchmark
+    public boolean mutateAndCheckConstraints() {
+        return constraints.satisfied(config, geneMutation.apply(rng, config, nextGene()));
+    }
+
+}
@@ -0,0 +1,129 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.fitness.BasicFitnessFunction;
+import ch.brotzilla.monalisa.evolution.fitness.FusedFitnessFunction;
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.GenomePool;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
+import ch.brotzilla.monalisa.evolution.mutations.BasicMutation;
+import ch.brotzilla.monalisa.rendering.ScanlineRenderer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+import ch.brotzilla.util.MersenneTwister;
+
+// one candidate of the worker loop, mutated and scored either as genome or as packed genome (--packed)
+// the setup fails unless both representations render, score, satisfy the constraints and mutate identically
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedGenomeBenchmark {
+
+    @Param({ "100", "1000" })
+    public int polygons;
+
+    @Param({ "200x150", "800x600" })
+    public String resolution;
+
+    @Param({ "basic", "fused" })
+    public String function;
+
+    private VectorizerConfig config;
+    private FitnessFunction fitnessFunction;
+    private MutationStrategy mutationStrategy;
+    private ScanlineRenderer renderer;
+    private Genome genome;
+    private PackedGenome packed, scratch;
+    private MersenneTwister rng;
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private void checkRendering(Genome g, PackedGenome p) {
+        renderer.render(g);
+        final int[] expected = renderer.getBuffer().clone();
+        renderer.render(p);
+        check(Arrays.equals(expected, renderer.getBuffer()), "The packed genome is not rendered like the genome");
+        check(fitnessFunction.compute(config, g, renderer) == fitnessFunction.compute(config, p, renderer), "The packed genome is not scored like the genome");
+    }
+
+    private void checkMutations() {
+        for (final GeneMutation mutation : Benchmarks.createGeneMutations()) {
+            final MersenneTwister geneRng = new MersenneTwister(Benchmarks.MutationSeed), packedRng = new MersenneTwister(Benchmarks.MutationSeed);
+            for (int i = 0; i < genome.genes.length; i++) {
+                final Gene mutated = mutation.apply(geneRng, config, genome.genes[i]);
+                final PackedGenome copy = new PackedGenome(packed);
+                PackedGenome result = BasicMutation.applyPacked(mutation, packedRng, config, copy, i);
+                if (result == null) {
+                    result = copy;
+                }
+                check(mutated.equals(result.getGene(i)), "The packed mutation " + mutation.getID() + " differs from the gene mutation");
+                check(config.getConstraints().satisfied(config, mutated) == config.getConstraints().satisfied(config, result, i), "The constraints of the packed genome differ after " + mutation.getID());
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final int width = Benchmarks.parseWidth(resolution), height = Benchmarks.parseHeight(resolution);
+        fitnessFunction = "fused".equals(function) ? new FusedFitnessFunction(3.0, 1.0, 1.0, 1.0) : new BasicFitnessFunction(3.0, 1.0, 1.0, 1.0);
+        final VectorizerContext context = new VectorizerContext(Benchmarks.createTarget(width, height, Benchmarks.TargetSeed), null, 0, null);
+        config = Benchmarks.createConfig(context, fitnessFunction, null, null);
+        mutationStrategy = config.getMutationStrategy();
+        renderer = new ScanlineRenderer(width, height);
+        genome = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+        packed = new PackedGenome(genome);
+        check(Arrays.equals(genome.genes, packed.toGenome().genes), "The packed genome cannot be converted back losslessly");
+        checkRendering(genome, packed);
+        checkMutations();
+        final MersenneTwister mutantRng = new MersenneTwister(Benchmarks.MutationSeed);
+        for (int i = 0; i < 100; i++) {
+            final PackedGenome mutant = mutationStrategy.mutate(mutantRng, config, packed, null);
+            checkRendering(mutant.toGenome(), mutant);
+        }
+        scratch = null;
+        rng = new MersenneTwister(Benchmarks.MutationSeed);
+    }
+
+    @Benchmark
+    public double genome() {
+        final Genome mutated = mutationStrategy.mutate(rng, config, genome);
+        mutated.fitness = fitnessFunction.compute(config, mutated, renderer);
+        // rejected candidates are recycled like in the worker loop
+        GenomePool.forCurrentThread().recycle(mutated);
+        return mutated.fitness;
+    }
+
+    @Benchmark
+    public double packed() {
+        final PackedGenome mutated = mutationStrategy.mutate(rng, config, packed, scratch);
+        mutated.fitness = fitnessFunction.compute(config, mutated, renderer);
+        scratch = mutated;
+        return mutated.fitness;
+    }
+
+}
@@ -0,0 +1,86 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.rendering.CachingScanlineRenderer;
+import ch.brotzilla.monalisa.rendering.CachingTailRenderer;
+import ch.brotzilla.monalisa.rendering.LayeredScanlineRenderer;
+import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.rendering.ScanlineRenderer;
+import ch.brotzilla.monalisa.rendering.SimpleRenderer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+
+// renders a fixed sequence of mutants of one parent, like a worker thread does
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    public static final int NumberOfMutants = 256;
+
+    @Param({ "10", "100", "1000" })
+    public int polygons;
+
+    @Param({ "200x150", "800x600", "1600x1200" })
+    public String resolution;
+
+    @Param({ "java2d", "caching-tail", "scanline", "caching-scanline", "layered-scanline" })
+    public String renderer;
+
+    private Renderer r;
+    private Genome[] mutants;
+    private int next;
+
+    private Renderer createRenderer(VectorizerConfig config) {
+        final int width = config.getWidth(), height = config.getHeight();
+        switch (renderer) {
+        case "java2d":
+            return new SimpleRenderer(width, height, true);
+        case "caching-tail":
+            return new CachingTailRenderer(15, width, height, true, true);
+        case "scanline":
+            return new ScanlineRenderer(width, height);
+        case "caching-scanline":
+            return new CachingScanlineRenderer(15, width, height);
+        case "layered-scanline":
+            return new LayeredScanlineRenderer(config.getVectorizerContext(), LayeredScanlineRenderer.DefaultMaxLayers, width, height);
+        default:
+            throw new IllegalArgumentException("Unknown renderer (" + renderer + ")");
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final VectorizerConfig config = Benchmarks.createConfig(Benchmarks.parseWidth(resolution), Benchmarks.parseHeight(resolution));
+        final Genome parent = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+        config.getVectorizerContext().setLatestGenome(parent);
+        mutants = Benchmarks.createMutants(config, parent, NumberOfMutants, Benchmarks.MutationSeed);
+        r = createRenderer(config);
+        next = 0;
+    }
+
+    @Benchmark
+    public int[] render() {
+        final Genome genome = mutants[next];
+        next = (next + 1) % NumberOfMutants;
+        r.render(genome);
+        return r.getBuffer();
+    }
+
+}
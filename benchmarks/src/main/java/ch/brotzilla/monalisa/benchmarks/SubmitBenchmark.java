@@ -0,0 +1,134 @@
+package ch.brotzilla.monalisa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
+import ch.brotzilla.monalisa.io.SessionManager;
+import ch.brotzilla.monalisa.utils.Params;
+import ch.brotzilla.monalisa.vectorizer.Island;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+import ch.brotzilla.util.MersenneTwister;
+
+// several threads submit candidates to one running vectorizer, use -t to change the number of threads
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SubmitBenchmark {
+
+    // keeps the worker threads of the vectorizer idle, so only the benchmark threads submit candidates
+    private static class IdleMutationStrategy implements MutationStrategy {
+
+        private volatile boolean idle = true;
+
+        private void waitWhileIdle() {
+            while (idle) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public Genome mutate(MersenneTwister rng, VectorizerConfig config, Genome input) {
+            waitWhileIdle();
+            return input;
+        }
+
+        @Override
+        public PackedGenome mutate(MersenneTwister rng, VectorizerConfig config, PackedGenome input, PackedGenome scratch) {
+            waitWhileIdle();
+            return input;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        @Param({ "1", "4" })
+        public int islands;
+
+        @Param({ "100" })
+        public int polygons;
+
+        private final IdleMutationStrategy idle = new IdleMutationStrategy();
+        private final AtomicInteger threads = new AtomicInteger();
+        private final AtomicLong fitness = new AtomicLong(Long.MAX_VALUE / 2);
+        private Vectorizer vectorizer;
+        private Genome parent;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final Params params = new Params(new String[] { "--seed", String.valueOf(Benchmarks.GenomeSeed), "--num-threads", String.valueOf(islands), "--islands", String.valueOf(islands) });
+            final VectorizerContext context = new VectorizerContext(Benchmarks.createTarget(200, 150, Benchmarks.TargetSeed), null, 0, null);
+            final VectorizerConfig config = Benchmarks.createConfig(context, null, idle, null);
+            parent = Benchmarks.createGenome(config, polygons, Benchmarks.GenomeSeed);
+            parent.fitness = fitness.get();
+            final SessionManager session = new SessionManager(params, "benchmark", context.getTargetImage(), null, parent);
+            vectorizer = new Vectorizer(session, Benchmarks.createConfig(session.getVectorizerContext(), null, idle, null));
+            vectorizer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            idle.idle = false;
+            vectorizer.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Local {
+
+        private Island island;
+        private Genome rejected;
+
+        @Setup(Level.Trial)
+        public void setup(Shared shared) {
+            final Island[] islands = shared.vectorizer.getIslands();
+            island = islands == null ? null : islands[shared.threads.getAndIncrement() % islands.length];
+            rejected = new Genome(shared.parent.genes, false);
+            rejected.fitness = Double.MAX_VALUE;
+        }
+    }
+
+    // the vast majority of all candidates, they are rejected without taking any lock
+    @Benchmark
+    public Genome submitRejected(Shared shared, Local local) {
+        return shared.vectorizer.submit(local.island, local.rejected);
+    }
+
+    // every candidate beats the latest genome unless another thread overtakes it, which serializes all threads
+    @Benchmark
+    public Genome submitImproved(Shared shared, Local local) {
+        final Genome candidate = new Genome(shared.parent.genes, false);
+        candidate.fitness = shared.fitness.decrementAndGet();
+        return shared.vectorizer.submit(local.island, candidate);
+    }
+
+}
@@ -0,0 +1,216 @@
+package ch.brotzilla.monalisa;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.io.SessionManager;
+import ch.brotzilla.monalisa.utils.Params;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+import ch.brotzilla.monalisa.vectorizer.VectorizerListener;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+// vectorizes many images in a single jvm, all vectorizers share one pool of worker threads
+public class BatchRunner {
+
+    public static final String[] ImageExtensions = { "png", "jpg", "jpeg", "bmp", "gif" };
+
+    // options which only make sense for the batch itself and must not be passed on to the sessions
+    private static final Set<String> BatchOptions = Sets.newHashSet("--batch", "--max-concurrent");
+
+    private final Params params;
+    private final int numThreads, numConcurrent, numThreadsPerImage;
+    private final AtomicInteger finished = new AtomicInteger(), failed = new AtomicInteger();
+    private final DecimalFormat rf = new DecimalFormat("#,##0.00");
+
+    private static boolean isImageFile(File file) {
+        final String extension = Files.getFileExtension(file.getName()).toLowerCase();
+        for (final String e : ImageExtensions) {
+            if (e.equals(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // a folder yields all images it contains, a text file lists one image per line, relative paths are resolved against the text file
+    private static List<File> listTargets(File batch) throws IOException {
+        final List<File> result = Lists.newArrayList();
+        if (batch.isDirectory()) {
+            final File[] files = batch.listFiles();
+            if (files != null) {
+                Arrays.sort(files);
+                for (final File file : files) {
+                    if (file.isFile() && isImageFile(file)) {
+                        result.add(file);
+                    }
+                }
+            }
+            return result;
+        }
+        final File folder = batch.getAbsoluteFile().getParentFile();
+        for (final String line : Files.readLines(batch, Charset.forName("UTF-8"))) {
+            final String path = line.trim();
+            if (path.isEmpty() || path.startsWith("#")) {
+                continue;
+            }
+            final File file = new File(path);
+            result.add(file.isAbsolute() ? file : new File(folder, path));
+        }
+        return result;
+    }
+
+    private String[] createArguments(File target) {
+        final List<String> result = Lists.newArrayList();
+        final String[] args = params.getArguments();
+        for (int i = 0; i < args.length; i++) {
+            if (BatchOptions.contains(args[i]) || "--num-threads".equals(args[i])) {
+                ++i;
+            } else {
+                result.add(args[i]);
+            }
+        }
+        result.add("--image");
+        result.add(target.getPath());
+        result.add("--num-threads");
+        result.add(String.valueOf(numThreadsPerImage));
+        return result.toArray(new String[result.size()]);
+    }
+
+    private void vectorize(File target, int total, ExecutorService workerThreads, ForkJoinPool tilePool) throws Exception {
+        final Params p = new Params(createArguments(target));
+        if (!p.isReady()) {
+            throw new IllegalArgumentException("Invalid parameters for image: " + target, p.getError());
+        }
+        final SessionManager session = new SessionManager(p);
+        final Vectorizer vectorizer = Monalisa.setupVectorizer(session, workerThreads, tilePool);
+        // the vectorizer stops itself as soon as one of its termination conditions is satisfied
+        final CountDownLatch stopped = new CountDownLatch(1);
+        vectorizer.addListener(new VectorizerListener() {
+            @Override
+            public void started(Vectorizer v, Genome latest) {
+            }
+            @Override
+            public void improved(Vectorizer v, Genome latest) {
+            }
+            @Override
+            public void update(Vectorizer v) {
+            }
+            @Override
+            public void stopping(Vectorizer v) {
+            }
+            @Override
+            public void stopped(Vectorizer v) {
+                stopped.countDown();
+            }
+        });
+        final long started = System.currentTimeMillis();
+        vectorizer.start();
+        try {
+            stopped.await();
+        } finally {
+            vectorizer.stop();
+        }
+        final VectorizerContext vc = session.getVectorizerContext();
+        final Genome latest = vc.getLatestGenome();
+        System.out.println("[" + finished.incrementAndGet() + "/" + total + "] " + session.getSessionName() + ": " + vectorizer.getTerminatedBy().getDescription()
+                + ", improvements: " + vc.getNumberOfImprovements() + ", mutations: " + vc.getNumberOfMutations()
+                + ", seconds: " + rf.format((System.currentTimeMillis() - started) / 1000.0d)
+                + (latest == null ? "" : ", polygons: " + latest.countPolygons() + ", fitness: " + vectorizer.getConfig().getFitnessFunction().format(latest.fitness)));
+    }
+
+    public BatchRunner(Params params) {
+        Preconditions.checkNotNull(params, "The parameter 'params' must not be null");
+        Preconditions.checkArgument(params.isBatch(), "The parameter 'params' has to specify a batch");
+        this.params = params;
+        this.numThreads = params.getNumThreads();
+        this.numConcurrent = params.getMaxConcurrent() == 0 ? numThreads : Math.min(params.getMaxConcurrent(), numThreads);
+        this.numThreadsPerImage = Math.max(1, numThreads / numConcurrent);
+    }
+
+    public Params getParams() {
+        return params;
+    }
+
+    public int getNumberOfConcurrentImages() {
+        return numConcurrent;
+    }
+
+    public int getNumberOfThreadsPerImage() {
+        return numThreadsPerImage;
+    }
+
+    // returns the number of images which could not be vectorized
+    public int run() throws IOException, InterruptedException {
+        final List<File> targets = listTargets(params.getBatch());
+        final Set<String> sessionNames = Sets.newHashSet();
+        final List<File> accepted = Lists.newArrayList();
+        for (final File target : targets) {
+            final String sessionName = SessionManager.extractSessionName(target);
+            if (!sessionNames.add(sessionName)) {
+                System.out.println("Skipping " + target + ", another image uses the session name '" + sessionName + "'");
+            } else if (new File(params.getSessionRootFolder(), sessionName + ".mldb").exists()) {
+                System.out.println("Skipping " + target + ", session '" + sessionName + "' already exists");
+            } else {
+                accepted.add(target);
+            }
+        }
+
+        System.out.println("Vectorizing " + accepted.size() + " images, " + numConcurrent + " at a time with " + numThreadsPerImage + " threads each");
+
+        final int total = accepted.size();
+        final ExecutorService workerThreads = Executors.newFixedThreadPool(numConcurrent * numThreadsPerImage);
+        final ExecutorService jobs = Executors.newFixedThreadPool(numConcurrent);
+        final ForkJoinPool tilePool = params.getParallelFitness() ? new ForkJoinPool() : null;
+        try {
+            final List<Future<?>> futures = Lists.newArrayListWithCapacity(total);
+            for (final File target : accepted) {
+                futures.add(jobs.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            vectorize(target, total, workerThreads, tilePool);
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            System.out.println("Failed vectorizing " + target + ": " + e.getMessage());
+                            e.printStackTrace();
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            jobs.shutdownNow();
+            workerThreads.shutdownNow();
+            if (tilePool != null) {
+                tilePool.shutdownNow();
+            }
+        }
+
+        System.out.println("Finished batch, " + (total - failed.get()) + " of " + total + " images vectorized");
+        return failed.get();
+    }
+}
@@ -4,7 +4,10 @@ import java.awt.Dimension;
 import java.io.File;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import ch.brotzilla.monalisa.evolution.constraints.ComplexMutationConstraints;
 import ch.brotzilla.monalisa.evolution.constraints.GeneAlphaConstraint;
@@ -14,8 +17,11 @@ import ch.brotzilla.monalisa.evolution.constraints.GeneStrictCoordinatesConstrai
 import ch.brotzilla.monalisa.evolution.constraints.GeneVertexToEdgeDistanceConstraint;
 import ch.brotzilla.monalisa.evolution.constraints.MutationConstraints;
 import ch.brotzilla.monalisa.evolution.fitness.BasicFitnessFunction;
+import ch.brotzilla.monalisa.evolution.fitness.FusedFitnessFunction;
+import ch.brotzilla.monalisa.evolution.fitness.ParallelTiles;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
+import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategyFactory;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
 import ch.brotzilla.monalisa.evolution.intf.GenomeFactory;
 import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
@@ -37,21 +43,34 @@ import ch.brotzilla.monalisa.evolution.selectors.TailIndexSelector;
 import ch.brotzilla.monalisa.evolution.strategies.BasicGenomeFactory;
 import ch.brotzilla.monalisa.evolution.strategies.BasicMutationStrategy;
 import ch.brotzilla.monalisa.evolution.strategies.MutationConfig;
+import ch.brotzilla.monalisa.evolution.strategies.PassThroughEvolutionStrategy;
 import ch.brotzilla.monalisa.evolution.strategies.ProgressiveAddPolygonStrategy;
 import ch.brotzilla.monalisa.evolution.strategies.ProgressiveEvolutionStrategy;
 import ch.brotzilla.monalisa.gui.MainWindow;
 import ch.brotzilla.monalisa.io.SessionManager;
+import ch.brotzilla.monalisa.net.Coordinator;
+import ch.brotzilla.monalisa.net.WorkerClient;
 import ch.brotzilla.monalisa.rendering.CachingTailRenderer;
+import ch.brotzilla.monalisa.rendering.LayeredScanlineRenderer;
 import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.rendering.ScanlineRenderer;
 import ch.brotzilla.monalisa.utils.Params;
 import ch.brotzilla.monalisa.utils.UI;
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
 import ch.brotzilla.monalisa.vectorizer.Vectorizer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
 import ch.brotzilla.monalisa.vectorizer.VectorizerListener;
+import ch.brotzilla.monalisa.vectorizer.termination.MaxImprovementsCondition;
+import ch.brotzilla.monalisa.vectorizer.termination.MaxMutationsCondition;
+import ch.brotzilla.monalisa.vectorizer.termination.MaxTimeCondition;
+import ch.brotzilla.monalisa.vectorizer.termination.MinImprovementRateCondition;
+import ch.brotzilla.monalisa.vectorizer.termination.TargetFitnessCondition;
 
 import com.almworks.sqlite4java.SQLite;
 import com.almworks.sqlite4java.SQLiteException;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
 public class Monalisa {
 
@@ -64,6 +83,9 @@ public class Monalisa {
     
     protected Vectorizer vectorizer;
 
+    protected Coordinator coordinator;
+    protected WorkerClient workerClient;
+
     protected MainWindow mainWindow;
 
     protected final DecimalFormat rf = new DecimalFormat("#,##0.00");
@@ -95,11 +117,23 @@ public class Monalisa {
         .build();
     }
 
-    protected static RendererFactory setupRendererFactory() {
+    protected static RendererFactory setupRendererFactory(SessionManager session) {
+        if ("scanline".equals(session.getParams().getRendererName())) {
+            return new RendererFactory() {
+                @Override
+                public Renderer createRenderer(VectorizerConfig config) {
+                    final int maxLayers = LayeredScanlineRenderer.computeMaxLayers(config.getWidth(), config.getHeight());
+                    if (maxLayers == 0) {
+                        return new ScanlineRenderer(config.getWidth(), config.getHeight());
+                    }
+                    return new LayeredScanlineRenderer(config.getVectorizerContext(), maxLayers, config.getWidth(), config.getHeight());
+                }
+            };
+        }
         return new RendererFactory() {
             @Override
             public Renderer createRenderer(VectorizerConfig config) {
-                return new CachingTailRenderer(15, config.getWidth(), config.getHeight(), true);
+                return new CachingTailRenderer(15, config.getWidth(), config.getHeight(), true, true);
             }
         };
     }
@@ -112,6 +146,26 @@ public class Monalisa {
         return new ProgressiveEvolutionStrategy(new ProgressiveAddPolygonStrategy());
     }
     
+    // remote workers leave adding polygons to the coordinator
+    protected static EvolutionStrategy setupEvolutionStrategy(SessionManager session) {
+        if (session.getParams().isWorker()) {
+            return new PassThroughEvolutionStrategy();
+        }
+        return setupEvolutionStrategy();
+    }
+    
+    protected static EvolutionStrategyFactory setupEvolutionStrategyFactory(SessionManager session) {
+        if (session.getParams().isWorker()) {
+            return null;
+        }
+        return new EvolutionStrategyFactory() {
+            @Override
+            public EvolutionStrategy createEvolutionStrategy(VectorizerConfig config) {
+                return setupEvolutionStrategy();
+            }
+        };
+    }
+    
     protected static MutationStrategy setupMutationStrategy() {
         return new BasicMutationStrategy(
                 new ProbabilityGeneMutationSelector.Builder()
@@ -132,21 +186,60 @@ public class Monalisa {
         .build();
     }
     
-    protected static FitnessFunction setupFitnessFunction() {
-        return new BasicFitnessFunction(3.0, 1.0, 1.0, 1.0);
+    // a single session gets a pool of its own, the sessions of a batch share one pool
+    protected static FitnessFunction setupFitnessFunction(SessionManager session, ForkJoinPool sharedTilePool) {
+        ParallelTiles parallelTiles = null;
+        if (session.getParams().getParallelFitness()) {
+            parallelTiles = sharedTilePool != null ? new ParallelTiles(sharedTilePool, ParallelTiles.DefaultTileHeight) : new ParallelTiles();
+        }
+        if (session.getParams().getFusedFitness()) {
+            return new FusedFitnessFunction(3.0, 1.0, 1.0, 1.0, parallelTiles);
+        }
+        return new BasicFitnessFunction(3.0, 1.0, 1.0, 1.0, parallelTiles);
     }
     
     protected static Vectorizer setupVectorizer(SessionManager session) {
-        return new Vectorizer(session, new VectorizerConfig.Builder()
+        return setupVectorizer(session, null, null);
+    }
+    
+    protected static List<TerminationCondition> setupTerminationConditions(SessionManager session) {
+        final Params params = session.getParams();
+        final List<TerminationCondition> result = Lists.newArrayList();
+        if (params.getTargetFitness() > 0) {
+            result.add(new TargetFitnessCondition(params.getTargetFitness()));
+        }
+        if (params.getMaxImprovements() > 0) {
+            result.add(new MaxImprovementsCondition(params.getMaxImprovements()));
+        }
+        if (params.getMaxMutations() > 0) {
+            result.add(new MaxMutationsCondition(params.getMaxMutations()));
+        }
+        if (params.getMaxTime() > 0) {
+            result.add(new MaxTimeCondition(params.getMaxTime() * 1000));
+        }
+        if (params.getMinImprovementRate() > 0) {
+            result.add(new MinImprovementRateCondition(params.getMinImprovementRate(), params.getImprovementWindow() * 1000));
+        }
+        return result;
+    }
+    
+    // the worker threads of all vectorizers of a batch share a single pool, so do the tiles of --parallel-fitness
+    protected static Vectorizer setupVectorizer(SessionManager session, ExecutorService sharedWorkerThreads, ForkJoinPool sharedTilePool) {
+        final Vectorizer result = new Vectorizer(session, new VectorizerConfig.Builder()
         .setVectorizerContext(session.getVectorizerContext())
         .setMutationConfig(setupMutationConfig(session))
         .setMutationStrategy(setupMutationStrategy())
-        .setEvolutionStrategy(setupEvolutionStrategy())
-        .setRendererFactory(setupRendererFactory())
+        .setEvolutionStrategy(setupEvolutionStrategy(session))
+        .setEvolutionStrategyFactory(setupEvolutionStrategyFactory(session))
+        .setRendererFactory(setupRendererFactory(session))
         .setGenomeFactory(setupGenomeFactory())
         .setConstraints(setupMutationConstraints())
-        .setFitnessFunction(setupFitnessFunction())
-        .build());
+        .setFitnessFunction(setupFitnessFunction(session, sharedTilePool))
+        .build(), sharedWorkerThreads);
+        for (final TerminationCondition c : setupTerminationConditions(session)) {
+            result.addTerminationCondition(c);
+        }
+        return result;
     }
     
     protected MainWindow setupMainWindow() throws IOException {
@@ -158,6 +251,56 @@ public class Monalisa {
         return result;
     }
 
+    // without a gui the progress is printed to the console and the session is stopped cleanly on shutdown
+    protected VectorizerListener setupConsoleListener() {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                if (coordinator != null) {
+                    coordinator.stop();
+                }
+                vectorizer.stop();
+            }
+        });
+        return new VectorizerListener() {
+            private long lastPrinted = 0;
+            @Override
+            public void started(Vectorizer v, Genome latest) {
+                System.out.println("Started, press Ctrl+C to stop.");
+            }
+            @Override
+            public void improved(Vectorizer v, Genome latest) {
+            }
+            @Override
+            public void update(Vectorizer v) {
+                if (System.currentTimeMillis() - lastPrinted < 10000) {
+                    return;
+                }
+                lastPrinted = System.currentTimeMillis();
+                final VectorizerContext vc = v.getConfig().getVectorizerContext();
+                final Genome latest = vc.getLatestGenome();
+                System.out.println("Improvements: " + vc.getNumberOfImprovements() + ", mutations: " + vc.getNumberOfMutations() + ", rate: " + rf.format(v.getTickRate()) + "/s"
+                        + (latest == null ? "" : ", polygons: " + latest.countPolygons() + ", fitness: " + v.getConfig().getFitnessFunction().format(latest.fitness)));
+            }
+            @Override
+            public void stopping(Vectorizer v) {
+                System.out.println("Stopping...");
+            }
+            @Override
+            public void stopped(Vectorizer v) {
+                // the threads of the coordinator would keep the process alive after the vectorizer has stopped itself
+                if (coordinator != null) {
+                    coordinator.stop();
+                }
+                if (v.getTerminatedBy() != null) {
+                    System.out.println("Stopped, " + v.getTerminatedBy().getDescription() + "!");
+                } else {
+                    System.out.println("Stopped!");
+                }
+            }
+        };
+    }
+
     protected void printError() {
         System.out.println("Usage:");
         params.getParser().printUsage(System.out);
@@ -195,6 +338,14 @@ public class Monalisa {
         return vectorizer;
     }
     
+    public Coordinator getCoordinator() {
+        return coordinator;
+    }
+    
+    public WorkerClient getWorkerClient() {
+        return workerClient;
+    }
+    
     public MainWindow getMainWindow() {
         return mainWindow;
     }
@@ -203,11 +354,18 @@ public class Monalisa {
         if (!params.isReady())
             throw new IllegalStateException("Not ready");
 
-        this.session = new SessionManager(params);
+        if (params.isWorker()) {
+            this.workerClient = new WorkerClient(params, params.getWorkerHost(), params.getWorkerPort());
+            this.session = workerClient.connect();
+        } else {
+            this.session = new SessionManager(params);
+        }
 
         final int imageWidth = session.getWidth(), imageHeight = session.getHeight();
 
-        if (session.isSessionResumed()) {
+        if (workerClient != null) {
+            System.out.println("Joined session '" + session.getSessionName() + "' of coordinator: " + params.getWorkerAddress());
+        } else if (session.isSessionResumed()) {
             System.out.println("Resumed session '" + session.getSessionName() + "': " + session.getDatabaseFile());
         } else {
             System.out.println("Started new session '" + session.getSessionName() + "': " + session.getDatabaseFile());
@@ -237,6 +395,21 @@ public class Monalisa {
         }
         
         this.vectorizer = setupVectorizer(session);
+        
+        if (params.getCoordinatorPort() > 0) {
+            this.coordinator = new Coordinator(vectorizer, params.getCoordinatorPort());
+        }
+        
+        if (workerClient != null) {
+            vectorizer.addListener(workerClient);
+            return;
+        }
+        
+        if (!params.getShowGui()) {
+            vectorizer.addListener(setupConsoleListener());
+            return;
+        }
+        
         this.mainWindow = setupMainWindow();
         
         vectorizer.addListener(new VectorizerListener() {
@@ -264,14 +437,22 @@ public class Monalisa {
         });
     }
 
-    public void start() {
+    public void start() throws IOException {
         if (!params.isReady())
             throw new IllegalStateException("Not ready");
 
         vectorizer.start();
+        
+        if (coordinator != null) {
+            coordinator.start();
+            System.out.println("Accepting workers on port " + coordinator.getPort());
+        }
     }
 
     public void quit() {
+        if (coordinator != null) {
+            coordinator.stop();
+        }
         vectorizer.stop();
         System.exit(0);
     }
@@ -283,7 +464,9 @@ public class Monalisa {
         }
         final Monalisa ml = new Monalisa(args);
         try {
-            if (ml.params.isReady()) {
+            if (ml.params.isReady() && ml.params.isBatch()) {
+                new BatchRunner(ml.params).run();
+            } else if (ml.params.isReady()) {
                 ml.setup();
                 ml.start();
             } else {
@@ -0,0 +1,17 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.IOException;
+
+// codecs are identified by a small id which is stored along with the compressed data, ids must never be reused
+public interface Codec {
+
+    int getID();
+
+    String getName();
+
+    byte[] compress(byte[] input, int offset, int length) throws IOException;
+
+    // the decompressed length is part of the (possibly untrusted) input, codecs fail rather than produce more than maxLength bytes
+    byte[] decompress(byte[] input, int offset, int length, int maxLength) throws IOException;
+
+}
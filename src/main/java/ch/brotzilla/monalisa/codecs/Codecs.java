@@ -0,0 +1,102 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.IOException;
+
+import com.google.common.base.Preconditions;
+
+public final class Codecs {
+
+    // the ids are stored in the database, e.g. in files.compressed, where 0 and 1 have always meant uncompressed and gzip
+    public static final int MaxID = 15;
+
+    public static final Codec Raw = new RawCodec();
+    public static final Codec GZip = new GZipCodec();
+    public static final Codec Deflate = new DeflateCodec();
+    public static final Codec LZ = new LZCodec();
+
+    public static final Codec Default = LZ;
+
+    private static final Codec[] codecs = new Codec[MaxID + 1];
+
+    static {
+        register(Raw);
+        register(GZip);
+        register(Deflate);
+        register(LZ);
+    }
+
+    private Codecs() {
+    }
+
+    public static synchronized void register(Codec codec) {
+        Preconditions.checkNotNull(codec, "The parameter 'codec' must not be null");
+        final int id = codec.getID();
+        Preconditions.checkArgument(id >= 0 && id <= MaxID, "The id of the parameter 'codec' has to be in the range [0, " + MaxID + "]");
+        Preconditions.checkArgument(codecs[id] == null || codecs[id] == codec, "The id of the parameter 'codec' is already in use (" + id + ")");
+        Preconditions.checkArgument(codecs[id] != null || forName(codec.getName()) == null, "The name of the parameter 'codec' is already in use (" + codec.getName() + ")");
+        codecs[id] = codec;
+    }
+
+    public static synchronized Codec forID(int id) throws IOException {
+        if (id < 0 || id > MaxID || codecs[id] == null) {
+            throw new IOException("Unknown codec (" + id + ")");
+        }
+        return codecs[id];
+    }
+
+    // returns null if there is no codec with the specified name
+    public static synchronized Codec forName(String name) {
+        Preconditions.checkNotNull(name, "The parameter 'name' must not be null");
+        for (final Codec codec : codecs) {
+            if (codec != null && codec.getName().equals(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    static void writeVarint(byte[] output, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            output[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output[position] = (byte) value;
+    }
+
+    static int sizeOfVarint(int value) {
+        int result = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            ++result;
+        }
+        return result;
+    }
+
+    static void checkLength(int size, int maxLength, long maxExpansion) throws IOException {
+        if (size > maxLength) {
+            throw new IOException("Unable to decompress data, too large (" + size + " bytes, at most " + maxLength + " allowed)");
+        }
+        if (size > maxExpansion) {
+            throw new IOException("Unable to decompress data, invalid length (" + size + ")");
+        }
+    }
+
+    // returns the value in the lower and the number of bytes read in the upper half
+    static long readVarint(byte[] input, int position, int end) throws IOException {
+        int result = 0;
+        for (int shift = 0, i = 0; shift < 35; shift += 7, i++) {
+            if (position + i >= end) {
+                throw new IOException("Unable to decompress data, unexpected end of data");
+            }
+            final int b = input[position + i];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IOException("Unable to decompress data, invalid length");
+                }
+                return ((long) (i + 1) << 32) | result;
+            }
+        }
+        throw new IOException("Unable to decompress data, malformed varint");
+    }
+}
@@ -0,0 +1,81 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// raw deflate without the gzip framing, deflaters and inflaters are expensive to create and therefore reused per thread
+public class DeflateCodec implements Codec {
+
+    private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED, true);
+        }
+    };
+
+    private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    @Override
+    public int getID() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    // the uncompressed length precedes the deflated data, so the output can be allocated at once
+    @Override
+    public byte[] compress(byte[] input, int offset, int length) {
+        final Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(input, offset, length);
+        deflater.finish();
+        final int header = Codecs.sizeOfVarint(length);
+        byte[] output = new byte[header + length + length / 1000 + 64];
+        Codecs.writeVarint(output, 0, length);
+        int position = header;
+        while (!deflater.finished()) {
+            if (position == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            position += deflater.deflate(output, position, output.length - position);
+        }
+        return Arrays.copyOf(output, position);
+    }
+
+    // deflate expands its input at most 1032 times, larger lengths are forged and rejected before anything is allocated
+    @Override
+    public byte[] decompress(byte[] input, int offset, int length, int maxLength) throws IOException {
+        final long varint = Codecs.readVarint(input, offset, offset + length);
+        final int size = (int) varint, header = (int) (varint >>> 32);
+        Codecs.checkLength(size, maxLength, (long) (length - header) * 1032 + 16);
+        final Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(input, offset + header, length - header);
+        final byte[] output = new byte[size];
+        try {
+            int position = 0;
+            while (position < size) {
+                final int inflated = inflater.inflate(output, position, size - position);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Unable to decompress data, unexpected end of data");
+                }
+                position += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Unable to decompress data", e);
+        }
+        return output;
+    }
+
+}
@@ -0,0 +1,47 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// the format all sessions used to be stored in, kept to read existing databases
+public class GZipCodec implements Codec {
+
+    @Override
+    public int getID() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public byte[] compress(byte[] input, int offset, int length) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream(length / 2 + 64);
+        try (final GZIPOutputStream gzout = new GZIPOutputStream(bout)) {
+            gzout.write(input, offset, length);
+        }
+        return bout.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] input, int offset, int length, int maxLength) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream((int) Math.min((long) length * 4, maxLength));
+        try (final GZIPInputStream gzin = new GZIPInputStream(new ByteArrayInputStream(input, offset, length))) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzin.read(buffer)) != -1) {
+                if (read > maxLength - bout.size()) {
+                    throw new IOException("Unable to decompress data, too large (at most " + maxLength + " bytes allowed)");
+                }
+                bout.write(buffer, 0, read);
+            }
+        }
+        return bout.toByteArray();
+    }
+
+}
@@ -0,0 +1,176 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// a pure java lz77 codec with an lz4 like block layout, it trades compression ratio for speed
+//   varint uncompressed length, then sequences of
+//   token (literal length << 4 | match length - 4), literal length extension, literals, offset (2 bytes, little endian), match length extension
+// lengths of 15 or more are extended by bytes of 255 followed by the remainder, the last sequence consists of literals only
+public class LZCodec implements Codec {
+
+    private static final int MinMatch = 4;
+    private static final int LastLiterals = 5;
+    private static final int MatchFindLimit = 12;
+    private static final int MaxOffset = 65535;
+    private static final int HashLog = 14;
+
+    private final ThreadLocal<int[]> hashTables = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1 << HashLog];
+        }
+    };
+
+    private static int readInt(byte[] data, int position) {
+        return (data[position] & 0xFF) | ((data[position + 1] & 0xFF) << 8) | ((data[position + 2] & 0xFF) << 16) | ((data[position + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int value) {
+        return (value * -1640531535) >>> (32 - HashLog);
+    }
+
+    private static int writeLength(byte[] output, int position, int length) {
+        while (length >= 255) {
+            output[position++] = (byte) 255;
+            length -= 255;
+        }
+        output[position++] = (byte) length;
+        return position;
+    }
+
+    private static int writeSequence(byte[] output, int position, byte[] input, int anchor, int literals, int offset, int matchLength) {
+        final int token = position++;
+        final int ml = matchLength - MinMatch;
+        output[token] = (byte) ((Math.min(literals, 15) << 4) | (matchLength > 0 ? Math.min(ml, 15) : 0));
+        if (literals >= 15) {
+            position = writeLength(output, position, literals - 15);
+        }
+        System.arraycopy(input, anchor, output, position, literals);
+        position += literals;
+        if (matchLength > 0) {
+            output[position++] = (byte) offset;
+            output[position++] = (byte) (offset >>> 8);
+            if (ml >= 15) {
+                position = writeLength(output, position, ml - 15);
+            }
+        }
+        return position;
+    }
+
+    private static int readLength(byte[] input, int position, int end, int[] length) throws IOException {
+        int b;
+        do {
+            if (position >= end) {
+                throw new IOException("Unable to decompress data, unexpected end of data");
+            }
+            b = input[position++] & 0xFF;
+            length[0] += b;
+        } while (b == 255);
+        return position;
+    }
+
+    @Override
+    public int getID() {
+        return 3;
+    }
+
+    @Override
+    public String getName() {
+        return "lz";
+    }
+
+    @Override
+    public byte[] compress(byte[] input, int offset, int length) {
+        final int header = Codecs.sizeOfVarint(length);
+        final byte[] output = new byte[header + length + length / 255 + 16];
+        Codecs.writeVarint(output, 0, length);
+        int position = header;
+
+        final int end = offset + length;
+        int anchor = offset;
+        if (length > MatchFindLimit) {
+            // the table stores positions relative to the input offset plus one, zero marks an empty slot
+            final int[] table = hashTables.get();
+            Arrays.fill(table, 0);
+            final int matchLimit = end - LastLiterals, findLimit = end - MatchFindLimit;
+            int ip = offset;
+            while (ip < findLimit) {
+                final int value = readInt(input, ip);
+                final int h = hash(value);
+                final int ref = table[h] - 1 + offset;
+                table[h] = ip - offset + 1;
+                if (ref < offset || ip - ref > MaxOffset || readInt(input, ref) != value) {
+                    ++ip;
+                    continue;
+                }
+                int matchLength = MinMatch;
+                while (ip + matchLength < matchLimit && input[ref + matchLength] == input[ip + matchLength]) {
+                    ++matchLength;
+                }
+                position = writeSequence(output, position, input, anchor, ip - anchor, ip - ref, matchLength);
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+        position = writeSequence(output, position, input, anchor, end - anchor, 0, 0);
+        return Arrays.copyOf(output, position);
+    }
+
+    @Override
+    public byte[] decompress(byte[] input, int offset, int length, int maxLength) throws IOException {
+        final int end = offset + length;
+        final long varint = Codecs.readVarint(input, offset, end);
+        final int size = (int) varint;
+        // every input byte yields at most 255 output bytes, which rejects forged lengths before anything is allocated
+        Codecs.checkLength(size, maxLength, (long) length * 255 + 16);
+        int ip = offset + (int) (varint >>> 32);
+        final byte[] output = new byte[size];
+        final int[] extension = new int[1];
+        int op = 0;
+        while (true) {
+            if (ip >= end) {
+                throw new IOException("Unable to decompress data, unexpected end of data");
+            }
+            final int token = input[ip++] & 0xFF;
+            extension[0] = token >>> 4;
+            if (extension[0] == 15) {
+                ip = readLength(input, ip, end, extension);
+            }
+            final int literals = extension[0];
+            if (literals > end - ip || literals > size - op) {
+                throw new IOException("Unable to decompress data, literals out of bounds");
+            }
+            System.arraycopy(input, ip, output, op, literals);
+            ip += literals;
+            op += literals;
+            if (op == size) {
+                return output;
+            }
+            if (ip + 2 > end) {
+                throw new IOException("Unable to decompress data, unexpected end of data");
+            }
+            final int distance = (input[ip] & 0xFF) | ((input[ip + 1] & 0xFF) << 8);
+            ip += 2;
+            extension[0] = token & 0x0F;
+            if (extension[0] == 15) {
+                ip = readLength(input, ip, end, extension);
+            }
+            final int matchLength = extension[0] + MinMatch;
+            int ref = op - distance;
+            if (distance == 0 || ref < 0 || matchLength > size - op) {
+                throw new IOException("Unable to decompress data, match out of bounds");
+            }
+            if (distance >= matchLength) {
+                System.arraycopy(output, ref, output, op, matchLength);
+                op += matchLength;
+            } else {
+                // overlapping matches repeat the last bytes
+                for (int i = 0; i < matchLength; i++) {
+                    output[op++] = output[ref++];
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package ch.brotzilla.monalisa.codecs;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class RawCodec implements Codec {
+
+    @Override
+    public int getID() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "none";
+    }
+
+    @Override
+    public byte[] compress(byte[] input, int offset, int length) {
+        return Arrays.copyOfRange(input, offset, offset + length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] input, int offset, int length, int maxLength) throws IOException {
+        if (length > maxLength) {
+            throw new IOException("Unable to decompress data, too large (" + length + " bytes, at most " + maxLength + " allowed)");
+        }
+        return Arrays.copyOfRange(input, offset, offset + length);
+    }
+
+}
@@ -0,0 +1,102 @@
+package ch.brotzilla.monalisa.db;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import com.almworks.sqlite4java.SQLiteException;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+// thins out the history of a session in small steps, each step holds the write lock only for a short transaction
+// the history is walked from the newest to the oldest genome, so the keyframes of surviving deltas are known before they are reached
+public class Compactor {
+
+    private final Database db;
+    private final RetentionPolicy policy;
+    private final long now;
+    private final int latest;
+
+    private final Set<Integer> requiredKeyframes = Sets.newHashSet();
+    private int cursor, lowestKept = -1;
+    private boolean keyframeSeen, finished;
+    private int scanned, deleted;
+
+    private boolean retain(GenomeHeader header) {
+        // the newest keyframe may still be referenced by deltas which have not been stored yet
+        final boolean newestKeyframe = header.isKeyframe() && !keyframeSeen;
+        if (header.isKeyframe()) {
+            keyframeSeen = true;
+        }
+        final boolean required = requiredKeyframes.remove(header.selected);
+        if (newestKeyframe || required || header.selected >= latest || policy.isRecent(header.created, now) || lowestKept < 0) {
+            return true;
+        }
+        final long spacing = policy.getSpacing(latest - header.selected);
+        return lowestKept / spacing != header.selected / spacing;
+    }
+
+    public Compactor(Database db, RetentionPolicy policy) throws SQLiteException, IOException {
+        Preconditions.checkNotNull(db, "The parameter 'db' must not be null");
+        Preconditions.checkNotNull(policy, "The parameter 'policy' must not be null");
+        this.db = db;
+        this.policy = policy;
+        this.now = System.currentTimeMillis();
+        // genomes stored after this point are newer than the latest one and therefore never touched
+        this.latest = db.queryGenomeStatistics().latestGenome;
+        this.cursor = latest + 1;
+        this.finished = latest < 0;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getNumberOfScanned() {
+        return scanned;
+    }
+
+    public int getNumberOfDeleted() {
+        return deleted;
+    }
+
+    // processes the next batch of genomes, returns false as soon as the whole history has been processed
+    public boolean step(int limit) throws SQLiteException, IOException {
+        Preconditions.checkArgument(limit > 0, "The parameter 'limit' has to be greater than zero");
+        if (finished) {
+            return false;
+        }
+        final List<GenomeHeader> headers = db.queryGenomeHeaders(cursor, limit);
+        final List<Integer> obsolete = Lists.newArrayList();
+        for (final GenomeHeader header : headers) {
+            cursor = header.selected;
+            if (retain(header)) {
+                lowestKept = header.selected;
+                if (!header.isKeyframe()) {
+                    requiredKeyframes.add(header.keyframe);
+                }
+            } else {
+                obsolete.add(header.selected);
+            }
+        }
+        scanned += headers.size();
+        deleted += db.deleteGenomes(obsolete);
+        finished = headers.size() < limit;
+        return !finished;
+    }
+
+    // returns up to the specified number of free pages to the file system, returns the number of pages which are still free
+    public int vacuum(int pages) throws SQLiteException {
+        Preconditions.checkArgument(pages > 0, "The parameter 'pages' has to be greater than zero");
+        if (!db.isIncrementalVacuumEnabled()) {
+            return 0;
+        }
+        final int free = db.queryFreePages();
+        if (free > 0) {
+            db.incrementalVacuum(Math.min(free, pages));
+        }
+        return Math.max(0, free - pages);
+    }
+
+}
@@ -0,0 +1,52 @@
+package ch.brotzilla.monalisa.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.almworks.sqlite4java.SQLiteException;
+import com.google.common.base.Preconditions;
+
+// sqlite connections are confined to the thread which opened them, so every thread gets its own cached connection
+public class ConnectionCache {
+
+    private final File databaseFile;
+    private final ConnectionProfile profile;
+    private final ThreadLocal<Database> connections = new ThreadLocal<Database>();
+
+    public ConnectionCache(File databaseFile, ConnectionProfile profile) {
+        Preconditions.checkNotNull(databaseFile, "The parameter 'databaseFile' must not be null");
+        Preconditions.checkNotNull(profile, "The parameter 'profile' must not be null");
+        this.databaseFile = databaseFile;
+        this.profile = profile;
+    }
+
+    public File getDatabaseFile() {
+        return databaseFile;
+    }
+
+    public ConnectionProfile getProfile() {
+        return profile;
+    }
+
+    // closing the returned database only releases it, the connection stays open for the next caller on the same thread
+    public Database acquire() throws IOException, SQLiteException {
+        Database db = connections.get();
+        if (db == null) {
+            db = Database.openDatabase(databaseFile, profile);
+            db.cache = this;
+            connections.set(db);
+        }
+        ++db.leases;
+        return db;
+    }
+
+    // has to be called by every thread which is about to terminate, sqlite refuses to dispose connections of other threads
+    public void release() {
+        final Database db = connections.get();
+        if (db != null) {
+            connections.remove();
+            db.dispose();
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package ch.brotzilla.monalisa.db;
+
+import com.almworks.sqlite4java.SQLiteConnection;
+import com.almworks.sqlite4java.SQLiteException;
+import com.google.common.base.Preconditions;
+
+// pragmas applied to every connection, sqlite forgets most of them as soon as the connection is closed
+public class ConnectionProfile {
+
+    // wal lets readers run concurrently with the storage thread, a crash can only lose the last few commits
+    public static final ConnectionProfile Default = new Builder().build();
+
+    // every commit is synced to disk, which is considerably slower on spinning disks
+    public static final ConnectionProfile Durable = new Builder().setSynchronous("FULL").build();
+
+    private final String journalMode, synchronous;
+    private final int pageSize, cacheSize, busyTimeout;
+    private final long mmapSize;
+
+    private ConnectionProfile(Builder builder) {
+        Preconditions.checkNotNull(builder, "The parameter 'builder' must not be null");
+        this.journalMode = builder.getJournalMode();
+        this.synchronous = builder.getSynchronous();
+        this.pageSize = builder.getPageSize();
+        this.cacheSize = builder.getCacheSize();
+        this.mmapSize = builder.getMmapSize();
+        this.busyTimeout = builder.getBusyTimeout();
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    // positive values are pages, negative values are kibibytes
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    // milliseconds a connection waits for the write lock held by another connection, e.g. while the history is compacted
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    // the page size and the vacuum mode only take effect before the first table is created, so they have to be applied before the schema
+    public void apply(SQLiteConnection conn) throws SQLiteException {
+        Preconditions.checkNotNull(conn, "The parameter 'conn' must not be null");
+        // some of the pragmas need a lock, e.g. while another thread opens its connection
+        conn.setBusyTimeout(busyTimeout);
+        conn.exec("PRAGMA page_size=" + pageSize);
+        // lets the compaction return the space of deleted genomes to the file system, only takes effect for new databases
+        conn.exec("PRAGMA auto_vacuum=INCREMENTAL");
+        conn.exec("PRAGMA journal_mode=" + journalMode);
+        conn.exec("PRAGMA synchronous=" + synchronous);
+        conn.exec("PRAGMA cache_size=" + cacheSize);
+        // ignored by sqlite versions older than 3.7.17
+        conn.exec("PRAGMA mmap_size=" + mmapSize);
+        conn.exec("PRAGMA temp_store=MEMORY");
+        conn.exec("PRAGMA count_changes=OFF");
+    }
+
+    public static ConnectionProfile forName(String name) {
+        Preconditions.checkNotNull(name, "The parameter 'name' must not be null");
+        switch (name) {
+        case "default":
+            return Default;
+        case "durable":
+            return Durable;
+        default:
+            throw new IllegalArgumentException("Unknown connection profile (" + name + ")");
+        }
+    }
+
+    public static class Builder {
+
+        private String journalMode = "WAL", synchronous = "NORMAL";
+        private int pageSize = 4096, cacheSize = -8192, busyTimeout = 10000;
+        private long mmapSize = 64L * 1024 * 1024;
+
+        private static String checkKeyword(String value, String... allowed) {
+            Preconditions.checkNotNull(value, "The parameter 'value' must not be null");
+            final String result = value.toUpperCase();
+            for (final String a : allowed) {
+                if (a.equals(result)) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("The parameter 'value' is not supported (" + value + ")");
+        }
+
+        public Builder() {
+        }
+
+        public String getJournalMode() {
+            return journalMode;
+        }
+
+        public Builder setJournalMode(String value) {
+            this.journalMode = checkKeyword(value, "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+            return this;
+        }
+
+        public String getSynchronous() {
+            return synchronous;
+        }
+
+        public Builder setSynchronous(String value) {
+            this.synchronous = checkKeyword(value, "OFF", "NORMAL", "FULL");
+            return this;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public Builder setPageSize(int value) {
+            Preconditions.checkArgument(value >= 512 && value <= 65536 && Integer.bitCount(value) == 1, "The parameter 'value' has to be a power of two in the range [512, 65536]");
+            this.pageSize = value;
+            return this;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public Builder setCacheSize(int value) {
+            this.cacheSize = value;
+            return this;
+        }
+
+        public long getMmapSize() {
+            return mmapSize;
+        }
+
+        public Builder setMmapSize(long value) {
+            Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
+            this.mmapSize = value;
+            return this;
+        }
+
+        public int getBusyTimeout() {
+            return busyTimeout;
+        }
+
+        public Builder setBusyTimeout(int value) {
+            Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
+            this.busyTimeout = value;
+            return this;
+        }
+
+        public ConnectionProfile build() {
+            return new ConnectionProfile(this);
+        }
+    }
+}
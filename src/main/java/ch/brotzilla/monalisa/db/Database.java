@@ -3,45 +3,94 @@ package ch.brotzilla.monalisa.db;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 
+import ch.brotzilla.monalisa.codecs.Codec;
+import ch.brotzilla.monalisa.codecs.Codecs;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.images.ImageData;
 import ch.brotzilla.monalisa.utils.Compression;
+import ch.brotzilla.monalisa.utils.GenomeCodec;
 
 import com.almworks.sqlite4java.SQLiteConnection;
 import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
-public class Database implements AutoCloseable {
+public class Database implements GenomeStorage {
 
     public static final DatabaseSchema Schema = new DatabaseSchema();
     public static final String SelectLatestGenomeQuery = "SELECT selected, data FROM genomes ORDER BY selected DESC LIMIT 1";
+    public static final String SelectGenomesDescendingQuery = "SELECT selected, data FROM genomes ORDER BY selected DESC";
+    public static final String SelectGenomeBySelectedQuery = "SELECT selected, data FROM genomes WHERE selected = ?1";
     public static final String SelectFileByIdQuery = "SELECT id, data FROM files WHERE id = ?1";
     public static final String SelectNumberOfGenomesQuery = "SELECT Count(selected) FROM genomes";
+    public static final String SelectLatestSelectedQuery = "SELECT selected, fitness FROM genomes ORDER BY selected DESC LIMIT 1";
     public static final String SelectSettingByIdQuery = "SELECT id, value FROM settings WHERE id = ?1"; 
     public static final String InsertFileQuery = "INSERT INTO files VALUES (?1, ?2, ?3, ?4)";
-    public static final String InsertGenomeQuery = "INSERT INTO genomes VALUES (?1, ?2, ?3, ?4)";
+    public static final String InsertGenomeQuery = "INSERT INTO genomes VALUES (?1, ?2, ?3, ?4, ?5)";
+    public static final String SelectGenomeHeadersQuery = "SELECT selected, created, substr(data, 1, 6) FROM genomes WHERE selected < ?1 ORDER BY selected DESC LIMIT ?2";
+    public static final String DeleteGenomeQuery = "DELETE FROM genomes WHERE selected = ?1";
     public static final String MergeSettingQuery = "INSERT OR REPLACE INTO settings VALUES (?1, ?2)";
     
+    public static final String NumberOfGenomesSetting = "number-of-genomes";
+    public static final String LatestGenomeSetting = "latest-genome";
+    public static final String LatestFitnessSetting = "latest-fitness";
+    
     protected final SQLiteConnection conn;
     
-    protected final SQLiteStatement selectLatestGenomeQuery, selectFileByIdQuery, selectNumberOfGenomesQuery, selectSettingByIdQuery;
+    protected final SQLiteStatement selectLatestGenomeQuery, selectGenomesDescendingQuery, selectGenomeBySelectedQuery, selectFileByIdQuery, selectNumberOfGenomesQuery, selectLatestSelectedQuery, selectSettingByIdQuery;
     protected final SQLiteStatement insertFileQuery, insertGenomeQuery, mergeSettingQuery;
+    protected final SQLiteStatement selectGenomeHeadersQuery, deleteGenomeQuery;
     
     protected Transaction transaction;
     
+    // set for connections owned by a cache, which outlive their users
+    ConnectionCache cache;
+    int leases;
+    
     private Database(SQLiteConnection conn) throws SQLiteException {
         Preconditions.checkNotNull(conn, "The parameter 'conn' must not be null");
         Preconditions.checkState(conn.isOpen(), "The connection to the database has to be open");
         this.conn = conn;
         this.selectLatestGenomeQuery = conn.prepare(SelectLatestGenomeQuery);
+        this.selectGenomesDescendingQuery = conn.prepare(SelectGenomesDescendingQuery);
+        this.selectGenomeBySelectedQuery = conn.prepare(SelectGenomeBySelectedQuery);
         this.selectFileByIdQuery = conn.prepare(SelectFileByIdQuery);
         this.selectNumberOfGenomesQuery = conn.prepare(SelectNumberOfGenomesQuery);
+        this.selectLatestSelectedQuery = conn.prepare(SelectLatestSelectedQuery);
         this.selectSettingByIdQuery = conn.prepare(SelectSettingByIdQuery);
         this.insertFileQuery = conn.prepare(InsertFileQuery);
         this.insertGenomeQuery = conn.prepare(InsertGenomeQuery);
         this.mergeSettingQuery = conn.prepare(MergeSettingQuery);
+        this.selectGenomeHeadersQuery = conn.prepare(SelectGenomeHeadersQuery);
+        this.deleteGenomeQuery = conn.prepare(DeleteGenomeQuery);
+    }
+    
+    // databases created by older versions store no creation time
+    private static void upgrade(SQLiteConnection conn) throws SQLiteException {
+        final SQLiteStatement tableInfo = conn.prepare("PRAGMA table_info(" + DatabaseSchema.tblGenomes.getName() + ")");
+        boolean found = false;
+        try {
+            while (tableInfo.step()) {
+                found |= DatabaseSchema.TblGenomes.fCreated.getName().equals(tableInfo.columnString(1));
+            }
+        } finally {
+            tableInfo.dispose();
+        }
+        if (!found) {
+            conn.exec("ALTER TABLE " + DatabaseSchema.tblGenomes.getName() + " ADD COLUMN " + DatabaseSchema.TblGenomes.fCreated.getDescription());
+        }
+    }
+    
+    private int queryPragma(String pragma) throws SQLiteException {
+        final SQLiteStatement st = conn.prepare("PRAGMA " + pragma);
+        try {
+            return st.step() ? st.columnInt(0) : 0;
+        } finally {
+            st.dispose();
+        }
     }
     
     public File getDatabaseFile() {
@@ -50,43 +99,151 @@ public class Database implements AutoCloseable {
     
     public int queryNumberOfGenomes() throws SQLiteException {
         selectNumberOfGenomesQuery.reset();
-        if (selectNumberOfGenomesQuery.step()) {
-            return selectNumberOfGenomesQuery.columnInt(0);
+        try {
+            if (selectNumberOfGenomesQuery.step()) {
+                return selectNumberOfGenomesQuery.columnInt(0);
+            }
+            return -1;
+        } finally {
+            selectNumberOfGenomesQuery.reset();
+        }
+    }
+    
+    // the statistics are maintained by insertGenomes(), they are recomputed if they are missing or out of date, e.g. for databases written by older versions
+    public GenomeStatistics queryGenomeStatistics() throws SQLiteException, IOException {
+        int latest = -1;
+        double fitness = 0;
+        selectLatestSelectedQuery.reset();
+        try {
+            if (selectLatestSelectedQuery.step()) {
+                latest = selectLatestSelectedQuery.columnInt(0);
+                fitness = selectLatestSelectedQuery.columnDouble(1);
+            }
+        } finally {
+            selectLatestSelectedQuery.reset();
+        }
+        if (latest < 0) {
+            return GenomeStatistics.Empty;
+        }
+        final String count = querySetting(NumberOfGenomesSetting), stored = querySetting(LatestGenomeSetting);
+        if (!count.isEmpty() && stored.equals(String.valueOf(latest))) {
+            try {
+                return new GenomeStatistics(Integer.parseInt(count), latest, fitness);
+            } catch (NumberFormatException e) {
+                // recomputed below
+            }
+        }
+        return new GenomeStatistics(queryNumberOfGenomes(), latest, fitness);
+    }
+    
+    public void updateGenomeStatistics(GenomeStatistics statistics) throws SQLiteException, IOException {
+        Preconditions.checkNotNull(statistics, "The parameter 'statistics' must not be null");
+        try (final Transaction t = begin()) {
+            updateSetting(NumberOfGenomesSetting, String.valueOf(statistics.numberOfGenomes));
+            updateSetting(LatestGenomeSetting, String.valueOf(statistics.latestGenome));
+            updateSetting(LatestFitnessSetting, String.valueOf(statistics.latestFitness));
+            t.commit();
         }
-        return -1;
     }
     
     public Genome queryLatestGenome() throws SQLiteException, IOException {
         selectLatestGenomeQuery.reset();
-        if (selectLatestGenomeQuery.step()) {
-            return Compression.decodeGenome(selectLatestGenomeQuery.columnBlob(1));
+        if (!selectLatestGenomeQuery.step()) {
+            return null;
+        }
+        final byte[] data = selectLatestGenomeQuery.columnBlob(1);
+        selectLatestGenomeQuery.reset();
+        final Genome result = decodeGenome(data);
+        if (result != null) {
+            return result;
+        }
+        // the keyframe of the latest genome has not been stored, so the newest genome which can be decoded is returned
+        selectGenomesDescendingQuery.reset();
+        try {
+            while (selectGenomesDescendingQuery.step()) {
+                final Genome genome = decodeGenome(selectGenomesDescendingQuery.columnBlob(1));
+                if (genome != null) {
+                    return genome;
+                }
+            }
+        } finally {
+            selectGenomesDescendingQuery.reset();
         }
         return null;
     }
     
+    public Genome queryGenome(int selected) throws SQLiteException, IOException {
+        selectGenomeBySelectedQuery.reset();
+        selectGenomeBySelectedQuery.bind(1, selected);
+        if (!selectGenomeBySelectedQuery.step()) {
+            return null;
+        }
+        final byte[] data = selectGenomeBySelectedQuery.columnBlob(1);
+        selectGenomeBySelectedQuery.reset();
+        return decodeGenome(data);
+    }
+    
+    // deltas are decoded against their keyframe, returns null if the keyframe is missing
+    protected Genome decodeGenome(byte[] data) throws SQLiteException, IOException {
+        final int keyframe = GenomeCodec.getKeyframe(data);
+        if (keyframe < 0) {
+            return GenomeCodec.decode(data);
+        }
+        selectGenomeBySelectedQuery.reset();
+        selectGenomeBySelectedQuery.bind(1, keyframe);
+        if (!selectGenomeBySelectedQuery.step()) {
+            return null;
+        }
+        final byte[] keyframeData = selectGenomeBySelectedQuery.columnBlob(1);
+        selectGenomeBySelectedQuery.reset();
+        if (GenomeCodec.getKeyframe(keyframeData) >= 0) {
+            throw new IOException("Unable to decode genome, keyframe " + keyframe + " is a delta");
+        }
+        return GenomeCodec.decode(data, GenomeCodec.decode(keyframeData));
+    }
+    
     public ImageData queryImage(String id) throws SQLiteException, IOException {
+        return Compression.decodeImageData(queryFileData(id));
+    }
+    
+    // returns the data as stored, images can be decoded later by Compression.decodeImageData()
+    public byte[] queryFileData(String id) throws SQLiteException {
         Preconditions.checkNotNull(id, "The parameter 'id' must not be null");
         selectFileByIdQuery.reset();
         selectFileByIdQuery.bind(1, id);
-        if (selectFileByIdQuery.step()) {
-            return Compression.decodeImageData(selectFileByIdQuery.columnBlob(1));
+        try {
+            if (selectFileByIdQuery.step()) {
+                return selectFileByIdQuery.columnBlob(1);
+            }
+            return null;
+        } finally {
+            selectFileByIdQuery.reset();
         }
-        return null;
+    }
+    
+    public void insertImage(String id, String originalName, ImageData data, Codec codec) throws IOException, SQLiteException {
+        final byte[] encoded = Compression.encode(data, codec);
+        // the first byte holds the codec which was actually used, images which do not compress are stored raw
+        insertFile(id, originalName, encoded[0], encoded);
     }
     
     public void insertImage(String id, String originalName, ImageData data) throws IOException, SQLiteException {
-        final byte[] encoded = Compression.encode(data);
-        insertFile(id, originalName, true, encoded);
+        insertImage(id, originalName, data, Codecs.Default);
     }
     
     public void insertFile(String id, String originalName, boolean compressed, byte[] data) throws SQLiteException {
+        insertFile(id, originalName, compressed ? Codecs.GZip.getID() : Codecs.Raw.getID(), data);
+    }
+    
+    // the compressed column holds the id of the codec, 0 and 1 are uncompressed and gzip as in older databases
+    public void insertFile(String id, String originalName, int codec, byte[] data) throws SQLiteException {
         Preconditions.checkNotNull(id, "The parameter 'id' must not be null");
         Preconditions.checkArgument(!id.isEmpty(), "The parameter 'id' must not be empty");
         Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
         insertFileQuery.reset();
         insertFileQuery.bind(1, id);
         insertFileQuery.bind(2, originalName);
-        insertFileQuery.bind(3, compressed ? 1 : 0);
+        insertFileQuery.bind(3, codec);
         insertFileQuery.bind(4, data);
         insertFileQuery.step();
     }
@@ -97,12 +254,90 @@ public class Database implements AutoCloseable {
         insertGenome(genome.fitness, genome.numberOfImprovements, genome.countPolygons(), encoded);
     }
     
+    public void insertGenome(EncodedGenome genome) throws SQLiteException {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        insertGenome(genome.fitness, genome.numberOfImprovements, genome.polygons, genome.data);
+    }
+    
+    // stores the genomes and updates the genome statistics within one transaction
+    public void insertGenomes(List<EncodedGenome> genomes) throws SQLiteException, IOException {
+        Preconditions.checkNotNull(genomes, "The parameter 'genomes' must not be null");
+        if (genomes.isEmpty()) {
+            return;
+        }
+        try (final Transaction t = begin()) {
+            GenomeStatistics statistics = queryGenomeStatistics();
+            for (final EncodedGenome genome : genomes) {
+                insertGenome(genome);
+                statistics = statistics.add(genome);
+            }
+            updateGenomeStatistics(statistics);
+            t.commit();
+        }
+    }
+    
+    // returns the headers of up to limit genomes older than the specified one, newest first
+    public List<GenomeHeader> queryGenomeHeaders(int before, int limit) throws SQLiteException, IOException {
+        Preconditions.checkArgument(limit > 0, "The parameter 'limit' has to be greater than zero");
+        final List<GenomeHeader> result = Lists.newArrayListWithCapacity(limit);
+        selectGenomeHeadersQuery.reset();
+        selectGenomeHeadersQuery.bind(1, before);
+        selectGenomeHeadersQuery.bind(2, limit);
+        try {
+            while (selectGenomeHeadersQuery.step()) {
+                final long created = selectGenomeHeadersQuery.columnNull(1) ? 0 : selectGenomeHeadersQuery.columnLong(1);
+                result.add(new GenomeHeader(selectGenomeHeadersQuery.columnInt(0), created, GenomeCodec.getKeyframe(selectGenomeHeadersQuery.columnBlob(2))));
+            }
+        } finally {
+            selectGenomeHeadersQuery.reset();
+        }
+        return result;
+    }
+    
+    // deletes the genomes and updates the genome statistics within one transaction, the latest genome must not be deleted
+    public int deleteGenomes(List<Integer> selected) throws SQLiteException, IOException {
+        Preconditions.checkNotNull(selected, "The parameter 'selected' must not be null");
+        if (selected.isEmpty()) {
+            return 0;
+        }
+        try (final Transaction t = begin()) {
+            final GenomeStatistics statistics = queryGenomeStatistics();
+            int deleted = 0;
+            for (final int id : selected) {
+                Preconditions.checkArgument(id != statistics.latestGenome, "The latest genome must not be deleted");
+                deleteGenomeQuery.reset();
+                deleteGenomeQuery.bind(1, id);
+                deleteGenomeQuery.step();
+                deleted += conn.getChanges();
+            }
+            deleteGenomeQuery.reset();
+            updateGenomeStatistics(new GenomeStatistics(Math.max(0, statistics.numberOfGenomes - deleted), statistics.latestGenome, statistics.latestFitness));
+            t.commit();
+            return deleted;
+        }
+    }
+    
+    // only databases created by this version can return free pages to the file system, older ones reuse them for new genomes
+    public boolean isIncrementalVacuumEnabled() throws SQLiteException {
+        return queryPragma("auto_vacuum") == 2;
+    }
+    
+    public int queryFreePages() throws SQLiteException {
+        return queryPragma("freelist_count");
+    }
+    
+    public void incrementalVacuum(int pages) throws SQLiteException {
+        Preconditions.checkArgument(pages > 0, "The parameter 'pages' has to be greater than zero");
+        conn.exec("PRAGMA incremental_vacuum(" + pages + ")");
+    }
+    
     public void insertGenome(double fitness, int numberOfImprovements, int polygons, byte[] data) throws SQLiteException {
         insertGenomeQuery.reset();
         insertGenomeQuery.bind(1, fitness);
         insertGenomeQuery.bind(2, numberOfImprovements);
         insertGenomeQuery.bind(3, polygons);
         insertGenomeQuery.bind(4, data);
+        insertGenomeQuery.bind(5, System.currentTimeMillis());
         insertGenomeQuery.step();
     }
 
@@ -118,10 +353,15 @@ public class Database implements AutoCloseable {
         Preconditions.checkNotNull(id, "The parameter 'id' must not be null");
         selectSettingByIdQuery.reset();
         selectSettingByIdQuery.bind(1, id);
-        if (selectSettingByIdQuery.step()) {
-            return selectSettingByIdQuery.columnBlob(1);
+        // a statement which is not reset keeps its read transaction open, which could not be upgraded once another connection has written
+        try {
+            if (selectSettingByIdQuery.step()) {
+                return selectSettingByIdQuery.columnBlob(1);
+            }
+            return null;
+        } finally {
+            selectSettingByIdQuery.reset();
         }
-        return null;
     }
 
     public void updateSetting(String id, String value) throws UnsupportedEncodingException, SQLiteException {
@@ -150,62 +390,117 @@ public class Database implements AutoCloseable {
     
     @Override
     public void close() {
+        if (cache != null) {
+            if (leases > 0) {
+                --leases;
+            }
+            return;
+        }
+        dispose();
+    }
+    
+    void dispose() {
         conn.dispose();
     }
     
     public static Database openDatabase(File dbFile) throws IOException, SQLiteException {
+        return openDatabase(dbFile, ConnectionProfile.Default);
+    }
+    
+    public static Database openDatabase(File dbFile, ConnectionProfile profile) throws IOException, SQLiteException {
         Preconditions.checkNotNull(dbFile, "The parameter 'dbFile' must not be null");
+        Preconditions.checkNotNull(profile, "The parameter 'profile' must not be null");
         if (!dbFile.isFile()) {
             throw new IOException("Database not found (" + dbFile + ")");
         }
         final SQLiteConnection conn = new SQLiteConnection(dbFile);
         conn.open(false);
-        return new Database(conn);
+        try {
+            profile.apply(conn);
+            upgrade(conn);
+            return new Database(conn);
+        } catch (SQLiteException e) {
+            conn.dispose();
+            throw e;
+        }
     }
     
     public static Database createDatabase(File dbFile) throws SQLiteException, IOException {
+        return createDatabase(dbFile, ConnectionProfile.Default);
+    }
+    
+    public static Database createDatabase(File dbFile, ConnectionProfile profile) throws SQLiteException, IOException {
         Preconditions.checkNotNull(dbFile, "The parameter 'dbFile' must not be null");
+        Preconditions.checkNotNull(profile, "The parameter 'profile' must not be null");
         if (dbFile.exists()) {
             throw new IOException("Database already exists (" + dbFile + ")");
         }
         final SQLiteConnection conn = new SQLiteConnection(dbFile);
         conn.open(true);
         
-        conn.exec("BEGIN");
-        for (final String query : Schema.getCreateDatabaseQueries()) {
-            conn.exec(query);
-        }
-        conn.exec("PRAGMA count_changes=OFF");
-        conn.exec("PRAGMA journal_mode=MEMORY");
-        conn.exec("PRAGMA temp_store=MEMORY");
-        conn.exec("COMMIT");
-
-        return new Database(conn);
+        try {
+            // the journal mode cannot be changed inside a transaction
+            profile.apply(conn);
+            conn.exec("BEGIN");
+            for (final String query : Schema.getCreateDatabaseQueries()) {
+                conn.exec(query);
+            }
+            conn.exec("COMMIT");
+            return new Database(conn);
+        } catch (SQLiteException e) {
+            conn.dispose();
+            throw e;
+        }
     }
     
+    // every scope has to call commit() at its end, if one is left without, e.g. due to an exception, the whole transaction is rolled back
     public static class Transaction implements AutoCloseable {
 
         private final Database db;
-        private int count = 0;
+        private int count = 0, committed = 0;
+        private boolean failed;
         
         private void enter() throws SQLiteException {
+            // all transactions write, taking the write lock up front avoids failing to upgrade a read lock when another connection has written in the meantime
             if (count == 0) {
-                db.conn.exec("BEGIN");
+                // a transaction which could not be finished is still open if its rollback failed as well
+                rollback();
+                db.conn.exec("BEGIN IMMEDIATE");
+                failed = false;
             }
             ++count;
         }
         
+        private void rollback() throws SQLiteException {
+            // sqlite rolls back on its own after some errors, e.g. when the disk is full
+            if (!db.conn.getAutoCommit()) {
+                db.conn.exec("ROLLBACK");
+            }
+        }
+        
         private void leave() throws SQLiteException {
             if (count <= 0) {
                 throw new IllegalStateException("Transaction already closed");
             }
+            if (committed != count) {
+                failed = true;
+            }
+            committed = 0;
             --count;
             if (count == 0) {
-                try {
-                    db.conn.exec("COMMIT");
-                } finally {
-                    db.transaction = null;
+                if (failed) {
+                    rollback();
+                } else {
+                    try {
+                        db.conn.exec("COMMIT");
+                    } catch (SQLiteException e) {
+                        // a failed commit leaves the transaction open, which would make every later one fail to begin
+                        rollback();
+                        throw e;
+                    }
                 }
+                // the transaction is only forgotten once it has been finished, otherwise begin() would fail from now on
+                db.transaction = null;
             }
         }
         
@@ -215,6 +510,12 @@ public class Database implements AutoCloseable {
             enter();
         }
 
+        // marks the current scope as successful, it is committed when the outermost scope is closed
+        public void commit() {
+            Preconditions.checkState(count > 0, "Transaction already closed");
+            committed = count;
+        }
+
         @Override
         public void close() throws SQLiteException {
             leave();
@@ -16,9 +16,11 @@ public class DatabaseSchema extends Schema {
         public static final Field fSelected = new Field("selected", DataType.Integer, false, true);
         public static final Field fPolygons = new Field("polygons", DataType.Integer, false, false);
         public static final Field fData = new Field("data", DataType.Blob, false, false);
+        // milliseconds since the epoch, null for genomes stored by older versions
+        public static final Field fCreated = new Field("created", DataType.Integer, true, false);
 
         public TblGenomes() {
-            super("genomes", fFitness, fSelected, fPolygons, fData);
+            super("genomes", fFitness, fSelected, fPolygons, fData, fCreated);
         }
     }
     
@@ -0,0 +1,30 @@
+package ch.brotzilla.monalisa.db;
+
+import java.io.IOException;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.utils.Compression;
+
+import com.google.common.base.Preconditions;
+
+// a genome encoded for storage, encoding is expensive and therefore done before the database is locked
+public class EncodedGenome {
+
+    public final double fitness;
+    public final int numberOfImprovements;
+    public final int polygons;
+    public final byte[] data;
+
+    public EncodedGenome(double fitness, int numberOfImprovements, int polygons, byte[] data) {
+        Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
+        this.fitness = fitness;
+        this.numberOfImprovements = numberOfImprovements;
+        this.polygons = polygons;
+        this.data = data;
+    }
+
+    public EncodedGenome(Genome genome) throws IOException {
+        this(Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null").fitness, genome.numberOfImprovements, genome.countPolygons(), Compression.encode(genome));
+    }
+
+}
@@ -0,0 +1,22 @@
+package ch.brotzilla.monalisa.db;
+
+// the columns of a stored genome which are needed to thin out the history without decoding it
+public class GenomeHeader {
+
+    public final int selected;
+    // milliseconds since the epoch or 0 if unknown
+    public final long created;
+    // the selected id of the keyframe the genome is encoded against or -1 if it is a keyframe itself
+    public final int keyframe;
+
+    public GenomeHeader(int selected, long created, int keyframe) {
+        this.selected = selected;
+        this.created = created;
+        this.keyframe = keyframe;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe < 0;
+    }
+
+}
@@ -0,0 +1,286 @@
+package ch.brotzilla.monalisa.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.utils.GenomeCodec;
+
+import com.google.common.base.Preconditions;
+
+// an append only file of genomes, which avoids the per row overhead of sqlite at very high improvement rates
+//   header: magic, version, end of the valid records, number of records, offset of the latest record, offset of the latest keyframe, checksum
+//   record: payload length, crc32 of the payload, payload (fitness, selected, polygons, created, encoded genome)
+// records are written through a memory mapped window at the end of the file, the header is updated once they have been forced to disk
+// records written after the last header update are recovered on open, the file is truncated after the last record with a valid checksum
+public class GenomeJournal implements GenomeStorage {
+
+    public static final int Magic = 0x4D4C474A;
+    public static final int Version = 1;
+    public static final String FileExtension = "mlgj";
+
+    private static final int HeaderSize = 64;
+    private static final int HeaderChecksumOffset = 40;
+    private static final int RecordHeaderSize = 8;
+    private static final int RecordFieldsSize = 8 + 4 + 4 + 8;
+    private static final int WindowSize = 4 * 1024 * 1024;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private long end, count, latest, latestKeyframe;
+
+    private GenomeJournal(File file, boolean create) throws IOException {
+        Preconditions.checkNotNull(file, "The parameter 'file' must not be null");
+        if (create && file.exists()) {
+            throw new IOException("Journal already exists (" + file + ")");
+        }
+        if (!create && !file.isFile()) {
+            throw new IOException("Journal not found (" + file + ")");
+        }
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            this.channel = raf.getChannel();
+            final long size = channel.size();
+            if (!create && size < HeaderSize) {
+                throw new IOException("Unable to open journal, file too short (" + file + ")");
+            }
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HeaderSize);
+            if (create) {
+                end = HeaderSize;
+                latest = latestKeyframe = -1;
+                writeHeader();
+            } else {
+                readHeader();
+                recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private int checksum(byte[] data, int offset, int length) {
+        crc.reset();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private void readHeader() throws IOException {
+        final byte[] fields = new byte[HeaderChecksumOffset];
+        header.position(0);
+        header.get(fields);
+        if (header.getInt(0) != Magic) {
+            throw new IOException("Unable to open journal, not a genome journal (" + file + ")");
+        }
+        if (header.getInt(4) != Version) {
+            throw new IOException("Unable to open journal, version not supported (" + header.getInt(4) + ")");
+        }
+        // a torn header is not fatal, all records are recovered by scanning them
+        if (header.getInt(HeaderChecksumOffset) != checksum(fields, 0, fields.length)) {
+            end = HeaderSize;
+            count = 0;
+            latest = latestKeyframe = -1;
+            return;
+        }
+        end = header.getLong(8);
+        count = header.getLong(16);
+        latest = header.getLong(24);
+        latestKeyframe = header.getLong(32);
+    }
+
+    private void writeHeader() {
+        header.putInt(0, Magic);
+        header.putInt(4, Version);
+        header.putLong(8, end);
+        header.putLong(16, count);
+        header.putLong(24, latest);
+        header.putLong(32, latestKeyframe);
+        final byte[] fields = new byte[HeaderChecksumOffset];
+        header.position(0);
+        header.get(fields);
+        header.putInt(HeaderChecksumOffset, checksum(fields, 0, fields.length));
+        header.force();
+    }
+
+    // returns the payload of the record at the specified offset or null if there is no valid record
+    private byte[] readRecord(long offset, long size) throws IOException {
+        if (offset < HeaderSize || offset + RecordHeaderSize > size) {
+            return null;
+        }
+        final ByteBuffer recordHeader = ByteBuffer.allocate(RecordHeaderSize);
+        readFully(recordHeader, offset);
+        final int length = recordHeader.getInt(0), checksum = recordHeader.getInt(4);
+        if (length < RecordFieldsSize || offset + RecordHeaderSize + length > size) {
+            return null;
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, offset + RecordHeaderSize);
+        if (checksum(payload.array(), 0, length) != checksum) {
+            return null;
+        }
+        return payload.array();
+    }
+
+    private void readFully(ByteBuffer target, long offset) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new IOException("Unable to read journal, unexpected end of file");
+            }
+        }
+    }
+
+    private static byte[] getData(byte[] payload) {
+        final byte[] result = new byte[payload.length - RecordFieldsSize];
+        System.arraycopy(payload, RecordFieldsSize, result, 0, result.length);
+        return result;
+    }
+
+    // records which were written after the last header update are only valid if they are complete and their checksum matches
+    private void recover() throws IOException {
+        final long size = channel.size();
+        long offset = end;
+        byte[] payload;
+        while ((payload = readRecord(offset, size)) != null) {
+            ++count;
+            latest = offset;
+            if (GenomeCodec.getKeyframe(getData(payload)) < 0) {
+                latestKeyframe = offset;
+            }
+            offset += RecordHeaderSize + payload.length;
+        }
+        end = offset;
+        if (size > end) {
+            channel.truncate(end);
+        }
+        writeHeader();
+    }
+
+    private void ensureWindow(int length) throws IOException {
+        if (window != null && end + length <= windowStart + window.capacity()) {
+            return;
+        }
+        if (window != null) {
+            window.force();
+        }
+        windowStart = end;
+        window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(WindowSize, length));
+    }
+
+    private void append(EncodedGenome genome, long created) throws IOException {
+        final int length = RecordFieldsSize + genome.data.length;
+        final ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.putDouble(genome.fitness);
+        payload.putInt(genome.numberOfImprovements);
+        payload.putInt(genome.polygons);
+        payload.putLong(created);
+        payload.put(genome.data);
+        ensureWindow(RecordHeaderSize + length);
+        window.position((int) (end - windowStart));
+        window.putInt(length);
+        window.putInt(checksum(payload.array(), 0, length));
+        window.put(payload.array());
+        ++count;
+        latest = end;
+        if (GenomeCodec.getKeyframe(genome.data) < 0) {
+            latestKeyframe = end;
+        }
+        end += RecordHeaderSize + length;
+    }
+
+    private byte[] readValidRecord(long offset) throws IOException {
+        final byte[] result = readRecord(offset, end);
+        if (result == null) {
+            throw new IOException("Unable to read journal, invalid record at offset " + offset);
+        }
+        return result;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public GenomeStatistics queryGenomeStatistics() throws IOException {
+        if (latest < 0) {
+            return GenomeStatistics.Empty;
+        }
+        final ByteBuffer payload = ByteBuffer.wrap(readValidRecord(latest));
+        return new GenomeStatistics((int) count, payload.getInt(8), payload.getDouble(0));
+    }
+
+    // deltas always refer to the newest keyframe before them, the keyframe itself is returned if the latest delta cannot be decoded
+    @Override
+    public Genome queryLatestGenome() throws IOException {
+        if (latest < 0) {
+            return null;
+        }
+        final byte[] data = getData(readValidRecord(latest));
+        final int keyframeId = GenomeCodec.getKeyframe(data);
+        if (keyframeId < 0) {
+            return GenomeCodec.decode(data);
+        }
+        if (latestKeyframe < 0) {
+            return null;
+        }
+        final Genome keyframe = GenomeCodec.decode(getData(readValidRecord(latestKeyframe)));
+        if (keyframe.numberOfImprovements != keyframeId) {
+            return keyframe;
+        }
+        return GenomeCodec.decode(data, keyframe);
+    }
+
+    @Override
+    public void insertGenomes(List<EncodedGenome> genomes) throws IOException {
+        Preconditions.checkNotNull(genomes, "The parameter 'genomes' must not be null");
+        if (genomes.isEmpty()) {
+            return;
+        }
+        final long created = System.currentTimeMillis();
+        for (final EncodedGenome genome : genomes) {
+            append(genome, created);
+        }
+        window.force();
+        writeHeader();
+    }
+
+    // the mapped window grows the file ahead of the records, the unused tail is cut off
+    @Override
+    public void close() throws IOException {
+        try {
+            if (window != null) {
+                window.force();
+                window = null;
+            }
+            try {
+                channel.truncate(end);
+            } catch (IOException e) {
+                // some platforms refuse to truncate mapped files, the tail is cut off on the next open
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    public static GenomeJournal openJournal(File file) throws IOException {
+        return new GenomeJournal(file, false);
+    }
+
+    public static GenomeJournal createJournal(File file) throws IOException {
+        return new GenomeJournal(file, true);
+    }
+
+}
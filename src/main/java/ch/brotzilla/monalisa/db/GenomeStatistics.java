@@ -0,0 +1,30 @@
+package ch.brotzilla.monalisa.db;
+
+import com.google.common.base.Preconditions;
+
+// kept in the settings table, so a session can be resumed without scanning the genomes table
+public class GenomeStatistics {
+
+    public static final GenomeStatistics Empty = new GenomeStatistics(0, -1, 0);
+
+    public final int numberOfGenomes;
+    // the selected id of the latest genome or -1 if no genome has been stored yet
+    public final int latestGenome;
+    public final double latestFitness;
+
+    public GenomeStatistics(int numberOfGenomes, int latestGenome, double latestFitness) {
+        Preconditions.checkArgument(numberOfGenomes >= 0, "The parameter 'numberOfGenomes' has to be greater than or equal to zero");
+        this.numberOfGenomes = numberOfGenomes;
+        this.latestGenome = latestGenome;
+        this.latestFitness = latestFitness;
+    }
+
+    public GenomeStatistics add(EncodedGenome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        if (genome.numberOfImprovements > latestGenome) {
+            return new GenomeStatistics(numberOfGenomes + 1, genome.numberOfImprovements, genome.fitness);
+        }
+        return new GenomeStatistics(numberOfGenomes + 1, latestGenome, latestFitness);
+    }
+
+}
@@ -0,0 +1,25 @@
+package ch.brotzilla.monalisa.db;
+
+import java.io.IOException;
+import java.util.List;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+
+import com.almworks.sqlite4java.SQLiteException;
+
+// where the genomes of a session are stored, either in the database itself or in a journal next to it
+// instances are confined to the thread which opened them
+public interface GenomeStorage extends AutoCloseable {
+
+    GenomeStatistics queryGenomeStatistics() throws IOException, SQLiteException;
+
+    // returns the newest genome which can be decoded or null if no genome has been stored yet
+    Genome queryLatestGenome() throws IOException, SQLiteException;
+
+    // the genomes have to be passed in the order they were encoded, deltas refer to the keyframes before them
+    void insertGenomes(List<EncodedGenome> genomes) throws IOException, SQLiteException;
+
+    @Override
+    void close() throws IOException;
+
+}
@@ -0,0 +1,91 @@
+package ch.brotzilla.monalisa.db;
+
+import com.google.common.base.Preconditions;
+
+// decides which genomes survive a compaction of the history:
+//   all genomes stored within the last keepAllFor milliseconds
+//   one genome per keepEvery improvements
+//   beyond logarithmicAfter improvements the spacing doubles with every doubling of the distance to the latest genome
+public class RetentionPolicy {
+
+    public static final RetentionPolicy Default = new Builder().build();
+
+    private final long keepAllFor;
+    private final int keepEvery, logarithmicAfter;
+
+    private RetentionPolicy(Builder builder) {
+        Preconditions.checkNotNull(builder, "The parameter 'builder' must not be null");
+        this.keepAllFor = builder.getKeepAllFor();
+        this.keepEvery = builder.getKeepEvery();
+        this.logarithmicAfter = builder.getLogarithmicAfter();
+    }
+
+    public long getKeepAllFor() {
+        return keepAllFor;
+    }
+
+    public int getKeepEvery() {
+        return keepEvery;
+    }
+
+    // 0 disables the logarithmic spacing
+    public int getLogarithmicAfter() {
+        return logarithmicAfter;
+    }
+
+    // genomes of unknown age are never recent
+    public boolean isRecent(long created, long now) {
+        return created > 0 && now - created < keepAllFor;
+    }
+
+    // the number of improvements which share one surviving genome, the buckets are aligned, so larger buckets always contain whole smaller ones
+    public long getSpacing(int distance) {
+        if (logarithmicAfter == 0 || distance <= logarithmicAfter) {
+            return keepEvery;
+        }
+        return (long) keepEvery << (31 - Integer.numberOfLeadingZeros(distance / logarithmicAfter));
+    }
+
+    public static class Builder {
+
+        private long keepAllFor = 60L * 60 * 1000;
+        private int keepEvery = 100, logarithmicAfter = 10000;
+
+        public Builder() {
+        }
+
+        public long getKeepAllFor() {
+            return keepAllFor;
+        }
+
+        public Builder setKeepAllFor(long value) {
+            Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
+            this.keepAllFor = value;
+            return this;
+        }
+
+        public int getKeepEvery() {
+            return keepEvery;
+        }
+
+        public Builder setKeepEvery(int value) {
+            Preconditions.checkArgument(value > 0, "The parameter 'value' has to be greater than zero");
+            this.keepEvery = value;
+            return this;
+        }
+
+        public int getLogarithmicAfter() {
+            return logarithmicAfter;
+        }
+
+        public Builder setLogarithmicAfter(int value) {
+            Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
+            this.logarithmicAfter = value;
+            return this;
+        }
+
+        public RetentionPolicy build() {
+            return new RetentionPolicy(this);
+        }
+    }
+}
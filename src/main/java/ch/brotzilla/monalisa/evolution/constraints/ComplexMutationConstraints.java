@@ -6,6 +6,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.evolution.intf.GenomeConstraint;
@@ -46,6 +47,18 @@ public class ComplexMutationConstraints extends MutationConstraints {
         }
         return true;
     }
+
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        if (geneConstraints != null) {
+            for (final GeneConstraint c : geneConstraints) {
+                if (c != null && !c.satisfied(config, genome, index)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
     
     public static class Builder implements ch.brotzilla.monalisa.intf.Builder<ComplexMutationConstraints> {
 
@@ -3,6 +3,7 @@ package ch.brotzilla.monalisa.evolution.constraints;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
@@ -33,4 +34,11 @@ public class GeneAlphaConstraint implements GeneConstraint {
         return (alpha >= minAlpha) && (alpha <= maxAlpha);
     }
 
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int alpha = genome.getAlpha(index);
+        return (alpha >= minAlpha) && (alpha <= maxAlpha);
+    }
+
 }
@@ -3,6 +3,7 @@ package ch.brotzilla.monalisa.evolution.constraints;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.utils.Utils;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
@@ -18,4 +19,10 @@ public class GeneSelfIntersectionConstraint implements GeneConstraint {
         return !Utils.isSelfIntersecting(gene);
     }
 
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        return !Utils.isSelfIntersecting(genome.x, genome.y, genome.offsets[index], genome.lengths[index]);
+    }
+
 }
@@ -3,6 +3,7 @@ package ch.brotzilla.monalisa.evolution.constraints;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
@@ -11,14 +12,10 @@ public class GeneStrictCoordinatesConstraint implements GeneConstraint {
     public GeneStrictCoordinatesConstraint() {
     }
 
-    @Override
-    public boolean satisfied(VectorizerConfig config, Gene gene) {
-        Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
+    private boolean satisfied(VectorizerConfig config, int[] x, int[] y, int offset, int len) {
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
-        final int len = gene.x.length;
-        final int[] x = gene.x, y = gene.y;
         final int w = config.getWidth(), h = config.getHeight();
-        for (int i = 0; i < len; i++) {
+        for (int i = offset; i < offset + len; i++) {
             final int px = x[i], py = y[i];
             if (px < 0 || px >= w || py < 0 || py >= h) {
                 return false;
@@ -27,4 +24,16 @@ public class GeneStrictCoordinatesConstraint implements GeneConstraint {
         return true;
     }
 
+    @Override
+    public boolean satisfied(VectorizerConfig config, Gene gene) {
+        Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
+        return satisfied(config, gene.x, gene.y, 0, gene.x.length);
+    }
+
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        return satisfied(config, genome.x, genome.y, genome.offsets[index], genome.lengths[index]);
+    }
+
 }
@@ -1,6 +1,7 @@
 package ch.brotzilla.monalisa.evolution.constraints;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.evolution.intf.GenomeConstraint;
@@ -21,4 +22,9 @@ public class MutationConstraints implements GeneConstraint, GenomeConstraint {
         return true;
     }
 
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        return true;
+    }
+
 }
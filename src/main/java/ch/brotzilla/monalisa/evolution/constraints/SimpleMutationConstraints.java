@@ -1,6 +1,7 @@
 package ch.brotzilla.monalisa.evolution.constraints;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.GeneConstraint;
 import ch.brotzilla.monalisa.evolution.intf.GenomeConstraint;
@@ -32,4 +33,12 @@ public class SimpleMutationConstraints extends MutationConstraints {
         return geneConstraint.satisfied(config, gene);
     }
 
+    @Override
+    public boolean satisfied(VectorizerConfig config, PackedGenome genome, int index) {
+        if (geneConstraint == null) {
+            return true;
+        }
+        return geneConstraint.satisfied(config, genome, index);
+    }
+
 }
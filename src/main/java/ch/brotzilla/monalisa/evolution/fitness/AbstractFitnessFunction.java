@@ -3,6 +3,7 @@ package ch.brotzilla.monalisa.evolution.fitness;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
 import ch.brotzilla.monalisa.rendering.Renderer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
@@ -11,9 +12,15 @@ public abstract class AbstractFitnessFunction implements FitnessFunction {
 
     @Override
     public double compute(VectorizerConfig config, Genome genome) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        return compute(config, genome, needsRenderer() ? config.createRenderer() : null);
+    }
+
+    @Override
+    public double compute(VectorizerConfig config, Genome genome, Renderer renderer) {
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
         Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
-        final Renderer renderer = config.createRenderer();
+        Preconditions.checkNotNull(renderer, "The parameter 'renderer' must not be null");
         renderer.render(genome);
         if (renderer.getAutoUpdateBuffer()) {
             return compute(config, genome, renderer.getBuffer());
@@ -21,4 +28,16 @@ public abstract class AbstractFitnessFunction implements FitnessFunction {
         return compute(config, genome, renderer.readData());
     }
 
+    // fitness functions which need more than the rendered pixels score the converted genome
+    @Override
+    public double compute(VectorizerConfig config, PackedGenome genome, Renderer renderer) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        return compute(config, genome.toGenome(), renderer);
+    }
+
+    @Override
+    public boolean needsRenderer() {
+        return true;
+    }
+
 }
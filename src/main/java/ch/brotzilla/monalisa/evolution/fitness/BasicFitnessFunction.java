@@ -5,14 +5,27 @@ import java.text.DecimalFormat;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.evolution.intf.RegionFitnessFunction;
+import ch.brotzilla.monalisa.images.PlanarTarget;
+import ch.brotzilla.monalisa.rendering.Renderer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
-public class BasicFitnessFunction extends AbstractFitnessFunction {
+public class BasicFitnessFunction extends AbstractFitnessFunction implements RegionFitnessFunction {
 
     private final DecimalFormat ff = new DecimalFormat("#,###,###,###,##0.######");
     private final double alphaFactor, redFactor, greenFactor, blueFactor;
+    protected final ParallelTiles parallelTiles;
     
-    public BasicFitnessFunction(double alphaFactor, double redFactor, double greenFactor, double blueFactor) {
+    protected final double computePixel(int ic, int ta, int tr, int tg, int tb, float weight) {
+        final int da = ((ic >> 24) & 0x000000FF) - ta;
+        final int dr = ((ic >> 16) & 0x000000FF) - tr;
+        final int dg = ((ic >> 8) & 0x000000FF) - tg;
+        final int db = (ic & 0x000000FF) - tb;
+        return ((da * da * alphaFactor) + (dr * dr * redFactor) + (dg * dg * greenFactor) + (db * db * blueFactor)) * weight;
+    }
+    
+    public BasicFitnessFunction(double alphaFactor, double redFactor, double greenFactor, double blueFactor, ParallelTiles parallelTiles) {
         Preconditions.checkArgument(alphaFactor > 0, "The parameter 'alphaFactor' has to be greater than zero");
         Preconditions.checkArgument(redFactor > 0, "The parameter 'redFactor' has to be greater than zero");
         Preconditions.checkArgument(greenFactor > 0, "The parameter 'greenFactor' has to be greater than zero");
@@ -21,6 +34,11 @@ public class BasicFitnessFunction extends AbstractFitnessFunction {
         this.redFactor = redFactor;
         this.greenFactor = greenFactor;
         this.blueFactor = blueFactor;
+        this.parallelTiles = parallelTiles;
+    }
+    
+    public BasicFitnessFunction(double alphaFactor, double redFactor, double greenFactor, double blueFactor) {
+        this(alphaFactor, redFactor, greenFactor, blueFactor, null);
     }
     
     public BasicFitnessFunction() {
@@ -43,39 +61,73 @@ public class BasicFitnessFunction extends AbstractFitnessFunction {
         return blueFactor;
     }
 
+    public ParallelTiles getParallelTiles() {
+        return parallelTiles;
+    }
+
     @Override
-    public double compute(VectorizerConfig config, Genome genome, int[] inputData) {
+    public double compute(final VectorizerConfig config, final Genome genome, final int[] inputData) {
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
         Preconditions.checkNotNull(inputData, "The parameter 'inputData' must not be null");
-        final int[] targetData = config.getVectorizerContext().getTargetImageData();
-        final int[] importanceMap = config.getVectorizerContext().getImportanceMapData();
+        if (parallelTiles != null) {
+            final int width = config.getWidth();
+            return parallelTiles.compute(0, config.getHeight(), new ParallelTiles.Tile() {
+                @Override
+                public double compute(int y, int height) {
+                    return BasicFitnessFunction.this.compute(config, genome, inputData, 0, y, width, height);
+                }
+            });
+        }
+        final PlanarTarget target = config.getVectorizerContext().getPlanarTarget();
+        final short[] ta = target.getAlpha(), tr = target.getRed(), tg = target.getGreen(), tb = target.getBlue();
+        final float[] weights = target.getWeights();
         double sum = 0;
-        final int length = targetData.length;
+        final int length = target.getLength();
         for (int i = 0; i < length; i++) {
-            final int ic = inputData[i];
-            final int ia = (ic >> 24) & 0x000000FF;
-            final int ir = (ic >> 16) & 0x000000FF;
-            final int ig = (ic >> 8) & 0x000000FF;
-            final int ib = ic & 0x000000FF;
-            final int tc = targetData[i];
-            final int ta = (tc >> 24) & 0x000000FF;
-            final int tr = (tc >> 16) & 0x000000FF;
-            final int tg = (tc >> 8) & 0x000000FF;
-            final int tb = tc & 0x000000FF;
-            final int da = ia - ta;
-            final int dr = ir - tr;
-            final int dg = ig - tg;
-            final int db = ib - tb;
-            sum += ((da * da * alphaFactor) + (dr * dr * redFactor) + (dg * dg * greenFactor) + (db * db * blueFactor)) * (256 - importanceMap[i]);
+            sum += computePixel(inputData[i], ta[i], tr[i], tg[i], tb[i], weights[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public double compute(VectorizerConfig config, Genome genome, int[] inputData, int x, int y, int width, int height) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(inputData, "The parameter 'inputData' must not be null");
+        Preconditions.checkArgument(x >= 0 && y >= 0 && width > 0 && height > 0 && x + width <= config.getWidth() && y + height <= config.getHeight(), "The specified region is out of bounds");
+        final PlanarTarget target = config.getVectorizerContext().getPlanarTarget();
+        final short[] ta = target.getAlpha(), tr = target.getRed(), tg = target.getGreen(), tb = target.getBlue();
+        final float[] weights = target.getWeights();
+        final int imageWidth = config.getWidth();
+        double sum = 0;
+        for (int row = y; row < y + height; row++) {
+            final int start = row * imageWidth + x, end = start + width;
+            for (int i = start; i < end; i++) {
+                sum += computePixel(inputData[i], ta[i], tr[i], tg[i], tb[i], weights[i]);
+            }
         }
         return sum;
     }
 
+    // only the rendered pixels are scored, so the packed genome is never converted
+    @Override
+    public double compute(VectorizerConfig config, PackedGenome genome, Renderer renderer) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        Preconditions.checkNotNull(renderer, "The parameter 'renderer' must not be null");
+        renderer.render(genome);
+        return compute(config, (Genome) null, renderer.getAutoUpdateBuffer() ? renderer.getBuffer() : renderer.readData());
+    }
+
     @Override
     public boolean isImprovement(Genome latest, Genome mutated) {
         Preconditions.checkNotNull(latest, "The parameter 'latest' must not be null");
         Preconditions.checkNotNull(mutated, "The parameter 'mutated' must not be null");
-        return mutated.fitness < latest.fitness;
+        return isImprovement(latest.fitness, mutated.fitness);
+    }
+
+    @Override
+    public boolean isImprovement(double latestFitness, double mutatedFitness) {
+        return mutatedFitness < latestFitness;
     }
 
     @Override
@@ -8,6 +8,7 @@ import com.google.common.collect.Lists;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.FitnessDecorator;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.rendering.Renderer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
 public class DecoratedFitnessFunction extends AbstractFitnessFunction {
@@ -15,6 +16,17 @@ public class DecoratedFitnessFunction extends AbstractFitnessFunction {
     private final FitnessFunction delegate;
     private final List<FitnessDecorator> decorators;
     
+    private double decorate(VectorizerConfig config, Genome genome, double result) {
+        double decoration = 0;
+        for (final FitnessDecorator d : decorators) {
+            if (d == null) {
+                continue;
+            }
+            decoration += d.apply(config, genome, result);
+        }
+        return result + decoration;
+    }
+
     public DecoratedFitnessFunction(FitnessFunction delegate) {
         Preconditions.checkNotNull(delegate, "The parameter 'delegate' must not be null");
         this.delegate = delegate;
@@ -32,15 +44,18 @@ public class DecoratedFitnessFunction extends AbstractFitnessFunction {
     @Override
     public double compute(VectorizerConfig config, Genome genome, int[] inputData) {
         Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
-        double result = delegate.compute(config, genome, inputData);
-        double decoration = 0;
-        for (final FitnessDecorator d : decorators) {
-            if (d == null) {
-                continue;
-            }
-            decoration += d.apply(config, genome, result);
-        }
-        return result + decoration;
+        return decorate(config, genome, delegate.compute(config, genome, inputData));
+    }
+
+    @Override
+    public double compute(VectorizerConfig config, Genome genome, Renderer renderer) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        return decorate(config, genome, delegate.compute(config, genome, renderer));
+    }
+
+    @Override
+    public boolean needsRenderer() {
+        return delegate.needsRenderer();
     }
 
     @Override
@@ -48,6 +63,11 @@ public class DecoratedFitnessFunction extends AbstractFitnessFunction {
         return delegate.isImprovement(latest, mutated);
     }
 
+    @Override
+    public boolean isImprovement(double latestFitness, double mutatedFitness) {
+        return delegate.isImprovement(latestFitness, mutatedFitness);
+    }
+
     @Override
     public String format(double fitness) {
         return delegate.format(fitness);
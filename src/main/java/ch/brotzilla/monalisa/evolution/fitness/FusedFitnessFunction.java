@@ -0,0 +1,125 @@
+package ch.brotzilla.monalisa.evolution.fitness;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.images.PlanarTarget;
+import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.rendering.ScanlineRasterizer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+
+public class FusedFitnessFunction extends BasicFitnessFunction {
+
+    private static class Scratch {
+        final ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        int[] row = new int[0];
+    }
+
+    // the fitness function is shared by all worker threads
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    // rasterizes either the genome or the packed genome row by row and scores each row right away
+    private double rasterize(VectorizerConfig config, Genome genome, PackedGenome packed, int x, int y, int width, int height) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkArgument(x >= 0 && y >= 0 && width > 0 && height > 0 && x + width <= config.getWidth() && y + height <= config.getHeight(), "The specified region is out of bounds");
+        final PlanarTarget target = config.getVectorizerContext().getPlanarTarget();
+        final short[] ta = target.getAlpha(), tr = target.getRed(), tg = target.getGreen(), tb = target.getBlue();
+        final float[] weights = target.getWeights();
+        final int imageWidth = config.getWidth();
+        final Scratch s = scratch.get();
+        if (s.row.length < width) {
+            s.row = new int[width];
+        }
+        final int[] row = s.row;
+        final ScanlineRasterizer rasterizer = s.rasterizer;
+        if (packed != null) {
+            rasterizer.prepare(packed);
+        } else {
+            rasterizer.prepare(genome.genes);
+        }
+        double sum = 0;
+        for (int r = y; r < y + height; r++) {
+            Arrays.fill(row, 0, width, 0);
+            rasterizer.renderRow(r, row, -x, x, x + width);
+            for (int i = 0, j = r * imageWidth + x; i < width; i++, j++) {
+                sum += computePixel(row[i], ta[j], tr[j], tg[j], tb[j], weights[j]);
+            }
+        }
+        rasterizer.reset();
+        return sum;
+    }
+
+    public FusedFitnessFunction(double alphaFactor, double redFactor, double greenFactor, double blueFactor, ParallelTiles parallelTiles) {
+        super(alphaFactor, redFactor, greenFactor, blueFactor, parallelTiles);
+    }
+
+    public FusedFitnessFunction(double alphaFactor, double redFactor, double greenFactor, double blueFactor) {
+        super(alphaFactor, redFactor, greenFactor, blueFactor);
+    }
+
+    public FusedFitnessFunction() {
+        super();
+    }
+
+    @Override
+    public double compute(final VectorizerConfig config, final Genome genome) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        if (parallelTiles != null) {
+            final int width = config.getWidth();
+            // each thread of the pool rasterizes its tiles with its own scratch
+            return parallelTiles.compute(0, config.getHeight(), new ParallelTiles.Tile() {
+                @Override
+                public double compute(int y, int height) {
+                    return FusedFitnessFunction.this.compute(config, genome, null, 0, y, width, height);
+                }
+            });
+        }
+        return compute(config, genome, null, 0, 0, config.getWidth(), config.getHeight());
+    }
+
+    @Override
+    public double compute(VectorizerConfig config, Genome genome, Renderer renderer) {
+        return compute(config, genome);
+    }
+
+    @Override
+    public double compute(final VectorizerConfig config, final PackedGenome genome, Renderer renderer) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        if (parallelTiles != null) {
+            final int width = config.getWidth();
+            return parallelTiles.compute(0, config.getHeight(), new ParallelTiles.Tile() {
+                @Override
+                public double compute(int y, int height) {
+                    return rasterize(config, null, genome, 0, y, width, height);
+                }
+            });
+        }
+        return rasterize(config, null, genome, 0, 0, config.getWidth(), config.getHeight());
+    }
+
+    @Override
+    public boolean needsRenderer() {
+        return false;
+    }
+
+    // rasterizes the genome row by row and scores each row right away, the rendered image is never materialized
+    // rendered input data is scored like the basic fitness function does
+    @Override
+    public double compute(VectorizerConfig config, Genome genome, int[] inputData, int x, int y, int width, int height) {
+        if (inputData != null) {
+            return super.compute(config, genome, inputData, x, y, width, height);
+        }
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        return rasterize(config, genome, null, x, y, width, height);
+    }
+
+}
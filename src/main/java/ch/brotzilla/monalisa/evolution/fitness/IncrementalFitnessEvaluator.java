@@ -0,0 +1,221 @@
+package ch.brotzilla.monalisa.evolution.fitness;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.evolution.intf.RegionFitnessFunction;
+import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+
+public class IncrementalFitnessEvaluator {
+
+    public static final int DefaultTileSize = 32;
+    // the fitness of an accepted candidate is derived from the fitness of its parent, so rounding errors add up over generations
+    // the tile errors themselves are always computed from scratch, summing them up again resets the accumulated error
+    public static final int ResyncInterval = 16;
+
+    private final VectorizerConfig config;
+    private final VectorizerContext context;
+    private final FitnessFunction fitnessFunction;
+    private final RegionFitnessFunction regionFitnessFunction;
+    private final Renderer renderer;
+    private final int width, height, tileSize, tilesX, tilesY;
+
+    // error sums per tile of the parent genome
+    private final double[] parentErrors;
+    private Genome parent;
+    private double parentFitness;
+    private int adoptions;
+
+    // error sums per tile of the last evaluated candidate, valid inside the dirty tiles only
+    private final double[] candidateErrors;
+    private Genome candidate;
+    private double candidateFitness;
+    private int dirtyX0, dirtyY0, dirtyX1, dirtyY1;
+
+    // bounding box of all replaced genes
+    private int xmin, ymin, xmax, ymax;
+
+    // fitness functions which rasterize the genome themselves do so tile by tile
+    private int[] renderTiles(Genome genome, int tx0, int ty0, int tx1, int ty1) {
+        if (!fitnessFunction.needsRenderer()) {
+            return null;
+        }
+        final int x = tx0 * tileSize, y = ty0 * tileSize;
+        final int w = Math.min((tx1 + 1) * tileSize, width) - x;
+        final int h = Math.min((ty1 + 1) * tileSize, height) - y;
+        if (w == width && h == height) {
+            renderer.render(genome);
+        } else {
+            renderer.render(genome, x, y, w, h);
+        }
+        if (!renderer.getAutoUpdateBuffer()) {
+            renderer.getImage().updateBuffer(x, y, w, h);
+        }
+        return renderer.getBuffer();
+    }
+
+    private double computeTiles(Genome genome, double[] errors, int tx0, int ty0, int tx1, int ty1) {
+        final int[] buffer = renderTiles(genome, tx0, ty0, tx1, ty1);
+        double sum = 0;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            final int py = ty * tileSize, ph = Math.min(tileSize, height - py);
+            for (int tx = tx0; tx <= tx1; tx++) {
+                final int px = tx * tileSize, pw = Math.min(tileSize, width - px);
+                final double error = regionFitnessFunction.compute(config, genome, buffer, px, py, pw, ph);
+                errors[ty * tilesX + tx] = error;
+                sum += error;
+            }
+        }
+        return sum;
+    }
+
+    private double sumTiles(double[] errors, int tx0, int ty0, int tx1, int ty1) {
+        double sum = 0;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                sum += errors[ty * tilesX + tx];
+            }
+        }
+        return sum;
+    }
+
+    private void includeGene(Gene gene) {
+        final int[] x = gene.x, y = gene.y;
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] < xmin) xmin = x[i];
+            if (x[i] > xmax) xmax = x[i];
+            if (y[i] < ymin) ymin = y[i];
+            if (y[i] > ymax) ymax = y[i];
+        }
+    }
+
+    private void updateParent(Genome genome) {
+        if (genome == parent) {
+            return;
+        }
+        if (genome == candidate) {
+            // the last candidate has been accepted, only its dirty tiles have changed
+            for (int ty = dirtyY0; ty <= dirtyY1; ty++) {
+                final int offset = ty * tilesX;
+                System.arraycopy(candidateErrors, offset + dirtyX0, parentErrors, offset + dirtyX0, dirtyX1 - dirtyX0 + 1);
+            }
+            if (++adoptions >= ResyncInterval) {
+                // same order of summation as computeTiles(), so the result equals a full evaluation
+                parentFitness = sumTiles(parentErrors, 0, 0, tilesX - 1, tilesY - 1);
+                adoptions = 0;
+            } else {
+                parentFitness = candidateFitness;
+            }
+        } else {
+            final TileErrorCache cache = context.getTileErrorCache(genome);
+            if (cache != null && cache.getTileSize() == tileSize) {
+                cache.copyErrors(parentErrors);
+                parentFitness = cache.getFitness();
+            } else {
+                parentFitness = computeTiles(genome, parentErrors, 0, 0, tilesX - 1, tilesY - 1);
+            }
+        }
+        parent = genome;
+        candidate = null;
+        // the first worker which adopts the latest genome shares its tile errors with all others
+        if (genome == context.getLatestGenome() && context.getTileErrorCache(genome) == null) {
+            context.setTileErrorCache(new TileErrorCache(genome, tileSize, tilesX, tilesY, parentErrors.clone(), parentFitness));
+        }
+    }
+
+    private void updateCandidate(Genome genome, double fitness, int tx0, int ty0, int tx1, int ty1) {
+        candidate = genome;
+        candidateFitness = fitness;
+        dirtyX0 = tx0;
+        dirtyY0 = ty0;
+        dirtyX1 = tx1;
+        dirtyY1 = ty1;
+    }
+
+    public IncrementalFitnessEvaluator(VectorizerConfig config, int tileSize) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkArgument(tileSize > 0, "The parameter 'tileSize' has to be greater than zero");
+        this.config = config;
+        this.context = config.getVectorizerContext();
+        this.fitnessFunction = config.getFitnessFunction();
+        this.regionFitnessFunction = fitnessFunction instanceof RegionFitnessFunction ? (RegionFitnessFunction) fitnessFunction : null;
+        this.renderer = config.createRenderer();
+        this.width = config.getWidth();
+        this.height = config.getHeight();
+        this.tileSize = tileSize;
+        this.tilesX = (width + tileSize - 1) / tileSize;
+        this.tilesY = (height + tileSize - 1) / tileSize;
+        this.parentErrors = new double[tilesX * tilesY];
+        this.candidateErrors = new double[tilesX * tilesY];
+    }
+
+    public IncrementalFitnessEvaluator(VectorizerConfig config) {
+        this(config, DefaultTileSize);
+    }
+
+    public VectorizerConfig getConfig() {
+        return config;
+    }
+
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public boolean isIncremental() {
+        return regionFitnessFunction != null;
+    }
+
+    public double evaluate(Genome parent, Genome mutated) {
+        Preconditions.checkNotNull(mutated, "The parameter 'mutated' must not be null");
+        if (regionFitnessFunction == null) {
+            return fitnessFunction.compute(config, mutated, renderer);
+        }
+
+        if (parent == null || parent.genes.length != mutated.genes.length) {
+            final double fitness = computeTiles(mutated, candidateErrors, 0, 0, tilesX - 1, tilesY - 1);
+            updateCandidate(mutated, fitness, 0, 0, tilesX - 1, tilesY - 1);
+            return fitness;
+        }
+
+        updateParent(parent);
+
+        // genomes share unchanged genes, so the dirty region is the union of the bounding boxes of all replaced genes
+        final Gene[] pg = parent.genes, mg = mutated.genes;
+        xmin = Integer.MAX_VALUE;
+        ymin = Integer.MAX_VALUE;
+        xmax = Integer.MIN_VALUE;
+        ymax = Integer.MIN_VALUE;
+        for (int i = 0; i < pg.length; i++) {
+            if (pg[i] != mg[i]) {
+                includeGene(pg[i]);
+                includeGene(mg[i]);
+            }
+        }
+
+        // one pixel of padding for antialiasing
+        final int x0 = Math.max(xmin - 1, 0), y0 = Math.max(ymin - 1, 0);
+        final int x1 = xmax == Integer.MIN_VALUE ? -1 : Math.min(xmax + 1, width - 1);
+        final int y1 = ymax == Integer.MIN_VALUE ? -1 : Math.min(ymax + 1, height - 1);
+        if (x0 > x1 || y0 > y1) {
+            updateCandidate(mutated, parentFitness, 0, 0, -1, -1);
+            return parentFitness;
+        }
+
+        final int tx0 = x0 / tileSize, ty0 = y0 / tileSize;
+        final int tx1 = x1 / tileSize, ty1 = y1 / tileSize;
+        final double before = sumTiles(parentErrors, tx0, ty0, tx1, ty1);
+        final double after = computeTiles(mutated, candidateErrors, tx0, ty0, tx1, ty1);
+        final double fitness = parentFitness - before + after;
+        updateCandidate(mutated, fitness, tx0, ty0, tx1, ty1);
+        return fitness;
+    }
+
+}
@@ -0,0 +1,88 @@
+package ch.brotzilla.monalisa.evolution.fitness;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.base.Preconditions;
+
+public class ParallelTiles {
+
+    public static final int DefaultTileHeight = 64;
+
+    private final ForkJoinPool pool;
+    private final int tileHeight;
+
+    public interface Tile {
+        
+        double compute(int y, int height);
+        
+    }
+
+    @SuppressWarnings("serial")
+    private static class Task extends RecursiveAction {
+
+        private final Tile tile;
+        private final double[] errors;
+        private final int y, height, tileHeight, from, to;
+
+        public Task(Tile tile, double[] errors, int y, int height, int tileHeight, int from, int to) {
+            this.tile = tile;
+            this.errors = errors;
+            this.y = y;
+            this.height = height;
+            this.tileHeight = tileHeight;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                final int ty = y + from * tileHeight;
+                errors[from] = tile.compute(ty, Math.min(tileHeight, y + height - ty));
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Task(tile, errors, y, height, tileHeight, from, middle), new Task(tile, errors, y, height, tileHeight, middle, to));
+        }
+    }
+
+    public ParallelTiles(ForkJoinPool pool, int tileHeight) {
+        Preconditions.checkNotNull(pool, "The parameter 'pool' must not be null");
+        Preconditions.checkArgument(tileHeight > 0, "The parameter 'tileHeight' has to be greater than zero");
+        this.pool = pool;
+        this.tileHeight = tileHeight;
+    }
+
+    public ParallelTiles(int tileHeight) {
+        this(new ForkJoinPool(), tileHeight);
+    }
+
+    public ParallelTiles() {
+        this(DefaultTileHeight);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    // splits the rows [y, y + height) into horizontal tiles, computes them concurrently and sums up the errors in tile order
+    public double compute(int y, int height, Tile tile) {
+        Preconditions.checkNotNull(tile, "The parameter 'tile' must not be null");
+        final int count = (height + tileHeight - 1) / tileHeight;
+        if (count <= 1) {
+            return tile.compute(y, height);
+        }
+        final double[] errors = new double[count];
+        pool.invoke(new Task(tile, errors, y, height, tileHeight, 0, count));
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += errors[i];
+        }
+        return sum;
+    }
+}
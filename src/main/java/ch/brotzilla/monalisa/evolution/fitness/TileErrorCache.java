@@ -0,0 +1,55 @@
+package ch.brotzilla.monalisa.evolution.fitness;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+
+// the error sums per tile of a single genome, shared by all workers which use the genome as parent
+public class TileErrorCache {
+
+    private final Genome genome;
+    private final int tileSize, tilesX, tilesY;
+    private final double[] errors;
+    private final double fitness;
+
+    public TileErrorCache(Genome genome, int tileSize, int tilesX, int tilesY, double[] errors, double fitness) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        Preconditions.checkArgument(tileSize > 0, "The parameter 'tileSize' has to be greater than zero");
+        Preconditions.checkArgument(tilesX > 0, "The parameter 'tilesX' has to be greater than zero");
+        Preconditions.checkArgument(tilesY > 0, "The parameter 'tilesY' has to be greater than zero");
+        Preconditions.checkNotNull(errors, "The parameter 'errors' must not be null");
+        Preconditions.checkArgument(errors.length == tilesX * tilesY, "The length of the parameter 'errors' has to be equal to tilesX * tilesY");
+        this.genome = genome;
+        this.tileSize = tileSize;
+        this.tilesX = tilesX;
+        this.tilesY = tilesY;
+        this.errors = errors;
+        this.fitness = fitness;
+    }
+
+    public Genome getGenome() {
+        return genome;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    public double getFitness() {
+        return fitness;
+    }
+
+    // copies the cached errors, the cache itself must never be modified
+    public void copyErrors(double[] target) {
+        Preconditions.checkNotNull(target, "The parameter 'target' must not be null");
+        System.arraycopy(errors, 0, target, 0, errors.length);
+    }
+}
@@ -72,8 +72,7 @@ public class Gene {
         System.arraycopy(x, 0, this.x, 0, x.length);
         this.y = new int[y.length];
         System.arraycopy(y, 0, this.y, 0, y.length);
-        final Color tmp = new Color(color, true);
-        this.color = new int[] { tmp.getAlpha(), tmp.getRed(), tmp.getGreen(), tmp.getBlue() };
+        this.color = new int[] { (color >>> 24) & 0xFF, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF };
     }
 
     public Gene(Gene coords, int color) {
@@ -17,6 +17,9 @@ public class Genome {
     public double fitness;
     public int numberOfMutations, numberOfImprovements;
     public boolean overrideFitness;
+    
+    // set as soon as other threads might keep a reference to this genome, shared genomes are never recycled
+    private transient volatile boolean shared;
 
     public Genome(Gene[] genes, boolean copy) {
         Preconditions.checkNotNull(genes, "The parameter 'genes' must not be null");
@@ -35,6 +38,14 @@ public class Genome {
         this(Preconditions.checkNotNull(source, "The parameter 'source' must not be null").genes, true);
     }
     
+    public boolean isShared() {
+        return shared;
+    }
+    
+    public void markShared() {
+        shared = true;
+    }
+    
     public void renderGenes(Graphics2D graphics) {
         Preconditions.checkNotNull(graphics, "The parameter 'graphics' must not be null");
         for (final Gene gene : genes) {
@@ -101,8 +112,10 @@ public class Genome {
         return (new Gson()).fromJson(json, Genome.class);
     }
     
-    public static Genome deserialize(DataInputStream in) throws IOException {
+    // genomes received from untrusted sources are limited to the specified number of genes
+    public static Genome deserialize(DataInputStream in, int maxGenes) throws IOException {
         Preconditions.checkNotNull(in, "The parameter 'in' must not be null");
+        Preconditions.checkArgument(maxGenes > 0, "The parameter 'maxGenes' has to be greater than zero");
         final byte version = in.readByte();
         Preconditions.checkState(version == 0, "Unable to deserialize genome, version not supported");
         final double fitness = in.readDouble();
@@ -110,6 +123,9 @@ public class Genome {
         final int numberOfMutations = in.readInt();
         final int length = in.readInt();
         Preconditions.checkState(length > 0, "Unable to deserialize genome, too few genes");
+        if (length > maxGenes) {
+            throw new IOException("Unable to deserialize genome, too many genes (" + length + ")");
+        }
         final Gene[] genes = new Gene[length];
         for (int i = 0; i < length; i++) {
             genes[i] = Gene.deserialize(in);
@@ -121,6 +137,10 @@ public class Genome {
         return result;
     }
     
+    public static Genome deserialize(DataInputStream in) throws IOException {
+        return deserialize(in, Integer.MAX_VALUE);
+    }
+    
     public static void serialize(Genome genome, DataOutputStream out) throws IOException {
         Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
         Preconditions.checkNotNull(out, "The parameter 'out' must not be null");
@@ -0,0 +1,71 @@
+package ch.brotzilla.monalisa.evolution.genes;
+
+import java.util.ArrayDeque;
+
+import com.google.common.base.Preconditions;
+
+public class GenomePool {
+
+    public static final int DefaultCapacity = 32;
+
+    private static final ThreadLocal<GenomePool> pools = new ThreadLocal<GenomePool>() {
+        @Override
+        protected GenomePool initialValue() {
+            return new GenomePool(DefaultCapacity);
+        }
+    };
+
+    private final int capacity;
+    private final ArrayDeque<Genome> genomes;
+
+    public GenomePool(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "The parameter 'capacity' has to be greater than zero");
+        this.capacity = capacity;
+        this.genomes = new ArrayDeque<Genome>(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return genomes.size();
+    }
+
+    // returns a genome which shares all genes with the source genome, the gene array of a recycled genome is reused if possible
+    public Genome copy(Genome source) {
+        Preconditions.checkNotNull(source, "The parameter 'source' must not be null");
+        final int length = source.genes.length;
+        Genome result = genomes.pollFirst();
+        while (result != null && result.genes.length != length) {
+            // the number of genes changes rarely, so genomes of a different length are simply dropped
+            result = genomes.pollFirst();
+        }
+        if (result == null) {
+            return new Genome(source);
+        }
+        System.arraycopy(source.genes, 0, result.genes, 0, length);
+        result.fitness = 0;
+        result.numberOfMutations = 0;
+        result.numberOfImprovements = 0;
+        result.overrideFitness = false;
+        return result;
+    }
+
+    // the caller must not use the genome after recycling it, shared genomes are ignored
+    public void recycle(Genome genome) {
+        if (genome == null || genome.isShared() || genomes.size() >= capacity) {
+            return;
+        }
+        genomes.addFirst(genome);
+    }
+
+    public void clear() {
+        genomes.clear();
+    }
+
+    // pools are not thread safe, each thread uses its own one
+    public static GenomePool forCurrentThread() {
+        return pools.get();
+    }
+}
@@ -0,0 +1,191 @@
+package ch.brotzilla.monalisa.evolution.genes;
+
+import com.google.common.base.Preconditions;
+
+public class PackedGenome {
+
+    // the points of polygon i are x[offsets[i] .. offsets[i] + lengths[i]) and y[offsets[i] .. offsets[i] + lengths[i])
+    public final int[] x, y;
+    public final int[] offsets, lengths;
+
+    // one argb value per polygon
+    public final int[] colors;
+
+    public double fitness;
+    public int numberOfMutations, numberOfImprovements;
+    public boolean overrideFitness;
+
+    // a single saved polygon, see savePolygon()
+    private int[] savedX = new int[0], savedY = new int[0];
+    private int savedIndex = -1, savedColor;
+
+    private PackedGenome(int[] x, int[] y, int[] offsets, int[] lengths, int[] colors) {
+        this.x = x;
+        this.y = y;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.colors = colors;
+    }
+
+    public PackedGenome(Genome source) {
+        Preconditions.checkNotNull(source, "The parameter 'source' must not be null");
+        final Gene[] genes = source.genes;
+        final int numberOfPolygons = genes.length;
+        this.offsets = new int[numberOfPolygons];
+        this.lengths = new int[numberOfPolygons];
+        this.colors = new int[numberOfPolygons];
+        int numberOfPoints = 0;
+        for (int i = 0; i < numberOfPolygons; i++) {
+            offsets[i] = numberOfPoints;
+            lengths[i] = genes[i].x.length;
+            numberOfPoints += lengths[i];
+        }
+        this.x = new int[numberOfPoints];
+        this.y = new int[numberOfPoints];
+        for (int i = 0; i < numberOfPolygons; i++) {
+            final Gene gene = genes[i];
+            final int[] color = gene.color;
+            System.arraycopy(gene.x, 0, x, offsets[i], lengths[i]);
+            System.arraycopy(gene.y, 0, y, offsets[i], lengths[i]);
+            colors[i] = (color[0] << 24) | (color[1] << 16) | (color[2] << 8) | color[3];
+        }
+        this.fitness = source.fitness;
+        this.numberOfMutations = source.numberOfMutations;
+        this.numberOfImprovements = source.numberOfImprovements;
+        this.overrideFitness = source.overrideFitness;
+    }
+
+    public PackedGenome(PackedGenome source) {
+        this(Preconditions.checkNotNull(source, "The parameter 'source' must not be null").x.clone(), source.y.clone(), source.offsets.clone(), source.lengths.clone(), source.colors.clone());
+        this.fitness = source.fitness;
+        this.numberOfMutations = source.numberOfMutations;
+        this.numberOfImprovements = source.numberOfImprovements;
+        this.overrideFitness = source.overrideFitness;
+    }
+
+    public int countPolygons() {
+        return offsets.length;
+    }
+
+    public int countPoints() {
+        return x.length;
+    }
+
+    public int getColor(int index) {
+        return colors[index];
+    }
+
+    public int getAlpha(int index) {
+        return colors[index] >>> 24;
+    }
+
+    // genomes with the same layout can be copied into each other without allocating anything
+    public boolean hasSameLayout(PackedGenome other) {
+        if (other == null || other.x.length != x.length || other.offsets.length != offsets.length) {
+            return false;
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            if (other.lengths[i] != lengths[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void copyFrom(PackedGenome source) {
+        Preconditions.checkNotNull(source, "The parameter 'source' must not be null");
+        Preconditions.checkArgument(hasSameLayout(source), "The parameter 'source' must have the same layout as this genome");
+        System.arraycopy(source.x, 0, x, 0, x.length);
+        System.arraycopy(source.y, 0, y, 0, y.length);
+        System.arraycopy(source.colors, 0, colors, 0, colors.length);
+        fitness = source.fitness;
+        numberOfMutations = source.numberOfMutations;
+        numberOfImprovements = source.numberOfImprovements;
+        overrideFitness = source.overrideFitness;
+    }
+
+    // copies a single polygon of a genome with the same layout, e.g. to undo a rejected mutation
+    public void copyPolygonFrom(PackedGenome source, int index) {
+        Preconditions.checkNotNull(source, "The parameter 'source' must not be null");
+        Preconditions.checkArgument(source.offsets[index] == offsets[index] && source.lengths[index] == lengths[index], "The parameter 'source' must have the same layout as this genome");
+        System.arraycopy(source.x, offsets[index], x, offsets[index], lengths[index]);
+        System.arraycopy(source.y, offsets[index], y, offsets[index], lengths[index]);
+        colors[index] = source.colors[index];
+    }
+
+    // keeps a copy of one polygon, so a rejected mutation can be undone without copying the whole genome
+    public void savePolygon(int index) {
+        final int length = lengths[index];
+        if (savedX.length < length) {
+            savedX = new int[length];
+            savedY = new int[length];
+        }
+        System.arraycopy(x, offsets[index], savedX, 0, length);
+        System.arraycopy(y, offsets[index], savedY, 0, length);
+        savedColor = colors[index];
+        savedIndex = index;
+    }
+
+    public void restorePolygon() {
+        Preconditions.checkState(savedIndex >= 0, "No polygon has been saved");
+        System.arraycopy(savedX, 0, x, offsets[savedIndex], lengths[savedIndex]);
+        System.arraycopy(savedY, 0, y, offsets[savedIndex], lengths[savedIndex]);
+        colors[savedIndex] = savedColor;
+        savedIndex = -1;
+    }
+
+    // writes the gene into this genome if it has as many points as the polygon it replaces, otherwise a new genome is returned
+    public PackedGenome replaceGene(int index, Gene gene) {
+        Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
+        final int length = gene.x.length;
+        final int[] color = gene.color;
+        if (length == lengths[index]) {
+            System.arraycopy(gene.x, 0, x, offsets[index], length);
+            System.arraycopy(gene.y, 0, y, offsets[index], length);
+            colors[index] = (color[0] << 24) | (color[1] << 16) | (color[2] << 8) | color[3];
+            return this;
+        }
+        final int delta = length - lengths[index], tail = offsets[index] + lengths[index];
+        final PackedGenome result = new PackedGenome(new int[x.length + delta], new int[y.length + delta], offsets.clone(), lengths.clone(), colors.clone());
+        System.arraycopy(x, 0, result.x, 0, offsets[index]);
+        System.arraycopy(y, 0, result.y, 0, offsets[index]);
+        System.arraycopy(gene.x, 0, result.x, offsets[index], length);
+        System.arraycopy(gene.y, 0, result.y, offsets[index], length);
+        System.arraycopy(x, tail, result.x, tail + delta, x.length - tail);
+        System.arraycopy(y, tail, result.y, tail + delta, y.length - tail);
+        result.lengths[index] = length;
+        for (int i = index + 1; i < offsets.length; i++) {
+            result.offsets[i] += delta;
+        }
+        result.colors[index] = (color[0] << 24) | (color[1] << 16) | (color[2] << 8) | color[3];
+        result.fitness = fitness;
+        result.numberOfMutations = numberOfMutations;
+        result.numberOfImprovements = numberOfImprovements;
+        result.overrideFitness = overrideFitness;
+        return result;
+    }
+
+    public Gene getGene(int index) {
+        final int offset = offsets[index], length = lengths[index];
+        final int[] gx = new int[length], gy = new int[length];
+        System.arraycopy(x, offset, gx, 0, length);
+        System.arraycopy(y, offset, gy, 0, length);
+        final int color = colors[index];
+        return new Gene(gx, gy, new int[] { color >>> 24, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF }, false);
+    }
+
+    public Genome toGenome() {
+        final int numberOfPolygons = offsets.length;
+        final Gene[] genes = new Gene[numberOfPolygons];
+        for (int i = 0; i < numberOfPolygons; i++) {
+            genes[i] = getGene(i);
+        }
+        final Genome result = new Genome(genes, false);
+        result.fitness = fitness;
+        result.numberOfMutations = numberOfMutations;
+        result.numberOfImprovements = numberOfImprovements;
+        result.overrideFitness = overrideFitness;
+        return result;
+    }
+
+}
@@ -8,4 +8,7 @@ public interface EvolutionStrategy {
     
     Genome apply(MersenneTwister rng, VectorizerConfig config, Genome input, boolean isImprovement);
     
+    // called when the latest genome has been replaced without passing apply(), e.g. by a migrant
+    void adopt(Genome genome);
+    
 }
@@ -0,0 +1,9 @@
+package ch.brotzilla.monalisa.evolution.intf;
+
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+
+public interface EvolutionStrategyFactory {
+
+    EvolutionStrategy createEvolutionStrategy(VectorizerConfig config);
+    
+}
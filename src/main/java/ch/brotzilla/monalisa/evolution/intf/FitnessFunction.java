@@ -1,6 +1,8 @@
 package ch.brotzilla.monalisa.evolution.intf;
 
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.rendering.Renderer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
 public interface FitnessFunction {
@@ -9,7 +11,18 @@ public interface FitnessFunction {
     
     double compute(VectorizerConfig config, Genome genome);
     
+    // renders the genome with the specified renderer and computes its fitness, the renderer may be null if needsRenderer() returns false
+    double compute(VectorizerConfig config, Genome genome, Renderer renderer);
+    
+    // same as above for packed genomes, which is identical to computing the fitness of the converted genome
+    double compute(VectorizerConfig config, PackedGenome genome, Renderer renderer);
+    
+    // false if the fitness function rasterizes the genome itself
+    boolean needsRenderer();
+    
     boolean isImprovement(Genome latest, Genome mutated);
     
+    boolean isImprovement(double latestFitness, double mutatedFitness);
+    
     String format(double fitness);
 }
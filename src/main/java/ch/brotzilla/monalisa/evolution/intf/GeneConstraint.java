@@ -1,10 +1,14 @@
 package ch.brotzilla.monalisa.evolution.intf;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 
 public interface GeneConstraint {
     
     boolean satisfied(VectorizerConfig config, Gene gene);
     
+    // checks polygon index of a packed genome without converting it into a gene
+    boolean satisfied(VectorizerConfig config, PackedGenome genome, int index);
+    
 }
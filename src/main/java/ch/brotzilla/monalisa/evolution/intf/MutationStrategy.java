@@ -1,6 +1,7 @@
 package ch.brotzilla.monalisa.evolution.intf;
 
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
@@ -8,4 +9,7 @@ public interface MutationStrategy {
 
     Genome mutate(MersenneTwister rng, VectorizerConfig config, Genome input);
     
+    // the input is never changed, the scratch genome is overwritten with the mutated copy if it has the same layout as the input, it may be null
+    PackedGenome mutate(MersenneTwister rng, VectorizerConfig config, PackedGenome input, PackedGenome scratch);
+    
 }
@@ -0,0 +1,13 @@
+package ch.brotzilla.monalisa.evolution.intf;
+
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.util.MersenneTwister;
+
+public interface PackedGeneMutation extends Mutation {
+
+    // mutates polygon index of the passed genome in place and returns the passed genome
+    // returns a new genome if the number of points of the polygon has changed or null if the polygon has not been changed
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index);
+    
+}
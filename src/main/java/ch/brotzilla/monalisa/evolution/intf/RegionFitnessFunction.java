@@ -0,0 +1,12 @@
+package ch.brotzilla.monalisa.evolution.intf;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+
+public interface RegionFitnessFunction extends FitnessFunction {
+
+    // computes the error inside the specified region only, the sum over all regions of an image has to equal compute()
+    // the input data may be null if needsRenderer() returns false
+    double compute(VectorizerConfig config, Genome genome, int[] inputData, int x, int y, int width, int height);
+    
+}
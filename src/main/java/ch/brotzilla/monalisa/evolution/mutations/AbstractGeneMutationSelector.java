@@ -6,9 +6,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.intf.Builder;
 
-public abstract class AbstractGeneMutationSelector extends BasicMutation implements GeneMutation {
+public abstract class AbstractGeneMutationSelector extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     protected final GeneMutation[] mutations;
     protected final int length;
@@ -2,7 +2,13 @@ package ch.brotzilla.monalisa.evolution.mutations;
 
 import com.google.common.base.Preconditions;
 
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
 import ch.brotzilla.monalisa.evolution.intf.Mutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.util.MersenneTwister;
 
 public abstract class BasicMutation implements Mutation {
 
@@ -31,4 +37,18 @@ public abstract class BasicMutation implements Mutation {
         return description;
     }
     
+    // mutations which cannot work on packed genomes mutate a copy of the polygon, which is written back afterwards
+    public static PackedGenome applyPacked(GeneMutation mutation, MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(mutation, "The parameter 'mutation' must not be null");
+        if (mutation instanceof PackedGeneMutation) {
+            return ((PackedGeneMutation) mutation).apply(rng, config, genome, index);
+        }
+        final Gene gene = genome.getGene(index);
+        final Gene mutated = mutation.apply(rng, config, gene);
+        if (mutated == null || mutated == gene) {
+            return null;
+        }
+        return genome.replaceGene(index, mutated);
+    }
+    
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneAddPointMutation extends BasicMutation implements GeneMutation {
+public class GeneAddPointMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneAddPointMutation() {
         super("add-point", "Add Point", "Adds a random point to the passed gene");
@@ -37,5 +39,11 @@ public class GeneAddPointMutation extends BasicMutation implements GeneMutation
         }
         return result;
     }
+
+    // the polygon grows, so the genome has to be rebuilt anyway
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        return genome.replaceGene(index, apply(rng, config, genome.getGene(index)));
+    }
     
 }
\ No newline at end of file
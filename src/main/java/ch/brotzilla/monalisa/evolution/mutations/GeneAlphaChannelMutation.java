@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneAlphaChannelMutation extends BasicMutation implements GeneMutation {
+public class GeneAlphaChannelMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneAlphaChannelMutation() {
         super("alpha-channel", "Alpha Channel", "Mutates the alpha channel of the passed gene");
@@ -19,5 +21,13 @@ public class GeneAlphaChannelMutation extends BasicMutation implements GeneMutat
         if (value > 255) value = 255;
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        int value = genome.getAlpha(index) + config.getMutationConfig().getColorChannelMutationRange().select(rng);
+        if (value < 0) value = 0;
+        if (value > 255) value = 255;
+        return genome;
+    }
     
 }
\ No newline at end of file
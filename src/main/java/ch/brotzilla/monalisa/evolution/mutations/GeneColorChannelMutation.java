@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneColorChannelMutation extends BasicMutation implements GeneMutation {
+public class GeneColorChannelMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneColorChannelMutation() {
         super("color-channel", "Color Channel", "Mutates a randomly chosen color component of the passed gene");
@@ -20,5 +22,14 @@ public class GeneColorChannelMutation extends BasicMutation implements GeneMutat
         if (value > 255) value = 255;
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        final int channel = rng.nextInt(3) + 1;
+        int value = ((genome.colors[index] >> ((3 - channel) * 8)) & 0xFF) + config.getMutationConfig().getColorChannelMutationRange().select(rng);
+        if (value < 0) value = 0;
+        if (value > 255) value = 255;
+        return genome;
+    }
     
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneColorDarkerMutation extends BasicMutation implements GeneMutation {
+public class GeneColorDarkerMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneColorDarkerMutation() {
         super("darker-color", "Darker Color", "Darkens the color of the passed gene");
@@ -23,5 +25,17 @@ public class GeneColorDarkerMutation extends BasicMutation implements GeneMutati
         if (b > 255) result.color[3] = 255; else result.color[3] = Math.round(b);
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        final int color = genome.colors[index];
+        final float factor = 0.5f + (0.49f * rng.nextFloat());
+        float r = (((color >> 16) & 0xFF) + 1) * factor;
+        float g = (((color >> 8) & 0xFF) + 1) * factor;
+        float b = ((color & 0xFF) + 1) * factor;
+        final int nr = r > 255 ? 255 : Math.round(r), ng = g > 255 ? 255 : Math.round(g), nb = b > 255 ? 255 : Math.round(b);
+        genome.colors[index] = (color & 0xFF000000) | (nr << 16) | (ng << 8) | nb;
+        return genome;
+    }
     
 }
\ No newline at end of file
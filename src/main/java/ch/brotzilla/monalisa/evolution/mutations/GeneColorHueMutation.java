@@ -3,11 +3,13 @@ package ch.brotzilla.monalisa.evolution.mutations;
 import java.awt.Color;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneColorHueMutation extends BasicMutation implements GeneMutation {
+public class GeneColorHueMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneColorHueMutation() {
         super("color-hue-change", "Color Hue Change", "Changes the hue the color of the passed gene");
@@ -15,10 +17,27 @@ public class GeneColorHueMutation extends BasicMutation implements GeneMutation
 
     @Override
     public Gene apply(MersenneTwister rng, VectorizerConfig config, Gene input) {
-        final float[] hsb = Color.RGBtoHSB(input.color[1], input.color[2], input.color[3], null);
-        final Color rgb = Color.getHSBColor(rng.nextFloat(), hsb[1], hsb[2]);
-        final Gene result = new Gene(input, new Color(rgb.getRed(), rgb.getGreen(), rgb.getBlue(), input.color[0]));
+        // same as Color.RGBtoHSB() and Color.getHSBColor() but without allocating temporary objects
+        final int[] color = input.color;
+        final int r = color[1], g = color[2], b = color[3];
+        final int max = Math.max(r, Math.max(g, b)), min = Math.min(r, Math.min(g, b));
+        final float saturation = max != 0 ? ((float) (max - min)) / ((float) max) : 0;
+        final float brightness = ((float) max) / 255.0f;
+        final int rgb = Color.HSBtoRGB(rng.nextFloat(), saturation, brightness);
+        final Gene result = new Gene(input, (color[0] << 24) | (rgb & 0x00FFFFFF));
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        final int color = genome.colors[index];
+        final int r = (color >> 16) & 0xFF, g = (color >> 8) & 0xFF, b = color & 0xFF;
+        final int max = Math.max(r, Math.max(g, b)), min = Math.min(r, Math.min(g, b));
+        final float saturation = max != 0 ? ((float) (max - min)) / ((float) max) : 0;
+        final float brightness = ((float) max) / 255.0f;
+        final int rgb = Color.HSBtoRGB(rng.nextFloat(), saturation, brightness);
+        genome.colors[index] = (color & 0xFF000000) | (rgb & 0x00FFFFFF);
+        return genome;
+    }
     
-}
\ No newline at end of file
+}
@@ -1,13 +1,15 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.utils.BoundingBox;
 import ch.brotzilla.monalisa.utils.Utils;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneDilateMutation extends BasicMutation implements GeneMutation {
+public class GeneDilateMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneDilateMutation() {
         super("dilate", "Dilate", "Dilates the passed gene over a random center point and by a random dilation factor");
@@ -34,4 +36,20 @@ public class GeneDilateMutation extends BasicMutation implements GeneMutation {
         return new Gene(nx, ny, input.color);
     }
 
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        final int offset = genome.offsets[index], len = genome.lengths[index];
+        final int[] gx = genome.x, gy = genome.y;
+        final BoundingBox box = Utils.computeBoundingBox(gx, gy, offset, len, 2.0d, 2.0d);
+        final int cx = box.getXMin() + rng.nextInt(box.getWidth());
+        final int cy = box.getYMin() + rng.nextInt(box.getHeight());
+        final double sf = 0.75d + rng.nextDouble() * 0.5d;
+        for (int i = offset; i < offset + len; i++) {
+            final int vx = gx[i] - cx, vy = gy[i] - cy;
+            gx[i] = cx + (int) Math.round(vx * sf);
+            gy[i] = cy + (int) Math.round(vy * sf);
+        }
+        return genome;
+    }
+
 }
@@ -3,12 +3,14 @@ package ch.brotzilla.monalisa.evolution.mutations;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.utils.BoundingBox;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneMoveMutation extends BasicMutation implements GeneMutation {
+public class GeneMoveMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneMoveMutation() {
         super("move-gene", "Move Gene", "Moves the passed gene to a random point");
@@ -31,5 +33,32 @@ public class GeneMoveMutation extends BasicMutation implements GeneMutation {
         }
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int from = genome.offsets[index], to = from + genome.lengths[index];
+        final int[] x = genome.x, y = genome.y;
+        int xmin = Integer.MAX_VALUE, xmax = Integer.MIN_VALUE;
+        int ymin = Integer.MAX_VALUE, ymax = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            if (x[i] < xmin) xmin = x[i];
+            if (x[i] > xmax) xmax = x[i];
+            if (y[i] < ymin) ymin = y[i];
+            if (y[i] > ymax) ymax = y[i];
+        }
+        final int width = xmax - xmin, height = ymax - ymin;
+        if (config.getWidth() <= width || config.getHeight() <= height) {
+            return null;
+        }
+        final int dx = rng.nextInt(config.getWidth() - width) - xmin;
+        final int dy = rng.nextInt(config.getHeight() - height) - ymin;
+        for (int i = from; i < to; i++) {
+            x[i] += dx;
+            y[i] += dy;
+        }
+        return genome;
+    }
     
-}
\ No newline at end of file
+}
@@ -3,11 +3,13 @@ package ch.brotzilla.monalisa.evolution.mutations;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GenePointMutation extends BasicMutation implements GeneMutation {
+public class GenePointMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GenePointMutation() {
         super("move-point", "Move Point", "Mutates a randomly chosen point of the passed gene");
@@ -23,5 +25,15 @@ public class GenePointMutation extends BasicMutation implements GeneMutation {
         result.y[coord] += config.getMutationConfig().getPointMutationRange().select(rng);
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int coord = genome.offsets[index] + rng.nextInt(genome.lengths[index]);
+        genome.x[coord] += config.getMutationConfig().getPointMutationRange().select(rng);
+        genome.y[coord] += config.getMutationConfig().getPointMutationRange().select(rng);
+        return genome;
+    }
     
-}
\ No newline at end of file
+}
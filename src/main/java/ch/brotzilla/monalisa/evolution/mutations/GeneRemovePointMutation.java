@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneRemovePointMutation extends BasicMutation implements GeneMutation {
+public class GeneRemovePointMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneRemovePointMutation() {
         super("remove-point", "Remove Point", "Removes a randomly chosen point of the passed gene");
@@ -33,5 +35,14 @@ public class GeneRemovePointMutation extends BasicMutation implements GeneMutati
         }
         return input;
     }
+
+    // the polygon shrinks, so the genome has to be rebuilt anyway
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        if (genome.lengths[index] > 3) {
+            return genome.replaceGene(index, apply(rng, config, genome.getGene(index)));
+        }
+        return null;
+    }
     
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
+import ch.brotzilla.monalisa.evolution.intf.PackedGeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
-public class GeneSwapPointsMutation extends BasicMutation implements GeneMutation {
+public class GeneSwapPointsMutation extends BasicMutation implements GeneMutation, PackedGeneMutation {
 
     public GeneSwapPointsMutation() {
         super("swap-points", "Swap Points", "Swaps two randomly chosen points of the passed gene");
@@ -28,5 +30,22 @@ public class GeneSwapPointsMutation extends BasicMutation implements GeneMutatio
         result.y[index2] = tmpy;
         return result;
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        final int offset = genome.offsets[index], len = genome.lengths[index];
+        final int index1 = offset + rng.nextInt(len);
+        int index2 = offset + rng.nextInt(len);
+        while (index1 == index2) {
+            index2 = offset + rng.nextInt(len);
+        }
+        int tmpx = genome.x[index1];
+        int tmpy = genome.y[index1];
+        genome.x[index1] = genome.x[index2];
+        genome.y[index1] = genome.y[index2];
+        genome.x[index2] = tmpx;
+        genome.y[index2] = tmpy;
+        return genome;
+    }
     
-}
\ No newline at end of file
+}
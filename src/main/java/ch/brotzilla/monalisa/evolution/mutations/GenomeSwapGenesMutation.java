@@ -2,6 +2,7 @@ package ch.brotzilla.monalisa.evolution.mutations;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.GenomePool;
 import ch.brotzilla.monalisa.evolution.intf.GenomeMutation;
 import ch.brotzilla.monalisa.evolution.intf.IndexSelector;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
@@ -28,12 +29,12 @@ public class GenomeSwapGenesMutation extends BasicMutation implements GenomeMuta
         if (length > 1) {
             final int index1 = config.getMutationConfig().getGeneIndexSelector().select(rng, length);
             final int index2 = selectSecondIndex(rng, config.getMutationConfig().getGeneIndexSelector(), index1, length);
-            final Gene[] newGenes = new Gene[inputGenes.length];
-            System.arraycopy(inputGenes, 0, newGenes, 0, inputGenes.length);
+            final Genome result = GenomePool.forCurrentThread().copy(input);
+            final Gene[] newGenes = result.genes;
             final Gene tmp = newGenes[index1];
             newGenes[index1] = newGenes[index2];
             newGenes[index2] = tmp;
-            return new Genome(newGenes, false);
+            return result;
         }
         return input;
     }
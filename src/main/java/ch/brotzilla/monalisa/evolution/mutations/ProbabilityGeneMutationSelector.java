@@ -6,6 +6,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
@@ -19,22 +20,34 @@ public class ProbabilityGeneMutationSelector extends AbstractGeneMutationSelecto
         this.probabilities = builder.buildProbabilities();
     }
 
-    @Override
-    public Gene apply(MersenneTwister rng, VectorizerConfig config, Gene input) {
-        if (length == 1) {
-            return mutations[0].apply(rng, config, input);
-        }
+    protected GeneMutation select(MersenneTwister rng) {
         Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
         final double selector = rng.nextDouble();
         double lower = 0.0d;
         for (int i = 0; i < length; i++) {
             final double upper = lower + probabilities[i];
             if (selector > lower && selector <= upper) {
-                return mutations[i].apply(rng, config, input);
+                return mutations[i];
             }
             lower = upper;
         }
-        return mutations[length - 1].apply(rng, config, input);
+        return mutations[length - 1];
+    }
+
+    @Override
+    public Gene apply(MersenneTwister rng, VectorizerConfig config, Gene input) {
+        if (length == 1) {
+            return mutations[0].apply(rng, config, input);
+        }
+        return select(rng).apply(rng, config, input);
+    }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        if (length == 1) {
+            return applyPacked(mutations[0], rng, config, genome, index);
+        }
+        return applyPacked(select(rng), rng, config, genome, index);
     }
     
     public static class Builder extends AbstractBuilder {
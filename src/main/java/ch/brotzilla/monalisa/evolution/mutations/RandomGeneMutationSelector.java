@@ -3,6 +3,7 @@ package ch.brotzilla.monalisa.evolution.mutations;
 import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
@@ -21,6 +22,15 @@ public class RandomGeneMutationSelector extends AbstractGeneMutationSelector {
         Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
         return mutations[rng.nextInt(length)].apply(rng, config, input);
     }
+
+    @Override
+    public PackedGenome apply(MersenneTwister rng, VectorizerConfig config, PackedGenome genome, int index) {
+        if (length == 1) {
+            return applyPacked(mutations[0], rng, config, genome, index);
+        }
+        Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
+        return applyPacked(mutations[rng.nextInt(length)], rng, config, genome, index);
+    }
     
     public static class Builder extends AbstractBuilder {
         
@@ -4,9 +4,12 @@ import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.GenomePool;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.GeneMutation;
 import ch.brotzilla.monalisa.evolution.intf.GenomeMutation;
 import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
+import ch.brotzilla.monalisa.evolution.mutations.BasicMutation;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
 import ch.brotzilla.util.MersenneTwister;
 
@@ -22,7 +25,8 @@ public class BasicMutationStrategy implements MutationStrategy {
         return geneMutation.apply(rng, config, input);
     }
     
-    protected Genome mutateGene(MersenneTwister rng, VectorizerConfig config, Genome input) {
+    // returns null if no gene has been mutated, the input genome is only changed if inPlace is set
+    protected Genome mutateGene(MersenneTwister rng, VectorizerConfig config, Genome input, boolean inPlace) {
         Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
         Preconditions.checkNotNull(input, "The parameter 'input' must not be null");
@@ -31,21 +35,52 @@ public class BasicMutationStrategy implements MutationStrategy {
         final Gene selected = genes[index];
         final Gene mutated  = mutateGene(rng, config, selected);
         if (mutated == null || mutated == selected || !config.getConstraints().satisfied(config, mutated)) {
-            return input;
+            return null;
         }
-        final Genome result = new Genome(input);
+        final Genome result = inPlace ? input : GenomePool.forCurrentThread().copy(input);
         result.genes[index] = mutated; 
         return result;
     }
     
+    // returns null if the genome has not been mutated
     protected Genome mutateGenome(MersenneTwister rng, VectorizerConfig config, final Genome input) {
         Genome mutated = genomeMutation.apply(rng, config, input);
-        if (mutated == null || mutated == input || !config.getConstraints().satisfied(config, mutated)) {
-            return input;
+        if (mutated == null || mutated == input) {
+            return null;
+        }
+        if (!config.getConstraints().satisfied(config, mutated)) {
+            GenomePool.forCurrentThread().recycle(mutated);
+            return null;
+        }
+        return mutated;
+    }
+
+    // mutates the genome in place, returns a new genome if the layout has changed or null if no gene has been mutated
+    protected PackedGenome mutateGene(MersenneTwister rng, VectorizerConfig config, PackedGenome genome) {
+        final int index = config.getMutationConfig().getGeneIndexSelector().select(rng, genome.countPolygons());
+        genome.savePolygon(index);
+        final PackedGenome mutated = BasicMutation.applyPacked(geneMutation, rng, config, genome, index);
+        if (mutated == null) {
+            return null;
+        }
+        if (!config.getConstraints().satisfied(config, mutated, index)) {
+            if (mutated == genome) {
+                genome.restorePolygon();
+            }
+            return null;
         }
         return mutated;
     }
 
+    // genome mutations change the layout anyway, so they work on the converted genome
+    protected PackedGenome mutateGenome(MersenneTwister rng, VectorizerConfig config, PackedGenome genome) {
+        final Genome mutated = mutateGenome(rng, config, genome.toGenome());
+        if (mutated == null) {
+            return null;
+        }
+        return new PackedGenome(mutated);
+    }
+
     public BasicMutationStrategy(GeneMutation geneMutation, GenomeMutation genomeMutation) {
         Preconditions.checkNotNull(geneMutation, "The parameter 'geneMutation' must not be null");
         Preconditions.checkNotNull(genomeMutation, "The parameter 'genomeMutation' must not be null");
@@ -70,10 +105,46 @@ public class BasicMutationStrategy implements MutationStrategy {
         final int min = mc.getMinMutationsPerGenome(), max = mc.getMaxMutationsPerGenome();
         final int count = (min == max) ? min : min + rng.nextInt(max - min + 1);
         Preconditions.checkState(count > 0, "Number of mutations must be greater than zero");
+        // only the first mutation copies the input genome, all further mutations are applied to the copy in place
         Genome result = input;
         for (int i = 0; i < count; i++) {
-            Genome mutated = result;
-            while (mutated == result) {
+            final boolean owned = result != input;
+            Genome mutated = null;
+            while (mutated == null) {
+                if (rng.nextBoolean(mc.getGeneVersusGenomeMutationProbability())) {
+                    mutated = mutateGene(rng, config, result, owned);
+                } else {
+                    mutated = mutateGenome(rng, config, result);
+                    if (mutated != null && owned) {
+                        GenomePool.forCurrentThread().recycle(result);
+                    }
+                }
+            }
+            result = mutated;
+        }
+        return result;
+    }
+
+    @Override
+    public PackedGenome mutate(MersenneTwister rng, VectorizerConfig config, PackedGenome input, PackedGenome scratch) {
+        Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(input, "The parameter 'input' must not be null");
+        final MutationConfig mc = config.getMutationConfig();
+        final int min = mc.getMinMutationsPerGenome(), max = mc.getMaxMutationsPerGenome();
+        final int count = (min == max) ? min : min + rng.nextInt(max - min + 1);
+        Preconditions.checkState(count > 0, "Number of mutations must be greater than zero");
+        // all mutations are applied to a single copy of the input, only mutations which change the layout allocate a new genome
+        PackedGenome result;
+        if (scratch != null && scratch != input && scratch.hasSameLayout(input)) {
+            scratch.copyFrom(input);
+            result = scratch;
+        } else {
+            result = new PackedGenome(input);
+        }
+        for (int i = 0; i < count; i++) {
+            PackedGenome mutated = null;
+            while (mutated == null) {
                 if (rng.nextBoolean(mc.getGeneVersusGenomeMutationProbability())) {
                     mutated = mutateGene(rng, config, result);
                 } else {
@@ -82,6 +153,10 @@ public class BasicMutationStrategy implements MutationStrategy {
             }
             result = mutated;
         }
+        result.fitness = 0;
+        result.numberOfMutations = 0;
+        result.numberOfImprovements = 0;
+        result.overrideFitness = false;
         return result;
     }
     
@@ -0,0 +1,20 @@
+package ch.brotzilla.monalisa.evolution.strategies;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.util.MersenneTwister;
+
+// accepts every candidate unchanged, used by remote workers where the coordinator owns the evolution strategy
+public class PassThroughEvolutionStrategy implements EvolutionStrategy {
+
+    @Override
+    public Genome apply(MersenneTwister rng, VectorizerConfig config, Genome input, boolean isImprovement) {
+        return input;
+    }
+
+    @Override
+    public void adopt(Genome genome) {
+    }
+
+}
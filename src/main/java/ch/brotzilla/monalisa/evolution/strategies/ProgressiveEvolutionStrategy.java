@@ -7,6 +7,7 @@ import ch.brotzilla.monalisa.evolution.intf.AddPolygonStrategy;
 import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
 import ch.brotzilla.monalisa.rendering.Renderer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
 import ch.brotzilla.util.MersenneTwister;
 
 public class ProgressiveEvolutionStrategy implements EvolutionStrategy {
@@ -40,18 +41,30 @@ public class ProgressiveEvolutionStrategy implements EvolutionStrategy {
         if (result != input) {
             minPolygonsToAccept = result.countPolygons();
             result.overrideFitness = true;
-            if (renderer == null) {
+            if (renderer == null && config.getFitnessFunction().needsRenderer()) {
                 renderer = config.createRenderer();
             }
-            renderer.render(result);
-            if (renderer.getAutoUpdateBuffer()) {
-                result.fitness = config.getFitnessFunction().compute(config, result, renderer.getBuffer());
-            } else {
-                result.fitness = config.getFitnessFunction().compute(config, result, renderer.readData());
+            // strategies are applied under the improvement lock, which must not wait for a layered renderer to rebuild
+            // the layers shared by all renderers, so they are left to the workers and the outdated ones are used meanwhile
+            final VectorizerContext vc = config.getVectorizerContext();
+            final boolean suspended = vc.beginCompositeLayersUpdate();
+            try {
+                result.fitness = config.getFitnessFunction().compute(config, result, renderer);
+            } finally {
+                if (suspended) {
+                    vc.endCompositeLayersUpdate();
+                }
             }
         }
         
         return result;
     }
 
+    // the adopted genome may have fewer polygons than the previous lineage, its descendants have to be accepted nonetheless
+    @Override
+    public void adopt(Genome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        minPolygonsToAccept = genome.countPolygons();
+    }
+
 }
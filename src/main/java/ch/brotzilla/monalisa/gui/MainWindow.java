@@ -127,6 +127,7 @@ public class MainWindow extends JFrame {
         this.renderer = monalisa.getVectorizer().getConfig().createRenderer();
         if (currentGenome != null) {
             renderer.render(currentGenome);
+            renderer.updateImage();
         }
         
         this.currentImage = renderer.getImage();
@@ -186,6 +187,7 @@ public class MainWindow extends JFrame {
             lastRenderTime = time;
             statusDisplay.submit(config, genome);
             renderer.render(genome);
+            renderer.updateImage();
             currentImageDisplay.repaint();
         }
     }
@@ -17,6 +17,8 @@ public class Image {
     private final Graphics2D graphics;
     private final WritableRaster raster;
     
+    private Object scratch;
+    
     private void setRenderingHints() {
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
@@ -99,6 +101,21 @@ public class Image {
         raster.getDataElements(0, 0, width, height, buffer);
     }
     
+    public final void updateBuffer(int x, int y, int width, int height) {
+        Preconditions.checkArgument(x >= 0 && y >= 0 && width > 0 && height > 0 && x + width <= this.width && y + height <= this.height, "The specified region is out of bounds");
+        if (x == 0 && y == 0 && width == this.width && height == this.height) {
+            updateBuffer();
+            return;
+        }
+        if (scratch == null) {
+            scratch = type.createArray(this.width * this.height);
+        }
+        raster.getDataElements(x, y, width, height, scratch);
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(scratch, row * width, buffer, (y + row) * this.width + x, width);
+        }
+    }
+    
     @SuppressWarnings("unchecked")
     public final <T> T readData() {
         return (T) raster.getDataElements(0, 0, width, height, buffer);
@@ -6,6 +6,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -18,6 +19,23 @@ public class ImageData {
     private final ImageType type;
     private final int[] buffer;
     
+    private static final int HeaderSize = 16;
+    
+    private static void writeHeader(ImageData data, ByteBuffer out) {
+        out.putInt(data.getWidth());
+        out.putInt(data.getHeight());
+        out.putInt(data.getType().getBufferedImageType());
+        out.putInt(data.getLength());
+    }
+    
+    private static ImageType checkHeader(int width, int height, int rawtype, int length) {
+        final ImageType type = ImageType.fromBufferedImageType(rawtype);
+        Preconditions.checkNotNull(type, "Unable to deserialize image data due to unknown image type (" + rawtype + ")");
+        Preconditions.checkState(width > 0 && height > 0 && length == (long) width * height, "Unable to deserialize image data due to invalid header");
+        Preconditions.checkState(type == ImageType.ARGB || type == ImageType.ARGBPre || type == ImageType.Gray, "Unable to deserialize image data due to unknown image type: " + type);
+        return type;
+    }
+    
     public ImageData(int width, int height, ImageType type, int[] data, boolean copy) {
         Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
         Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
@@ -106,60 +124,96 @@ public class ImageData {
         return b.toString();
     }
     
-    public static void serialize(ImageData data, DataOutputStream out) throws IOException {
+    // the serialized layout: width, height, image type, length, then one int per pixel or one byte per pixel for gray images, all big endian
+    public static byte[] toBytes(ImageData data) {
         Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
-        Preconditions.checkNotNull(out, "The parameter 'out' must not be null");
-        out.writeInt(data.getWidth());
-        out.writeInt(data.getHeight());
-        out.writeInt(data.getType().getBufferedImageType());
-        out.writeInt(data.getLength());
         final int[] d = data.getBuffer();
-        final int len = d.length;
+        final ByteBuffer result;
         switch (data.getType()) {
         case ARGB:
         case ARGBPre:
-            for (int i = 0; i < len; i++) {
-                out.writeInt(d[i]);
-            }
+            result = ByteBuffer.allocate(HeaderSize + d.length * 4);
+            writeHeader(data, result);
+            result.asIntBuffer().put(d);
             break;
         case Gray:
-            for (int i = 0; i < len; i++) {
-                out.writeByte(d[i]);
+            result = ByteBuffer.allocate(HeaderSize + d.length);
+            writeHeader(data, result);
+            final byte[] a = result.array();
+            for (int i = 0, p = HeaderSize; i < d.length; i++, p++) {
+                a[p] = (byte) d[i];
             }
             break;
         default:
             throw new IllegalArgumentException("Unable to serialize image data due to unsupported image type: " + data.getType());
         }
+        return result.array();
     }
     
-    public static ImageData deserialize(DataInputStream in) throws IOException {
+    public static ImageData fromBytes(byte[] input, int offset, int length) throws IOException {
+        Preconditions.checkNotNull(input, "The parameter 'input' must not be null");
+        if (length < HeaderSize) {
+            throw new IOException("Unable to deserialize image data, unexpected end of data");
+        }
+        final ByteBuffer in = ByteBuffer.wrap(input, offset, length);
+        final int width = in.getInt(), height = in.getInt(), rawtype = in.getInt(), len = in.getInt();
+        final ImageType type = checkHeader(width, height, rawtype, len);
+        final long bytes = type == ImageType.Gray ? len : len * 4L;
+        if (in.remaining() < bytes) {
+            throw new IOException("Unable to deserialize image data, unexpected end of data");
+        }
+        final int[] data = new int[len];
+        if (type == ImageType.Gray) {
+            for (int i = 0, p = in.position(); i < len; i++, p++) {
+                data[i] = input[p] & 0xFF;
+            }
+        } else {
+            in.asIntBuffer().get(data);
+        }
+        return new ImageData(width, height, type, data, false);
+    }
+    
+    public static ImageData fromBytes(byte[] input) throws IOException {
+        Preconditions.checkNotNull(input, "The parameter 'input' must not be null");
+        return fromBytes(input, 0, input.length);
+    }
+    
+    public static void serialize(ImageData data, DataOutputStream out) throws IOException {
+        Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
+        Preconditions.checkNotNull(out, "The parameter 'out' must not be null");
+        out.write(toBytes(data));
+    }
+    
+    // images received from untrusted sources are limited to the specified size in bytes, including the header
+    public static ImageData deserialize(DataInputStream in, int maxSize) throws IOException {
         Preconditions.checkNotNull(in, "The parameter 'in' must not be null");
+        Preconditions.checkArgument(maxSize > 0, "The parameter 'maxSize' has to be greater than zero");
         final int width = in.readInt();
         final int height = in.readInt();
         final int rawtype = in.readInt();
-        final ImageType type = ImageType.fromBufferedImageType(rawtype);
-        Preconditions.checkNotNull(type, "Unable to deserialize image data due to unknown image type (" + rawtype + ")");
         final int length = in.readInt();
-        Preconditions.checkState(length == width * height, "Unable to deserialize image data due to invalid header");
+        final ImageType type = checkHeader(width, height, rawtype, length);
+        final long size = type == ImageType.Gray ? length : length * 4L;
+        if (size > maxSize - HeaderSize) {
+            throw new IOException("Unable to deserialize image data, too large (" + width + "x" + height + ")");
+        }
+        final byte[] bytes = new byte[(int) size];
+        in.readFully(bytes);
         final int[] data = new int[length];
-        switch (type) {
-        case ARGB:
-        case ARGBPre:
+        if (type == ImageType.Gray) {
             for (int i = 0; i < length; i++) {
-                data[i] = in.readInt();
+                data[i] = bytes[i] & 0xFF;
             }
-            break;
-        case Gray:
-            for (int i = 0; i < length; i++) {
-                data[i] = in.readByte() & 0xFF;
-            }
-            break;
-        default:
-            throw new IllegalStateException("Unable to deserialize image data due to unknown image type: " + type);
+        } else {
+            ByteBuffer.wrap(bytes).asIntBuffer().get(data);
         }
         return new ImageData(width, height, type, data, false);
     }
     
+    public static ImageData deserialize(DataInputStream in) throws IOException {
+        return deserialize(in, Integer.MAX_VALUE);
+    }
+    
     public static ImageData createFrom(Image image, boolean readData) {
         Preconditions.checkNotNull(image, "The parameter 'image' must not be null");
         final int width = image.getWidth(), height = image.getHeight();
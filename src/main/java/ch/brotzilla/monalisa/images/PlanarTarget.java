@@ -0,0 +1,68 @@
+package ch.brotzilla.monalisa.images;
+
+import com.google.common.base.Preconditions;
+
+public class PlanarTarget {
+
+    private final int width, height;
+    private final short[] alpha, red, green, blue;
+    private final float[] weights;
+
+    public PlanarTarget(int width, int height, int[] targetData, int[] importanceMapData) {
+        Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
+        Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
+        Preconditions.checkNotNull(targetData, "The parameter 'targetData' must not be null");
+        Preconditions.checkArgument(targetData.length == width * height, "The length of the parameter 'targetData' must be equal to " + (width * height) + " (" + targetData.length + ")");
+        Preconditions.checkNotNull(importanceMapData, "The parameter 'importanceMapData' must not be null");
+        Preconditions.checkArgument(importanceMapData.length == width * height, "The length of the parameter 'importanceMapData' must be equal to " + (width * height) + " (" + importanceMapData.length + ")");
+        final int length = width * height;
+        this.width = width;
+        this.height = height;
+        this.alpha = new short[length];
+        this.red = new short[length];
+        this.green = new short[length];
+        this.blue = new short[length];
+        this.weights = new float[length];
+        for (int i = 0; i < length; i++) {
+            final int tc = targetData[i];
+            alpha[i] = (short) ((tc >> 24) & 0x000000FF);
+            red[i] = (short) ((tc >> 16) & 0x000000FF);
+            green[i] = (short) ((tc >> 8) & 0x000000FF);
+            blue[i] = (short) (tc & 0x000000FF);
+            weights[i] = 256 - importanceMapData[i];
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLength() {
+        return width * height;
+    }
+
+    public short[] getAlpha() {
+        return alpha;
+    }
+
+    public short[] getRed() {
+        return red;
+    }
+
+    public short[] getGreen() {
+        return green;
+    }
+
+    public short[] getBlue() {
+        return blue;
+    }
+
+    // the per pixel weights, 256 - importance
+    public float[] getWeights() {
+        return weights;
+    }
+}
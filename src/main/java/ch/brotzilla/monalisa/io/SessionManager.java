@@ -3,6 +3,10 @@ package ch.brotzilla.monalisa.io;
 import java.awt.geom.AffineTransform;
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.imageio.ImageIO;
 
@@ -11,18 +15,24 @@ import org.apache.batik.svggen.SVGGraphics2D;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.svg.SVGDocument;
 
+import ch.brotzilla.monalisa.db.ConnectionCache;
 import ch.brotzilla.monalisa.db.Database;
 import ch.brotzilla.monalisa.db.Database.Transaction;
+import ch.brotzilla.monalisa.db.GenomeJournal;
+import ch.brotzilla.monalisa.db.GenomeStatistics;
+import ch.brotzilla.monalisa.db.GenomeStorage;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.images.ImageData;
 import ch.brotzilla.monalisa.images.ImageType;
 import ch.brotzilla.monalisa.utils.BoundingBox;
+import ch.brotzilla.monalisa.utils.Compression;
 import ch.brotzilla.monalisa.utils.Params;
 import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
 
 import com.almworks.sqlite4java.SQLiteException;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 
 public class SessionManager {
 
@@ -32,6 +42,9 @@ public class SessionManager {
     protected final boolean sessionResumed;
     
     protected final File databaseFile;
+    protected final ConnectionCache connections;
+    // null if the genomes are stored in the database
+    protected final File journalFile;
 
     protected final VectorizerContext vectorizerContext;
 
@@ -47,19 +60,41 @@ public class SessionManager {
         
         if (this.sessionResumed) {
             this.databaseFile = params.getSessionToResume().getAbsoluteFile();
-            try (final Database db = Database.openDatabase(databaseFile)) {
+            try (final Database db = Database.openDatabase(databaseFile, params.getConnectionProfile())) {
                 final String dbSessionName = db.querySetting("session-name");
                 if (dbSessionName.isEmpty()) {
                     this.sessionName = extractSessionName(params.getSessionToResume());
                 } else {
                     this.sessionName = dbSessionName;
                 }
-                targetImage = db.queryImage("target-image");
+                // decoding the images takes longer than looking up the latest genome, so both happen at the same time
+                final FutureTask<ImageData[]> images = decodeImages(db.queryFileData("target-image"), db.queryFileData("importance-map"));
+                if ("journal".equals(db.querySetting("genome-storage"))) {
+                    this.journalFile = createJournalFile(databaseFile);
+                    try (final GenomeJournal journal = GenomeJournal.openJournal(journalFile)) {
+                        numberOfGenomes = journal.queryGenomeStatistics().numberOfGenomes;
+                        latestGenome = journal.queryLatestGenome();
+                    }
+                    try (final Transaction t = db.begin()) {
+                        updateSettings(db);
+                        t.commit();
+                    }
+                } else {
+                    this.journalFile = null;
+                    final GenomeStatistics statistics = db.queryGenomeStatistics();
+                    numberOfGenomes = statistics.numberOfGenomes;
+                    latestGenome = db.queryLatestGenome();
+                    try (final Transaction t = db.begin()) {
+                        updateSettings(db);
+                        db.updateGenomeStatistics(statistics);
+                        t.commit();
+                    }
+                }
+                final ImageData[] decoded = awaitImages(images);
+                targetImage = decoded[0];
+                importanceMap = decoded[1];
                 Preconditions.checkNotNull(targetImage, "Database contains no target image");
                 Preconditions.checkState(targetImage.getType() == ImageType.ARGB, "Target image type is not supported (" + targetImage.getType() + ")");
-                importanceMap = db.queryImage("importance-map");
-                numberOfGenomes = db.queryNumberOfGenomes();
-                latestGenome = db.queryLatestGenome();
             }
         } else {
             this.sessionName = extractSessionName(params.getTargetImageFile());
@@ -72,19 +107,77 @@ public class SessionManager {
             }
             numberOfGenomes = 0;
             latestGenome = null;
-            try (final Database db = Database.createDatabase(databaseFile)) {
+            this.journalFile = "journal".equals(params.getGenomeStorage()) ? createJournalFile(databaseFile) : null;
+            try (final Database db = Database.createDatabase(databaseFile, params.getConnectionProfile())) {
                 try (final Transaction t = db.begin()) {
-                    db.insertImage("target-image", params.getTargetImageFile().getAbsolutePath(), targetImage);
+                    db.insertImage("target-image", params.getTargetImageFile().getAbsolutePath(), targetImage, params.getCodec());
                     if (importanceMap != null) {
-                        db.insertImage("importance-map", params.getImportanceMapFile().getAbsolutePath(), importanceMap);
+                        db.insertImage("importance-map", params.getImportanceMapFile().getAbsolutePath(), importanceMap, params.getCodec());
                     }
+                    db.updateSetting("genome-storage", params.getGenomeStorage());
+                    updateSettings(db);
+                    t.commit();
                 }
             }
+            if (journalFile != null) {
+                GenomeJournal.createJournal(journalFile).close();
+            }
         }
         
+        this.connections = new ConnectionCache(databaseFile, params.getConnectionProfile());
         this.vectorizerContext = new VectorizerContext(targetImage, importanceMap, numberOfGenomes, latestGenome);
     }
     
+    // creates a session without a database, used by remote workers which leave storage to the coordinator
+    public SessionManager(Params params, String sessionName, ImageData targetImage, ImageData importanceMap, Genome latestGenome) {
+        Preconditions.checkNotNull(params, "The parameter 'params' must not be null");
+        Preconditions.checkNotNull(sessionName, "The parameter 'sessionName' must not be null");
+        Preconditions.checkNotNull(targetImage, "The parameter 'targetImage' must not be null");
+        Preconditions.checkArgument(targetImage.getType() == ImageType.ARGB, "Target image type is not supported (" + targetImage.getType() + ")");
+        this.params = params;
+        this.sessionName = sessionName;
+        this.sessionResumed = false;
+        this.databaseFile = null;
+        this.connections = null;
+        this.journalFile = null;
+        this.vectorizerContext = new VectorizerContext(targetImage, importanceMap, 0, latestGenome);
+    }
+    
+    protected static FutureTask<ImageData[]> decodeImages(final byte[] targetImage, final byte[] importanceMap) {
+        final FutureTask<ImageData[]> result = new FutureTask<ImageData[]>(new Callable<ImageData[]>() {
+            @Override
+            public ImageData[] call() throws Exception {
+                return new ImageData[] { Compression.decodeImageData(targetImage), Compression.decodeImageData(importanceMap) };
+            }
+        });
+        final Thread thread = new Thread(result, "Image Decoder");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+    
+    protected static ImageData[] awaitImages(FutureTask<ImageData[]> images) throws IOException {
+        try {
+            return images.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decoding images", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException("Unable to decode images", e.getCause());
+        }
+    }
+    
+    // the journal lives next to the database, which still holds the images and the settings
+    protected static File createJournalFile(File databaseFile) {
+        return new File(databaseFile.getParentFile(), extractSessionName(databaseFile) + "." + GenomeJournal.FileExtension);
+    }
+    
+    protected void updateSettings(Database db) throws SQLiteException, UnsupportedEncodingException {
+        db.updateSetting("islands", String.valueOf(params.getNumIslands()));
+        db.updateSetting("migration-interval", String.valueOf(params.getMigrationInterval()));
+    }
+    
     public boolean isSessionResumed() {
         return sessionResumed;
     }
@@ -100,6 +193,18 @@ public class SessionManager {
     public File getDatabaseFile() {
         return databaseFile;
     }
+    
+    public boolean hasDatabase() {
+        return databaseFile != null;
+    }
+
+    public int getNumberOfIslands() {
+        return params.getNumIslands();
+    }
+    
+    public long getMigrationInterval() {
+        return params.getMigrationInterval();
+    }
 
     public int getWidth() {
         return vectorizerContext.getWidth();
@@ -113,8 +218,33 @@ public class SessionManager {
         return vectorizerContext;
     }
     
+    // every thread reuses its own connection, closing the returned database keeps the connection open until disconnect() is called
     public Database connect() throws IOException, SQLiteException {
-        return Database.openDatabase(databaseFile);
+        Preconditions.checkState(connections != null, "The session has no database");
+        return connections.acquire();
+    }
+    
+    public File getJournalFile() {
+        return journalFile;
+    }
+    
+    public boolean isJournaled() {
+        return journalFile != null;
+    }
+    
+    // the journal has to be closed by the caller, a database is kept open for the calling thread until disconnect() is called
+    public GenomeStorage openStorage() throws IOException, SQLiteException {
+        if (journalFile != null) {
+            return GenomeJournal.openJournal(journalFile);
+        }
+        return connect();
+    }
+    
+    // closes the connection of the calling thread
+    public void disconnect() {
+        if (connections != null) {
+            connections.release();
+        }
     }
     
     public File exportSVG(Genome genome, File target, boolean clipped, boolean autoName, boolean replaceIfExists) throws IOException {
@@ -175,7 +305,7 @@ public class SessionManager {
         return exportFile;
     }
     
-    private String extractSessionName(File input) {
+    public static String extractSessionName(File input) {
         final String filename = input.getName();
         final int index = filename.lastIndexOf(".");
         if (index > -1) {
@@ -0,0 +1,257 @@
+package ch.brotzilla.monalisa.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+
+import ch.brotzilla.monalisa.evolution.constraints.MutationConstraints;
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.io.SessionManager;
+import ch.brotzilla.monalisa.rendering.Renderer;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerConfig;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+
+public class Coordinator {
+
+    private final Vectorizer vectorizer;
+    private final int port;
+    private final Set<Socket> sockets;
+
+    private ServerSocket serverSocket;
+    private ExecutorService acceptThread, connectionThreads;
+    private volatile boolean running;
+
+    private class Connection implements Runnable {
+
+        private final Socket socket;
+        private final VectorizerConfig config;
+        private final FitnessFunction fitnessFunction;
+        private final Renderer renderer;
+
+        // the genome the worker is known to evolve
+        private Genome workerGenome;
+        private long lastReport;
+
+        private void handshake(DataInputStream in, DataOutputStream out) throws IOException {
+            final SessionManager session = vectorizer.getSession();
+            final VectorizerContext vc = config.getVectorizerContext();
+            Protocol.readHeader(in);
+            Protocol.writeHeader(out);
+            out.writeUTF(session.getSessionName());
+            out.writeUTF(session.getParams().getRendererName());
+            out.writeBoolean(session.getParams().getFusedFitness());
+            Protocol.writeImageData(vc.getTargetImage(), out);
+            out.writeBoolean(vc.getImportanceMap() != null);
+            if (vc.getImportanceMap() != null) {
+                Protocol.writeImageData(vc.getImportanceMap(), out);
+            }
+            workerGenome = vc.getLatestGenome();
+            Protocol.writeGenome(workerGenome, out);
+            out.flush();
+            lastReport = System.nanoTime();
+        }
+
+        // the count is clamped to what a worker can plausibly evaluate since its last message,
+        // otherwise a single message could inflate the statistics and trip the termination conditions
+        private int boundMutations(int numberOfMutations) throws IOException {
+            if (numberOfMutations < 0) {
+                throw new IOException("Invalid number of mutations (" + numberOfMutations + ")");
+            }
+            final long now = System.nanoTime();
+            final long allowed = (now - lastReport) / 1000000 * Protocol.MaxMutationsPerSecond / 1000 + 1;
+            lastReport = now;
+            return (int) Math.min(numberOfMutations, allowed);
+        }
+
+        // genes the worker received unchanged from the coordinator are not checked, they may predate the current constraints
+        private boolean satisfied(Genome genome) {
+            final MutationConstraints c = config.getConstraints();
+            if (!c.satisfied(config, genome)) {
+                return false;
+            }
+            final Gene[] known = workerGenome != null ? workerGenome.genes : null;
+            for (int i = 0; i < genome.genes.length; i++) {
+                final Gene gene = genome.genes[i];
+                if (known != null && i < known.length && gene.equals(known[i])) {
+                    continue;
+                }
+                if (!c.satisfied(config, gene)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void submit(Genome genome, int numberOfMutations) {
+            final VectorizerContext vc = config.getVectorizerContext();
+            // the submission itself counts as one mutation
+            if (numberOfMutations > 1) {
+                vc.addNumberOfMutations(numberOfMutations - 1);
+            }
+            // workers are not trusted blindly, genomes have to satisfy the constraints of the coordinator
+            if (genome == null || !satisfied(genome)) {
+                System.out.println("Rejected genome from worker: " + socket.getRemoteSocketAddress() + " (constraints not satisfied)");
+                return;
+            }
+            // and the fitness is recomputed with the configuration of the coordinator
+            genome.fitness = fitnessFunction.compute(config, genome, renderer);
+            if (vectorizer.submit(genome) == genome) {
+                workerGenome = genome;
+            }
+        }
+
+        private void reply(DataOutputStream out) throws IOException {
+            final Genome latest = config.getVectorizerContext().getLatestGenome();
+            if (latest != null && latest != workerGenome) {
+                out.writeByte(Protocol.Latest);
+                Protocol.writeGenome(latest, out);
+                workerGenome = latest;
+            } else {
+                out.writeByte(Protocol.Unchanged);
+            }
+            out.flush();
+        }
+
+        public Connection(Socket socket) {
+            this.socket = socket;
+            this.config = vectorizer.getConfig();
+            this.fitnessFunction = config.getFitnessFunction();
+            this.renderer = fitnessFunction.needsRenderer() ? config.createRenderer() : null;
+        }
+
+        @Override
+        public void run() {
+            final String address = socket.getRemoteSocketAddress().toString();
+            try {
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                handshake(in, out);
+                System.out.println("Worker connected: " + address);
+                while (running) {
+                    final byte type = in.readByte();
+                    if (type == Protocol.Bye) {
+                        break;
+                    }
+                    final int numberOfMutations = boundMutations(in.readInt());
+                    if (type == Protocol.Submit) {
+                        submit(Protocol.readGenome(in), numberOfMutations);
+                    } else if (type == Protocol.Pull) {
+                        if (numberOfMutations > 0) {
+                            config.getVectorizerContext().addNumberOfMutations(numberOfMutations);
+                        }
+                    } else {
+                        throw new IOException("Unknown message type (" + type + ")");
+                    }
+                    reply(out);
+                }
+                System.out.println("Worker disconnected: " + address);
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Worker connection lost: " + address + " (" + e.getMessage() + ")");
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                sockets.remove(socket);
+                try {
+                    socket.close();
+                } catch (IOException e) {}
+            }
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                connectionThreads.submit(new Connection(socket));
+            } catch (SocketException e) {
+                // thrown when the server socket is closed
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public Coordinator(Vectorizer vectorizer, int port) {
+        Preconditions.checkNotNull(vectorizer, "The parameter 'vectorizer' must not be null");
+        Preconditions.checkArgument(port >= 0 && port <= 65535, "The parameter 'port' has to be in the range [0, 65535]");
+        this.vectorizer = vectorizer;
+        this.port = port;
+        this.sockets = Sets.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    }
+
+    public Vectorizer getVectorizer() {
+        return vectorizer;
+    }
+
+    // returns the port the coordinator is listening on, which differs from the requested port if that was zero
+    public int getPort() {
+        final ServerSocket s = serverSocket;
+        return s != null ? s.getLocalPort() : port;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void start() throws IOException {
+        Preconditions.checkState(!running, "Coordinator is already running");
+        serverSocket = new ServerSocket(port);
+        running = true;
+        connectionThreads = Executors.newCachedThreadPool();
+        acceptThread = Executors.newFixedThreadPool(1);
+        acceptThread.submit(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (final Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        }
+        acceptThread.shutdown();
+        connectionThreads.shutdown();
+        try {
+            acceptThread.awaitTermination(10, TimeUnit.SECONDS);
+            connectionThreads.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        serverSocket = null;
+        acceptThread = null;
+        connectionThreads = null;
+    }
+}
@@ -0,0 +1,94 @@
+package ch.brotzilla.monalisa.net;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.images.ImageData;
+import ch.brotzilla.monalisa.utils.Compression;
+
+public class Protocol {
+
+    private Protocol() {}
+
+    public static final int Magic = 0x4D4C4E54;
+    public static final int Version = 1;
+
+    // a peer must not be able to make the other side allocate arbitrary amounts of memory
+    // an image is at most 64 MiB on the wire, which covers 4096 x 4096 pixels even if it does not compress
+    // the decoded image is limited to the same 64 MiB plus its header, since a few compressed bytes can claim any size
+    // a genome has at most 16384 genes, genes themselves are limited to 255 points by the serialization format
+    // a worker reports at most a million mutations per second, far more than a single machine evaluates
+    public static final int MaxImageLength = 64 * 1024 * 1024;
+    public static final int MaxImageSize = MaxImageLength + 16;
+    public static final int MaxGenes = 16384;
+    public static final int MaxMutationsPerSecond = 1000000;
+
+    // messages sent by workers
+    public static final byte Submit = 1;
+    public static final byte Pull = 2;
+    public static final byte Bye = 3;
+
+    // messages sent by the coordinator
+    public static final byte Latest = 4;
+    public static final byte Unchanged = 5;
+
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(Magic);
+        out.writeInt(Version);
+    }
+
+    public static void readHeader(DataInputStream in) throws IOException {
+        final int magic = in.readInt();
+        if (magic != Magic)
+            throw new IOException("Unknown protocol (" + Integer.toHexString(magic) + ")");
+        final int version = in.readInt();
+        if (version != Version)
+            throw new IOException("Protocol version not supported (" + version + ")");
+    }
+
+    public static void writeBlob(byte[] data, DataOutputStream out) throws IOException {
+        if (data == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(data.length);
+            out.write(data);
+        }
+    }
+
+    public static byte[] readBlob(DataInputStream in, int maxLength) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > maxLength) {
+            throw new IOException("Blob too large (" + length + " bytes, at most " + maxLength + " allowed)");
+        }
+        final byte[] result = new byte[length];
+        in.readFully(result);
+        return result;
+    }
+
+    public static void writeImageData(ImageData data, DataOutputStream out) throws IOException {
+        writeBlob(Compression.encode(data), out);
+    }
+
+    public static ImageData readImageData(DataInputStream in) throws IOException {
+        return Compression.decodeImageData(readBlob(in, MaxImageLength), MaxImageSize);
+    }
+
+    public static void writeGenome(Genome genome, DataOutputStream out) throws IOException {
+        out.writeBoolean(genome != null);
+        if (genome != null) {
+            Genome.serialize(genome, out);
+        }
+    }
+
+    public static Genome readGenome(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return Genome.deserialize(in, MaxGenes);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,222 @@
+package ch.brotzilla.monalisa.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.monalisa.images.ImageData;
+import ch.brotzilla.monalisa.io.SessionManager;
+import ch.brotzilla.monalisa.utils.Params;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+import ch.brotzilla.monalisa.vectorizer.VectorizerListener;
+
+public class WorkerClient implements VectorizerListener {
+
+    public static final long DefaultSyncInterval = 250;
+
+    private final Params params;
+    private final String host;
+    private final int port;
+    private final long syncInterval;
+
+    // the latest local improvement which has not been sent to the coordinator yet
+    private final AtomicReference<Genome> improved;
+
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private ExecutorService connectionThread;
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    // accessed by the connection thread only
+    private int reportedMutations;
+    private volatile Genome adopted;
+
+    private void adopt(Vectorizer v, Genome genome) {
+        final VectorizerContext vc = v.getConfig().getVectorizerContext();
+        final FitnessFunction ff = v.getConfig().getFitnessFunction();
+        final Genome local = vc.getLatestGenome();
+        // the coordinator may have added polygons, such genomes are adopted even if they are worse than the local genome
+        if (local == null || ff.isImprovement(local, genome) || local.countPolygons() != genome.countPolygons()) {
+            genome.overrideFitness = true;
+            adopted = genome;
+            v.submit(genome);
+            // adopting a genome is not a mutation
+            ++reportedMutations;
+        }
+    }
+
+    private void synchronize(Vectorizer v) throws IOException, InterruptedException {
+        final VectorizerContext vc = v.getConfig().getVectorizerContext();
+        while (running) {
+            Thread.sleep(syncInterval);
+            final Genome genome = improved.getAndSet(null);
+            final int mutations = vc.getNumberOfMutations();
+            final int delta = Math.max(mutations - reportedMutations, 0);
+            reportedMutations = mutations;
+            if (genome != null) {
+                out.writeByte(Protocol.Submit);
+                out.writeInt(delta);
+                Protocol.writeGenome(genome, out);
+            } else {
+                out.writeByte(Protocol.Pull);
+                out.writeInt(delta);
+            }
+            out.flush();
+            final byte type = in.readByte();
+            if (type == Protocol.Latest) {
+                adopt(v, Protocol.readGenome(in));
+            } else if (type != Protocol.Unchanged) {
+                throw new IOException("Unknown message type (" + type + ")");
+            }
+        }
+        out.writeByte(Protocol.Bye);
+        out.flush();
+    }
+
+    private void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    public WorkerClient(Params params, String host, int port, long syncInterval) {
+        Preconditions.checkNotNull(params, "The parameter 'params' must not be null");
+        Preconditions.checkNotNull(host, "The parameter 'host' must not be null");
+        Preconditions.checkArgument(port > 0 && port <= 65535, "The parameter 'port' has to be in the range [1, 65535]");
+        Preconditions.checkArgument(syncInterval > 0, "The parameter 'syncInterval' has to be greater than zero");
+        this.params = params;
+        this.host = host;
+        this.port = port;
+        this.syncInterval = syncInterval;
+        this.improved = new AtomicReference<Genome>();
+    }
+
+    public WorkerClient(Params params, String host, int port) {
+        this(params, host, port, DefaultSyncInterval);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    // connects to the coordinator and creates a session from the data received during the handshake
+    public SessionManager connect() throws IOException {
+        Preconditions.checkState(socket == null, "Worker is already connected");
+        socket = new Socket(host, port);
+        try {
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Protocol.writeHeader(out);
+            out.flush();
+            Protocol.readHeader(in);
+            final String sessionName = in.readUTF();
+            final String rendererName = in.readUTF();
+            final boolean fusedFitness = in.readBoolean();
+            // fitness values are only comparable if coordinator and workers render and score genomes the same way
+            if (!rendererName.equals(params.getRendererName()))
+                throw new IOException("The coordinator uses --renderer " + rendererName);
+            if (fusedFitness != params.getFusedFitness())
+                throw new IOException("The coordinator " + (fusedFitness ? "uses" : "does not use") + " --fused-fitness");
+            final ImageData targetImage = Protocol.readImageData(in);
+            final ImageData importanceMap = in.readBoolean() ? Protocol.readImageData(in) : null;
+            final Genome latestGenome = Protocol.readGenome(in);
+            return new SessionManager(params, sessionName, targetImage, importanceMap, latestGenome);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void started(final Vectorizer v, Genome latest) {
+        Preconditions.checkState(socket != null, "Worker is not connected");
+        reportedMutations = v.getConfig().getVectorizerContext().getNumberOfMutations();
+        running = true;
+        connectionThread = Executors.newFixedThreadPool(1);
+        connectionThread.submit(new Runnable() {
+            @Override
+            public void run() {
+                thread = Thread.currentThread();
+                try {
+                    synchronize(v);
+                } catch (EOFException e) {
+                    if (running) {
+                        System.out.println("Coordinator has closed the connection");
+                        v.stop();
+                    }
+                } catch (IOException e) {
+                    if (running) {
+                        System.out.println("Connection to coordinator lost (" + e.getMessage() + ")");
+                        v.stop();
+                    }
+                } catch (InterruptedException e) {
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    close();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void improved(Vectorizer v, Genome latest) {
+        if (latest != adopted) {
+            improved.set(latest);
+        }
+    }
+
+    @Override
+    public void update(Vectorizer v) {}
+
+    @Override
+    public void stopping(Vectorizer v) {
+        running = false;
+        connectionThread.shutdown();
+        if (Thread.currentThread() != thread) {
+            try {
+                connectionThread.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void stopped(Vectorizer v) {
+        connectionThread = null;
+    }
+}
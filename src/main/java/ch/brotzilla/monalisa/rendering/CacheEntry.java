@@ -9,18 +9,19 @@ import ch.brotzilla.monalisa.evolution.genes.Gene;
 public class CacheEntry {
     
     private final Gene gene;
-    private long created;
-    private long touched;
-
-    private BufferedImage image;
-    private int x, y;
+    private final BufferedImage image;
+    private final int x, y;
+    
+    // position in the eviction list of the cache, guarded by the cache
+    int slot = -1;
 
-    public CacheEntry(Gene gene) {
-        super();
+    public CacheEntry(Gene gene, BufferedImage image, int x, int y) {
         Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
+        Preconditions.checkNotNull(image, "The parameter 'image' must not be null");
         this.gene = gene;
-        this.created = System.currentTimeMillis();
-        this.touched = created;
+        this.image = image;
+        this.x = x;
+        this.y = y;
     }
     
     public Gene getGene() {
@@ -39,33 +40,8 @@ public class CacheEntry {
         return y;
     }
     
-    public void setImage(BufferedImage image, int x, int y) {
-        Preconditions.checkState(this.image == null, "The property 'Image' has already been set");
-        Preconditions.checkNotNull(image, "The parameter 'image' must not be null");
-        Preconditions.checkArgument(x >= 0, "The parameter 'x' has to be greater than or equal to zero");
-        Preconditions.checkArgument(y >= 0, "The parameter 'y' has to be greater than or equal to zero");
-        this.image = image;
-        this.x = x;
-        this.y = y;
-    }
-    
-    public long getCreated() {
-        return created;
-    }
-    
-    public long getCreatedSince() {
-        return (int) (System.currentTimeMillis() - created);
-    }
-
-    public long getTouched() {
-        return touched;
-    }
-    
-    public long getTouchedSince() {
-        return (int) (System.currentTimeMillis() - touched);
-    }
-    
-    public void touch() {
-        touched = System.currentTimeMillis();
+    // the sprites are stored as ints with one pixel each
+    public long getSizeInBytes() {
+        return 4L * image.getWidth() * image.getHeight();
     }
 }
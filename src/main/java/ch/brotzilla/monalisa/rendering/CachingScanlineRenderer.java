@@ -0,0 +1,62 @@
+package ch.brotzilla.monalisa.rendering;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.images.Image;
+
+public class CachingScanlineRenderer extends ScanlineRenderer {
+
+    protected final int numberOfGenesToRender;
+    protected final int[] cache;
+    protected int numberOfGenesCached = 0;
+
+    protected void renderCache(Genome genome) {
+        final int numberOfGenesToCache = Math.max(genome.genes.length - numberOfGenesToRender, 0);
+        if (numberOfGenesToCache > numberOfGenesCached) {
+            final int width = getWidth(), height = getHeight();
+            numberOfGenesCached = numberOfGenesToCache;
+            rasterizer.prepare(genome.genes);
+            for (int row = 0; row < height; row++) {
+                final int offset = row * width;
+                Arrays.fill(cache, offset, offset + width, 0);
+                rasterizer.renderRow(0, numberOfGenesToCache, row, cache, offset, 0, width);
+            }
+            rasterizer.reset();
+        }
+    }
+
+    @Override
+    protected void renderImage(Genome genome, int x, int y, int width, int height) {
+        renderCache(genome);
+        final int[] buffer = image.getBuffer();
+        final int imageWidth = getWidth();
+        rasterizer.prepare(genome.genes);
+        for (int row = y; row < y + height; row++) {
+            final int offset = row * imageWidth;
+            System.arraycopy(cache, offset + x, buffer, offset + x, width);
+            rasterizer.renderRow(numberOfGenesCached, genome.genes.length, row, buffer, offset, x, x + width);
+        }
+        rasterizer.reset();
+    }
+
+    public CachingScanlineRenderer(int numberOfGenesToRender, int width, int height) {
+        super(width, height);
+        Preconditions.checkArgument(numberOfGenesToRender > 0, "The parameter 'numberOfGenesToRender' has to be greater than zero");
+        this.numberOfGenesToRender = numberOfGenesToRender;
+        this.cache = new int[width * height];
+    }
+
+    public CachingScanlineRenderer(int numberOfGenesToRender, Image image) {
+        super(image);
+        Preconditions.checkArgument(numberOfGenesToRender > 0, "The parameter 'numberOfGenesToRender' has to be greater than zero");
+        this.numberOfGenesToRender = numberOfGenesToRender;
+        this.cache = new int[image.getWidth() * image.getHeight()];
+    }
+
+    public int getNumberOfGenesToRender() {
+        return numberOfGenesToRender;
+    }
+}
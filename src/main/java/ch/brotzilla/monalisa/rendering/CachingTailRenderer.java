@@ -13,8 +13,36 @@ public class CachingTailRenderer extends Renderer {
 
     protected final int numberOfGenesToRender;
     protected final Image cache;
+    protected final boolean restoreDirtyRegion;
     protected int numberOfGenesCached = 0;
     
+    // the genes currently rendered into the whole image, copied because genomes may be recycled and mutated in place,
+    // numberOfPreviousGenes is -1 if the image contains partial renderings
+    protected Gene[] previousGenes = new Gene[0];
+    protected int numberOfPreviousGenes = -1;
+    
+    // bounding box of all genes which differ from the previous genome
+    private int xmin, ymin, xmax, ymax;
+    
+    private void includeGene(Gene gene) {
+        final int[] x = gene.x, y = gene.y;
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] < xmin) xmin = x[i];
+            if (x[i] > xmax) xmax = x[i];
+            if (y[i] < ymin) ymin = y[i];
+            if (y[i] > ymax) ymax = y[i];
+        }
+    }
+    
+    private void rememberGenes(Genome genome) {
+        final Gene[] genes = genome.genes;
+        if (previousGenes.length < genes.length) {
+            previousGenes = new Gene[Math.max(genes.length, previousGenes.length * 2)];
+        }
+        System.arraycopy(genes, 0, previousGenes, 0, genes.length);
+        numberOfPreviousGenes = genes.length;
+    }
+    
     protected void renderCache(Genome genome) {
         final Gene[] genes = genome.genes;
         final int numberOfGenes = genes.length;
@@ -36,6 +64,44 @@ public class CachingTailRenderer extends Renderer {
         g.drawImage(cache.getImage(), 0, 0, null);
     }
     
+    @Override
+    protected void renderImage(Genome genome, int x, int y, int width, int height) {
+        final boolean full = x == 0 && y == 0 && width == getWidth() && height == getHeight();
+        final int numberOfGenesCached = this.numberOfGenesCached;
+        renderCache(genome);
+        if (!restoreDirtyRegion || !full || numberOfPreviousGenes != genome.genes.length || numberOfGenesCached != this.numberOfGenesCached) {
+            super.renderImage(genome, x, y, width, height);
+            if (full && restoreDirtyRegion) {
+                rememberGenes(genome);
+            } else {
+                numberOfPreviousGenes = -1;
+            }
+            return;
+        }
+        
+        // the cached genes are the same for both genomes, so only differing tail genes can change pixels
+        final Gene[] pg = previousGenes, gg = genome.genes;
+        xmin = Integer.MAX_VALUE;
+        ymin = Integer.MAX_VALUE;
+        xmax = Integer.MIN_VALUE;
+        ymax = Integer.MIN_VALUE;
+        for (int i = numberOfGenesCached; i < gg.length; i++) {
+            if (pg[i] != gg[i]) {
+                includeGene(pg[i]);
+                includeGene(gg[i]);
+                pg[i] = gg[i];
+            }
+        }
+        
+        // one pixel of padding for antialiasing
+        final int x0 = Math.max(xmin - 1, 0), y0 = Math.max(ymin - 1, 0);
+        final int x1 = xmax == Integer.MIN_VALUE ? -1 : Math.min(xmax + 1, getWidth() - 1);
+        final int y1 = ymax == Integer.MIN_VALUE ? -1 : Math.min(ymax + 1, getHeight() - 1);
+        if (x0 <= x1 && y0 <= y1) {
+            super.renderImage(genome, x0, y0, x1 - x0 + 1, y1 - y0 + 1);
+        }
+    }
+    
     @Override
     protected void renderGenome(Genome genome, Graphics2D g) {
         final Gene[] genes = genome.genes;
@@ -45,21 +111,36 @@ public class CachingTailRenderer extends Renderer {
         }
     }
 
-    public CachingTailRenderer(int numberOfGenesToRender, int width, int height, boolean autoUpdateBuffer) {
+    // if restoreDirtyRegion is set, full renderings only repaint the region in which the genome differs from the previously rendered genome
+    public CachingTailRenderer(int numberOfGenesToRender, int width, int height, boolean autoUpdateBuffer, boolean restoreDirtyRegion) {
         super(width, height, autoUpdateBuffer);
         Preconditions.checkArgument(numberOfGenesToRender > 0, "The parameter 'numberOfGenesToRender' has to be greater than zero");
         this.numberOfGenesToRender = numberOfGenesToRender;
         this.cache = new Image(ImageType.ARGB, width, height);
+        this.restoreDirtyRegion = restoreDirtyRegion;
     }
 
-    public CachingTailRenderer(int numberOfGenesToRender, Image image, boolean autoUpdateBuffer) {
+    public CachingTailRenderer(int numberOfGenesToRender, int width, int height, boolean autoUpdateBuffer) {
+        this(numberOfGenesToRender, width, height, autoUpdateBuffer, false);
+    }
+
+    public CachingTailRenderer(int numberOfGenesToRender, Image image, boolean autoUpdateBuffer, boolean restoreDirtyRegion) {
         super(image, autoUpdateBuffer);
         Preconditions.checkArgument(numberOfGenesToRender > 0, "The parameter 'numberOfGenesToRender' has to be greater than zero");
         this.numberOfGenesToRender = numberOfGenesToRender;
         this.cache = new Image(ImageType.ARGB, image.getWidth(), image.getHeight());
+        this.restoreDirtyRegion = restoreDirtyRegion;
+    }
+
+    public CachingTailRenderer(int numberOfGenesToRender, Image image, boolean autoUpdateBuffer) {
+        this(numberOfGenesToRender, image, autoUpdateBuffer, false);
     }
     
     public int getNumberOfGenesToRender() {
         return numberOfGenesToRender;
     }
+    
+    public boolean getRestoreDirtyRegion() {
+        return restoreDirtyRegion;
+    }
 }
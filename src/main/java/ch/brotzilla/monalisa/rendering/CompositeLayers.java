@@ -0,0 +1,151 @@
+package ch.brotzilla.monalisa.rendering;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+
+// composites of the first genes of a genome at several positions, shared by all renderers and never modified once built
+public class CompositeLayers {
+
+    private final Genome genome;
+    private final int width, height;
+    // ascending, layers[k] contains the genes [0, positions[k]) rendered onto a transparent image
+    private final int[] positions;
+    private final int[][] layers;
+
+    // layers are placed 1, 2, 4, 8, ... genes below the top, because most mutations touch the last genes
+    private static int[] computePositions(int numberOfGenes, int maxLayers) {
+        final int[] result = new int[maxLayers];
+        int count = 0;
+        for (int distance = 1; count < maxLayers && numberOfGenes - distance > 0; distance <<= 1) {
+            result[count++] = numberOfGenes - distance;
+        }
+        final int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = result[count - 1 - i];
+        }
+        return positions;
+    }
+
+    private static int countSharedGenes(Genome a, Genome b) {
+        final Gene[] ga = a.genes, gb = b.genes;
+        final int length = Math.min(ga.length, gb.length);
+        int i = 0;
+        while (i < length && ga[i] == gb[i]) {
+            ++i;
+        }
+        return i;
+    }
+
+    private CompositeLayers(Genome genome, int width, int height, int[] positions, int[][] layers) {
+        this.genome = genome;
+        this.width = width;
+        this.height = height;
+        this.positions = positions;
+        this.layers = layers;
+    }
+
+    // layers of the previous genome are reused as long as they only contain genes shared with the new genome
+    public static CompositeLayers build(Genome genome, int width, int height, int maxLayers, CompositeLayers previous, ScanlineRasterizer rasterizer) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
+        Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
+        Preconditions.checkArgument(maxLayers > 0, "The parameter 'maxLayers' has to be greater than zero");
+        Preconditions.checkNotNull(rasterizer, "The parameter 'rasterizer' must not be null");
+
+        final int[] positions = computePositions(genome.genes.length, maxLayers);
+        final int[][] layers = new int[positions.length][];
+        final boolean reusable = previous != null && previous.width == width && previous.height == height;
+        final int shared = reusable ? countSharedGenes(previous.genome, genome) : 0;
+
+        int first = 0;
+        if (reusable) {
+            while (first < positions.length && positions[first] <= shared) {
+                final int index = Arrays.binarySearch(previous.positions, positions[first]);
+                if (index < 0) {
+                    break;
+                }
+                layers[first] = previous.layers[index];
+                ++first;
+            }
+        }
+        if (first == positions.length) {
+            return new CompositeLayers(genome, width, height, positions, layers);
+        }
+
+        // start with the highest layer of the previous genome which is still valid
+        int[] start = null;
+        int startPosition = 0;
+        if (reusable) {
+            final int limit = Math.min(shared, positions[first]);
+            for (int i = previous.positions.length - 1; i >= 0; i--) {
+                if (previous.positions[i] <= limit) {
+                    start = previous.layers[i];
+                    startPosition = previous.positions[i];
+                    break;
+                }
+            }
+        }
+
+        for (int k = first; k < positions.length; k++) {
+            layers[k] = new int[width * height];
+        }
+        final int[] row = new int[width];
+        rasterizer.prepare(genome.genes);
+        for (int y = 0; y < height; y++) {
+            final int offset = y * width;
+            if (start != null) {
+                System.arraycopy(start, offset, row, 0, width);
+            } else {
+                Arrays.fill(row, 0);
+            }
+            int from = startPosition;
+            for (int k = first; k < positions.length; k++) {
+                rasterizer.renderRow(from, positions[k], y, row, 0, 0, width);
+                System.arraycopy(row, 0, layers[k], offset, width);
+                from = positions[k];
+            }
+        }
+        rasterizer.reset();
+        return new CompositeLayers(genome, width, height, positions, layers);
+    }
+
+    public Genome getGenome() {
+        return genome;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumberOfLayers() {
+        return positions.length;
+    }
+
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    public int[] getLayer(int index) {
+        return layers[index];
+    }
+
+    // returns the index of the highest layer which contains only genes shared with the specified genome or -1 if there is none
+    public int findLayer(Genome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int shared = countSharedGenes(this.genome, genome);
+        for (int k = positions.length - 1; k >= 0; k--) {
+            if (positions[k] <= shared) {
+                return k;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.brotzilla.monalisa.rendering;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.images.Image;
+import ch.brotzilla.monalisa.vectorizer.VectorizerContext;
+
+public class LayeredScanlineRenderer extends ScanlineRenderer {
+
+    public static final int DefaultMaxLayers = 8;
+    // every layer is a full frame, which takes about 127 MiB at 8k, so their number is limited by a memory budget
+    public static final long DefaultLayerBudget = 256L * 1024 * 1024;
+
+    protected final VectorizerContext context;
+    protected final int maxLayers;
+
+    // the layers are built for the latest genome and shared through the vectorizer context
+    // while one renderer rebuilds them, all others keep using the outdated layers, which are still valid for the genes they share
+    protected CompositeLayers updateLayers() {
+        final Genome latest = context.getLatestGenome();
+        if (latest == null) {
+            return null;
+        }
+        final CompositeLayers current = context.getCompositeLayers();
+        if (current != null && current.getGenome() == latest) {
+            return current;
+        }
+        if (!context.beginCompositeLayersUpdate()) {
+            return current;
+        }
+        try {
+            // another renderer may have finished the layers in the meantime
+            final CompositeLayers previous = context.getCompositeLayers();
+            if (previous != null && previous.getGenome() == latest) {
+                return previous;
+            }
+            final CompositeLayers result = CompositeLayers.build(latest, getWidth(), getHeight(), maxLayers, previous, rasterizer);
+            context.setCompositeLayers(result);
+            return result;
+        } finally {
+            context.endCompositeLayersUpdate();
+        }
+    }
+
+    @Override
+    protected void renderImage(Genome genome, int x, int y, int width, int height) {
+        final CompositeLayers layers = updateLayers();
+        final int index = layers != null ? layers.findLayer(genome) : -1;
+        final int[] layer = index >= 0 ? layers.getLayer(index) : null;
+        final int from = index >= 0 ? layers.getPosition(index) : 0;
+        final int[] buffer = image.getBuffer();
+        final int imageWidth = getWidth();
+        rasterizer.prepare(genome.genes);
+        for (int row = y; row < y + height; row++) {
+            final int offset = row * imageWidth;
+            if (layer != null) {
+                System.arraycopy(layer, offset + x, buffer, offset + x, width);
+            } else {
+                Arrays.fill(buffer, offset + x, offset + x + width, 0);
+            }
+            rasterizer.renderRow(from, genome.genes.length, row, buffer, offset, x, x + width);
+        }
+        rasterizer.reset();
+    }
+
+    // returns zero if not even a single layer fits into the budget
+    public static int computeMaxLayers(int width, int height, long budget) {
+        Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
+        Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
+        return (int) Math.min(DefaultMaxLayers, Math.max(0, budget) / ((long) width * height * 4));
+    }
+
+    // the layers of the previous genome stay alive while the next ones are built, so they get at most an eighth of the heap
+    public static int computeMaxLayers(int width, int height) {
+        return computeMaxLayers(width, height, Math.min(DefaultLayerBudget, Runtime.getRuntime().maxMemory() / 8));
+    }
+
+    public LayeredScanlineRenderer(VectorizerContext context, int maxLayers, int width, int height) {
+        super(width, height);
+        Preconditions.checkNotNull(context, "The parameter 'context' must not be null");
+        Preconditions.checkArgument(maxLayers > 0, "The parameter 'maxLayers' has to be greater than zero");
+        Preconditions.checkArgument(context.getWidth() == width && context.getHeight() == height, "The size of the renderer has to be equal to the size of the target image");
+        this.context = context;
+        this.maxLayers = maxLayers;
+    }
+
+    public LayeredScanlineRenderer(VectorizerContext context, int maxLayers, Image image) {
+        super(image);
+        Preconditions.checkNotNull(context, "The parameter 'context' must not be null");
+        Preconditions.checkArgument(maxLayers > 0, "The parameter 'maxLayers' has to be greater than zero");
+        Preconditions.checkArgument(context.getWidth() == image.getWidth() && context.getHeight() == image.getHeight(), "The size of the renderer has to be equal to the size of the target image");
+        this.context = context;
+        this.maxLayers = maxLayers;
+    }
+
+    public int getMaxLayers() {
+        return maxLayers;
+    }
+}
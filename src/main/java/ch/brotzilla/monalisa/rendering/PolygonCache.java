@@ -1,50 +1,63 @@
 package ch.brotzilla.monalisa.rendering;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import ch.brotzilla.monalisa.evolution.genes.Gene;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
-import ch.brotzilla.monalisa.images.Image;
 import ch.brotzilla.monalisa.images.ImageType;
 import ch.brotzilla.monalisa.vectorizer.Vectorizer;
 import ch.brotzilla.monalisa.vectorizer.VectorizerListener;
+import ch.brotzilla.util.FrequencySketch;
+import ch.brotzilla.util.StripedCounter;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Queues;
 
+// caches sprites of the genes of the latest genomes, bounded by the number of bytes of all sprites
 public class PolygonCache {
 
+    public static final long DefaultMaxSizeInBytes = 64L * 1024 * 1024;
+    
+    // number of entries compared when looking for the least frequently used one
+    private static final int EvictionSamples = 8;
+
     private final int width, height;
+    private final long maxSizeInBytes;
+    private final int numberOfThreads;
 
-    private final BlockingQueue<Genome> queue = Queues.newLinkedBlockingQueue();
-    private final ConcurrentMap<Gene, CacheEntry> temp = Maps.newConcurrentMap();
     private final ConcurrentMap<Gene, CacheEntry> cache = Maps.newConcurrentMap();
-    private ExecutorService workerThread;
+    private final ConcurrentMap<Gene, Boolean> pending = Maps.newConcurrentMap();
+    private final FrequencySketch sketch;
+    private final StripedCounter hits = new StripedCounter(), misses = new StripedCounter();
+    
+    // eviction state, guarded by itself
+    private final List<CacheEntry> entries = Lists.newArrayList();
+    private long sizeInBytes;
+    private int hand;
+    private long evictions, rejections;
+    
+    private ExecutorService workerThreads;
 
     private VectorizerListener listener = new VectorizerListener() {
         @Override
         public void stopping(Vectorizer v) {
-            if (workerThread != null) {
-                workerThread.shutdown();
+            if (workerThreads != null) {
+                workerThreads.shutdownNow();
                 try {
-                    workerThread.awaitTermination(10, TimeUnit.SECONDS);
+                    workerThreads.awaitTermination(10, TimeUnit.SECONDS);
                 } catch (InterruptedException e) {
                 }
-                queue.clear();
-                temp.clear();
-                cache.clear();
-                workerThread = null;
+                workerThreads = null;
+                clear();
             }
         }
         @Override
@@ -52,28 +65,187 @@ public class PolygonCache {
         }
         @Override
         public void started(Vectorizer v, Genome latest) {
-            if (workerThread == null) {
-                workerThread = Executors.newFixedThreadPool(1);
-                new WorkerThread(workerThread);
+            if (workerThreads == null) {
+                workerThreads = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread result = new Thread(r, "polygon-cache");
+                        result.setDaemon(true);
+                        return result;
+                    }
+                });
             }
             if (latest != null) {
-                queue.offer(latest);
+                request(latest);
             }
         }
         @Override
         public void improved(Vectorizer v, Genome latest) {
-            queue.offer(latest);
+            request(latest);
         }
         @Override
         public void update(Vectorizer v) {
         }
     };
 
-    public PolygonCache(int width, int height) {
+    // returns the region covered by the gene as { x, y, width, height } or null if the gene is not visible
+    private int[] computeBounds(Gene gene) {
+        int xmin = Integer.MAX_VALUE, ymin = Integer.MAX_VALUE, xmax = Integer.MIN_VALUE, ymax = Integer.MIN_VALUE;
+        for (int i = 0; i < gene.x.length; i++) {
+            xmin = Math.min(xmin, gene.x[i]);
+            xmax = Math.max(xmax, gene.x[i]);
+            ymin = Math.min(ymin, gene.y[i]);
+            ymax = Math.max(ymax, gene.y[i]);
+        }
+        // one pixel of padding for antialiasing
+        final int x0 = Math.max(xmin - 1, 0), y0 = Math.max(ymin - 1, 0);
+        final int x1 = Math.min(xmax + 2, width), y1 = Math.min(ymax + 2, height);
+        if (x0 >= x1 || y0 >= y1) {
+            return null;
+        }
+        return new int[] { x0, y0, x1 - x0, y1 - y0 };
+    }
+    
+    private CacheEntry renderSprite(Gene gene, int[] bounds) {
+        final BufferedImage image = ImageType.ARGB.createBufferedImage(bounds[2], bounds[3]);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.translate(-bounds[0], -bounds[1]);
+            gene.render(g);
+        } finally {
+            g.dispose();
+        }
+        return new CacheEntry(gene, image, bounds[0], bounds[1]);
+    }
+    
+    private void remove(CacheEntry entry) {
+        final int last = entries.size() - 1;
+        final CacheEntry moved = entries.get(last);
+        entries.set(entry.slot, moved);
+        moved.slot = entry.slot;
+        entries.remove(last);
+        entry.slot = -1;
+        cache.remove(entry.getGene());
+        sizeInBytes -= entry.getSizeInBytes();
+    }
+    
+    // tinylfu admission, a new sprite has to be used more frequently than all sprites it would replace
+    private List<CacheEntry> selectVictims(int frequency, long size) {
+        final List<CacheEntry> victims = Lists.newArrayList();
+        if (size > maxSizeInBytes) {
+            return null;
+        }
+        long freed = 0;
+        while (sizeInBytes - freed + size > maxSizeInBytes) {
+            CacheEntry victim = null;
+            int victimFrequency = Integer.MAX_VALUE;
+            for (int i = 0; i < EvictionSamples && i < entries.size(); i++) {
+                hand = (hand + 1) % entries.size();
+                final CacheEntry candidate = entries.get(hand);
+                if (victims.contains(candidate)) {
+                    continue;
+                }
+                final int f = sketch.frequency(candidate.getGene().hashCode());
+                if (f < victimFrequency) {
+                    victim = candidate;
+                    victimFrequency = f;
+                }
+            }
+            if (victim == null || victimFrequency >= frequency) {
+                return null;
+            }
+            victims.add(victim);
+            freed += victim.getSizeInBytes();
+        }
+        return victims;
+    }
+    
+    // sprites are only rendered if they have a chance to be admitted
+    private boolean isAdmissible(Gene gene, long size) {
+        final int frequency = sketch.frequency(gene.hashCode());
+        synchronized (entries) {
+            if (selectVictims(frequency, size) == null) {
+                ++rejections;
+                return false;
+            }
+            return true;
+        }
+    }
+    
+    private void admit(CacheEntry entry) {
+        final int frequency = sketch.frequency(entry.getGene().hashCode());
+        synchronized (entries) {
+            if (cache.containsKey(entry.getGene())) {
+                return;
+            }
+            final List<CacheEntry> victims = selectVictims(frequency, entry.getSizeInBytes());
+            if (victims == null) {
+                ++rejections;
+                return;
+            }
+            for (final CacheEntry victim : victims) {
+                remove(victim);
+                ++evictions;
+            }
+            entry.slot = entries.size();
+            entries.add(entry);
+            sizeInBytes += entry.getSizeInBytes();
+            cache.put(entry.getGene(), entry);
+        }
+    }
+    
+    private void request(Genome genome) {
+        final ExecutorService executor = workerThreads;
+        if (executor == null) {
+            return;
+        }
+        for (final Gene gene : genome.genes) {
+            if (cache.containsKey(gene) || pending.putIfAbsent(gene, Boolean.TRUE) != null) {
+                continue;
+            }
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final int[] bounds = computeBounds(gene);
+                        if (bounds != null && isAdmissible(gene, 4L * bounds[2] * bounds[3])) {
+                            admit(renderSprite(gene, bounds));
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        pending.remove(gene);
+                    }
+                }
+            });
+        }
+    }
+    
+    private void clear() {
+        synchronized (entries) {
+            entries.clear();
+            cache.clear();
+            pending.clear();
+            sizeInBytes = 0;
+            hand = 0;
+        }
+    }
+
+    public PolygonCache(int width, int height, long maxSizeInBytes, int numberOfThreads) {
         Preconditions.checkArgument(width > 0, "The parameter 'width' has to be greater than zero");
         Preconditions.checkArgument(height > 0, "The parameter 'height' has to be greater than zero");
+        Preconditions.checkArgument(maxSizeInBytes > 0, "The parameter 'maxSizeInBytes' has to be greater than zero");
+        Preconditions.checkArgument(numberOfThreads > 0, "The parameter 'numberOfThreads' has to be greater than zero");
         this.width = width;
         this.height = height;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.numberOfThreads = numberOfThreads;
+        this.sketch = new FrequencySketch(4096);
+    }
+
+    public PolygonCache(int width, int height) {
+        this(width, height, DefaultMaxSizeInBytes, Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
     }
 
     public VectorizerListener getListener() {
@@ -91,146 +263,51 @@ public class PolygonCache {
     public int getSize() {
         return cache.size();
     }
-
-    public CacheEntry get(Gene gene) {
-        Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
-        CacheEntry entry = cache.get(gene);
-        if (entry != null) {
-            entry.touch();
-            return entry;
-        } else {
-            entry = temp.get(gene);
-            if (entry != null) {
-                entry.touch();
-            }
-        }
-        return null;
+    
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
     }
-
-    private class WorkerThread implements Runnable {
-
-        private final Color Transparent = new Color(0, 0, 0, 0);
-        private final ExecutorService owner;
-
-        private void renderPolygon(CacheEntry entry, Image buffer) {
-
-            buffer.getGraphics().setBackground(Transparent);
-            buffer.getGraphics().clearRect(0, 0, buffer.getWidth(), buffer.getHeight());
-            entry.getGene().render(buffer.getGraphics());
-
-            final int w = buffer.getWidth(), h = buffer.getHeight();
-            final int[] data = buffer.readData();
-
-            int lx = w, rx = 0, ty = h, by = 0;
-            for (int y = 0; y < h; y++) {
-                for (int x = 0, i = y * w; i < y * w + w; x++, i++) {
-                    final int argb = data[i];
-                    final int a = (argb >> 24) & 0x000000FF;
-                    if (a > 0) {
-                        if (x < lx)
-                            lx = x;
-                        if (x > rx)
-                            rx = x;
-                        if (y < ty)
-                            ty = y;
-                        if (y > by)
-                            by = y;
-                    }
-                }
-            }
-            ++rx;
-            ++by;
-
-            final int width = rx - lx, height = by - ty;
-            final BufferedImage result = ImageType.ARGB.createBufferedImage(width, height);
-            final Graphics2D g = result.createGraphics();
-            g.setBackground(Transparent);
-            g.clearRect(0, 0, width, height);
-            g.drawImage(buffer.getImage(), 0, 0, width, height, lx, ty, rx, by, null);
-
-            entry.setImage(result, lx, ty);
-        }
-
-        private void drainQueue(final List<Genome> genomes) {
-            try {
-                final Genome head = queue.poll(500, TimeUnit.MILLISECONDS);
-                if (head != null) {
-                    genomes.add(head);
-                    queue.drainTo(genomes);
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-
-        private void processQueue() {
-            final List<Genome> genomes = Lists.newArrayList();
-            drainQueue(genomes);
-            for (final Genome genome : genomes) {
-                for (final Gene gene : genome.genes) {
-                    CacheEntry entry = temp.get(gene);
-                    if (entry == null) {
-                        entry = cache.get(gene);
-                    }
-                    if (entry != null) {
-                        entry.touch();
-                    } else {
-                        temp.put(gene, new CacheEntry(gene));
-                    }
-                }
-            }
-        }
-
-        private void processTemp(Image buffer) {
-            final Collection<CacheEntry> entries = temp.values();
-            final List<CacheEntry> good = Lists.newArrayListWithCapacity(entries.size());
-            final List<CacheEntry> bad = Lists.newArrayListWithCapacity(entries.size());
-            for (final CacheEntry entry : entries) {
-                if (entry.getCreatedSince() >= 5000) {
-                    if (entry.getTouchedSince() <= 100) {
-                        good.add(entry);
-                    } else {
-                        bad.add(entry);
-                    }
-                }
-            }
-            for (final CacheEntry entry : bad) {
-                temp.remove(entry.getGene());
-            }
-            for (final CacheEntry entry : good) {
-                temp.remove(entry.getGene());
-                renderPolygon(entry, buffer);
-                cache.put(entry.getGene(), entry);
-            }
+    
+    public long getSizeInBytes() {
+        synchronized (entries) {
+            return sizeInBytes;
         }
-
-        private void processCache() {
-            final List<CacheEntry> bad = Lists.newArrayList();
-            for (final CacheEntry entry : cache.values()) {
-                if (entry.getTouchedSince() >= 5000) {
-                    bad.add(entry);
-                }
-            }
-            for (final CacheEntry entry : bad) {
-                cache.remove(entry.getGene());
-            }
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public double getHitRate() {
+        final long h = hits.get(), m = misses.get();
+        return h + m == 0 ? 0 : (double) h / (h + m);
+    }
+    
+    public long getEvictions() {
+        synchronized (entries) {
+            return evictions;
         }
-
-        public WorkerThread(ExecutorService owner) {
-            Preconditions.checkNotNull(owner, "The parameter 'owner' must not be null");
-            this.owner = owner;
-            owner.submit(this);
+    }
+    
+    public long getRejections() {
+        synchronized (entries) {
+            return rejections;
         }
+    }
 
-        @Override
-        public void run() {
-            Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-            final Image buffer = new Image(ImageType.ARGB, getWidth(), getHeight());
-            while (!owner.isShutdown()) {
-                processQueue();
-                processTemp(buffer);
-                processCache();
-            }
+    public CacheEntry get(Gene gene) {
+        Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
+        sketch.increment(gene.hashCode());
+        final CacheEntry entry = cache.get(gene);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
         }
+        return entry;
     }
 }
@@ -5,6 +5,7 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.images.Image;
 import ch.brotzilla.monalisa.images.ImageType;
 
@@ -24,6 +25,25 @@ public abstract class Renderer {
     
     protected abstract void renderGenome(Genome genome, Graphics2D g);
     
+    protected void renderImage(Genome genome, int x, int y, int width, int height) {
+        final Graphics2D g = image.getGraphics();
+        final boolean clip = x > 0 || y > 0 || width < getWidth() || height < getHeight();
+        if (clip) {
+            g.setClip(x, y, width, height);
+        }
+        try {
+            renderBackground(genome, g);
+            renderGenome(genome, g);
+        } finally {
+            if (clip) {
+                g.setClip(null);
+            }
+        }
+        if (autoUpdateBuffer) {
+            image.updateBuffer(x, y, width, height);
+        }
+    }
+    
     public Renderer(int width, int height, boolean autoUpdateBuffer) {
         this.image = new Image(ImageType.ARGB, width, height);
         this.autoUpdateBuffer = autoUpdateBuffer;
@@ -64,14 +84,25 @@ public abstract class Renderer {
         return image.readData();
     }
     
+    public void updateImage() {
+        // nothing to do, java2d renders straight into the image
+    }
+    
     public final void render(Genome genome) {
         Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
-        final Graphics2D g = image.getGraphics();
-        renderBackground(genome, g);
-        renderGenome(genome, g);
-        if (autoUpdateBuffer) {
-            image.updateBuffer();
-        }
+        renderImage(genome, 0, 0, getWidth(), getHeight());
+    }
+    
+    public final void render(Genome genome, int x, int y, int width, int height) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        Preconditions.checkArgument(x >= 0 && y >= 0 && width > 0 && height > 0 && x + width <= getWidth() && y + height <= getHeight(), "The specified region is out of bounds");
+        renderImage(genome, x, y, width, height);
+    }
+
+    // renderers which cannot render packed genomes directly render the converted genome
+    public void render(PackedGenome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        render(genome.toGenome());
     }
 
 }
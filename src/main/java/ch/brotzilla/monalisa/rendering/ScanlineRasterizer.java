@@ -0,0 +1,175 @@
+package ch.brotzilla.monalisa.rendering;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+
+public class ScanlineRasterizer {
+
+    private Gene[] genes;
+    private PackedGenome packed;
+    private int numberOfGenes;
+
+    // first and last row covered by each gene
+    private int[] firstRows = new int[64], lastRows = new int[64];
+
+    private double[] crossings = new double[16];
+
+    private static int[] grow(int[] array, int length) {
+        if (array.length >= length) {
+            return array;
+        }
+        return new int[Math.max(length, array.length * 2)];
+    }
+
+    // the polygon consists of the points px[offset .. offset + length) and py[offset .. offset + length)
+    private int computeCrossings(int[] px, int[] py, int offset, int length, int y) {
+        if (crossings.length < length) {
+            crossings = new double[Math.max(length, crossings.length * 2)];
+        }
+        // rows are sampled at their centers, so an edge crosses row y if exactly one of its end points lies at or above y
+        final double yc = y + 0.5d;
+        int count = 0;
+        for (int i = offset, j = offset + length - 1; i < offset + length; j = i++) {
+            final int yi = py[i], yj = py[j];
+            if ((yi <= y) != (yj <= y)) {
+                final double x = px[i] + (yc - yi) * (px[j] - px[i]) / (yj - yi);
+                int k = count++;
+                while (k > 0 && crossings[k - 1] > x) {
+                    crossings[k] = crossings[k - 1];
+                    --k;
+                }
+                crossings[k] = x;
+            }
+        }
+        return count;
+    }
+
+    private static void blend(int[] data, int from, int to, int sa, int sr, int sg, int sb) {
+        if (sa == 0) {
+            return;
+        }
+        final int ia = 255 - sa;
+        final int src = (sa << 24) | (sr << 16) | (sg << 8) | sb;
+        final int pr = sr * sa, pg = sg * sa, pb = sb * sa;
+        for (int i = from; i < to; i++) {
+            final int d = data[i];
+            final int da = d >>> 24;
+            if (da == 255) {
+                final int r = (pr + ((d >> 16) & 0xFF) * ia + 127) / 255;
+                final int g = (pg + ((d >> 8) & 0xFF) * ia + 127) / 255;
+                final int b = (pb + (d & 0xFF) * ia + 127) / 255;
+                data[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            } else if (da == 0 || sa == 255) {
+                data[i] = src;
+            } else {
+                // source over for non premultiplied colors
+                final int fb = (da * ia + 127) / 255;
+                final int oa = sa + fb, half = oa >> 1;
+                final int r = (pr + ((d >> 16) & 0xFF) * fb + half) / oa;
+                final int g = (pg + ((d >> 8) & 0xFF) * fb + half) / oa;
+                final int b = (pb + (d & 0xFF) * fb + half) / oa;
+                data[i] = (oa << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    private void blendSpans(int count, int[] data, int offset, int xmin, int xmax, int sa, int sr, int sg, int sb) {
+        for (int k = 0; k + 1 < count; k += 2) {
+            // pixel x is covered if its center x + 0.5 lies inside the span
+            int x0 = (int) Math.ceil(crossings[k] - 0.5d);
+            int x1 = (int) Math.ceil(crossings[k + 1] - 0.5d);
+            if (x0 < xmin) x0 = xmin;
+            if (x1 > xmax) x1 = xmax;
+            if (x0 < x1) {
+                blend(data, offset + x0, offset + x1, sa, sr, sg, sb);
+            }
+        }
+    }
+
+    private static void computeRows(int[] py, int from, int to, int[] firstRows, int[] lastRows, int index) {
+        int ymin = Integer.MAX_VALUE, ymax = Integer.MIN_VALUE;
+        for (int j = from; j < to; j++) {
+            final int y = py[j];
+            if (y < ymin) ymin = y;
+            if (y > ymax) ymax = y;
+        }
+        firstRows[index] = ymin;
+        lastRows[index] = ymax - 1;
+    }
+
+    public void prepare(Gene[] genes) {
+        Preconditions.checkNotNull(genes, "The parameter 'genes' must not be null");
+        final int length = genes.length;
+        firstRows = grow(firstRows, length);
+        lastRows = grow(lastRows, length);
+        for (int i = 0; i < length; i++) {
+            final int[] py = genes[i].y;
+            computeRows(py, 0, py.length, firstRows, lastRows, i);
+        }
+        this.genes = genes;
+        this.packed = null;
+        this.numberOfGenes = length;
+    }
+
+    // packed genomes are rendered straight from their flat arrays
+    public void prepare(PackedGenome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int length = genome.countPolygons();
+        firstRows = grow(firstRows, length);
+        lastRows = grow(lastRows, length);
+        final int[] offsets = genome.offsets, lengths = genome.lengths;
+        for (int i = 0; i < length; i++) {
+            computeRows(genome.y, offsets[i], offsets[i] + lengths[i], firstRows, lastRows, i);
+        }
+        this.genes = null;
+        this.packed = genome;
+        this.numberOfGenes = length;
+    }
+
+    public int getNumberOfGenes() {
+        return numberOfGenes;
+    }
+
+    public void renderRow(int y, int[] data, int offset, int xmin, int xmax) {
+        renderRow(0, numberOfGenes, y, data, offset, xmin, xmax);
+    }
+
+    // blends the genes [from, to) into the pixels [xmin, xmax) of row y, data[offset + x] is the pixel at column x
+    public void renderRow(int from, int to, int y, int[] data, int offset, int xmin, int xmax) {
+        if (packed != null) {
+            renderPackedRow(from, to, y, data, offset, xmin, xmax);
+            return;
+        }
+        final Gene[] genes = this.genes;
+        for (int i = from; i < to; i++) {
+            if (y < firstRows[i] || y > lastRows[i]) {
+                continue;
+            }
+            final Gene gene = genes[i];
+            final int count = computeCrossings(gene.x, gene.y, 0, gene.x.length, y);
+            final int[] color = gene.color;
+            blendSpans(count, data, offset, xmin, xmax, color[0], color[1], color[2], color[3]);
+        }
+    }
+
+    private void renderPackedRow(int from, int to, int y, int[] data, int offset, int xmin, int xmax) {
+        final PackedGenome packed = this.packed;
+        final int[] px = packed.x, py = packed.y, offsets = packed.offsets, lengths = packed.lengths, colors = packed.colors;
+        for (int i = from; i < to; i++) {
+            if (y < firstRows[i] || y > lastRows[i]) {
+                continue;
+            }
+            final int count = computeCrossings(px, py, offsets[i], lengths[i], y);
+            final int color = colors[i];
+            blendSpans(count, data, offset, xmin, xmax, color >>> 24, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+        }
+    }
+
+    public void reset() {
+        genes = null;
+        packed = null;
+        numberOfGenes = 0;
+    }
+}
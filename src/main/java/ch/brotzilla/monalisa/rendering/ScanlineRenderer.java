@@ -0,0 +1,75 @@
+package ch.brotzilla.monalisa.rendering;
+
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
+import ch.brotzilla.monalisa.images.Image;
+
+public class ScanlineRenderer extends Renderer {
+
+    protected final ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+
+    // renders the rows [y, y + height) into the buffer, the pixels [x, x + width) have already been cleared
+    protected void renderRows(Genome genome, int[] buffer, int x, int y, int width, int height) {
+        final int imageWidth = getWidth();
+        rasterizer.prepare(genome.genes);
+        for (int row = y; row < y + height; row++) {
+            rasterizer.renderRow(row, buffer, row * imageWidth, x, x + width);
+        }
+        rasterizer.reset();
+    }
+
+    @Override
+    protected void renderGenome(Genome genome, Graphics2D g) {
+        // only used if rendered through java2d
+        genome.renderGenes(g);
+    }
+
+    @Override
+    protected void renderImage(Genome genome, int x, int y, int width, int height) {
+        final int[] buffer = image.getBuffer();
+        final int imageWidth = getWidth();
+        for (int row = y; row < y + height; row++) {
+            final int offset = row * imageWidth;
+            Arrays.fill(buffer, offset + x, offset + x + width, 0);
+        }
+        renderRows(genome, buffer, x, y, width, height);
+    }
+
+    // renders a packed genome without converting it, the result is identical to rendering the corresponding genome
+    @Override
+    public void render(PackedGenome genome) {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final int[] buffer = image.getBuffer();
+        final int imageWidth = getWidth(), imageHeight = getHeight();
+        Arrays.fill(buffer, 0, imageWidth * imageHeight, 0);
+        rasterizer.prepare(genome);
+        for (int row = 0; row < imageHeight; row++) {
+            rasterizer.renderRow(row, buffer, row * imageWidth, 0, imageWidth);
+        }
+        rasterizer.reset();
+    }
+
+    public ScanlineRenderer(int width, int height) {
+        super(width, height, true);
+    }
+
+    public ScanlineRenderer(Image image) {
+        super(image, true);
+    }
+
+    @Override
+    public int[] readData() {
+        return image.getBuffer();
+    }
+
+    @Override
+    public void updateImage() {
+        image.getRaster().setDataElements(0, 0, getWidth(), getHeight(), image.getBufferObject());
+    }
+
+}
@@ -1,16 +1,15 @@
 package ch.brotzilla.monalisa.utils;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import com.google.common.base.Preconditions;
 
+import ch.brotzilla.monalisa.codecs.Codec;
+import ch.brotzilla.monalisa.codecs.Codecs;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.images.ImageData;
 
@@ -20,17 +19,39 @@ public class Compression {
     
     public static final Charset UTF8 = Charset.forName("UTF-8");
 
-    public static ImageData decodeImageData(byte[] input) throws IOException {
+    // blobs start with the gzip magic (legacy) or with the id of the codec which compressed the rest
+    public static boolean isLegacy(byte[] input) {
+        return input.length >= 2 && (input[0] & 0xFF) == 0x1F && (input[1] & 0xFF) == 0x8B;
+    }
+    
+    // images received from untrusted sources are limited to the specified decoded size in bytes
+    public static ImageData decodeImageData(byte[] input, int maxDecodedSize) throws IOException {
+        Preconditions.checkArgument(maxDecodedSize > 0, "The parameter 'maxDecodedSize' has to be greater than zero");
         if (input == null || input.length == 0)
             return null;
         
-        return ImageData.deserialize(din(input));
+        if (isLegacy(input))
+            return ImageData.deserialize(din(input), maxDecodedSize);
+        
+        return ImageData.fromBytes(unwrap(input, maxDecodedSize));
     }
     
+    public static ImageData decodeImageData(byte[] input) throws IOException {
+        return decodeImageData(input, Integer.MAX_VALUE);
+    }
+    
+    // deltas cannot be decoded without their keyframe, see Database.queryLatestGenome()
     public static Genome decodeGenome(byte[] input) throws IOException {
         if (input == null || input.length == 0)
             return null;
         
+        return GenomeCodec.decode(input);
+    }
+    
+    public static Genome decodeLegacyGenome(byte[] input) throws IOException {
+        if (input == null || input.length == 0)
+            return null;
+        
         return Genome.deserialize(din(input));
     }
     
@@ -38,6 +59,13 @@ public class Compression {
         if (input == null || input.length == 0)
             return null;
         
+        if (isLegacy(input))
+            return decodeLegacyString(input);
+        
+        return new String(unwrap(input, Integer.MAX_VALUE), UTF8);
+    }
+    
+    private static String decodeLegacyString(byte[] input) throws IOException {
         final DataInputStream din = din(input);
         
         final int len = din.readInt();
@@ -55,47 +83,53 @@ public class Compression {
     }
 
     public static byte[] encode(ImageData data) throws IOException {
+        return encode(data, Codecs.Default);
+    }
+
+    public static byte[] encode(ImageData data, Codec codec) throws IOException {
+        Preconditions.checkNotNull(codec, "The parameter 'codec' must not be null");
         if (data == null)
             return null;
         
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream(100 * 1024);
-        final GZIPOutputStream gzout = new GZIPOutputStream(bout);
-        final DataOutputStream dout = new DataOutputStream(gzout);
-        
-        ImageData.serialize(data, dout);
-        dout.close();
-        
-        return bout.toByteArray();
+        return wrap(ImageData.toBytes(data), codec);
     }
 
+    // encodes the genome as keyframe, use a GenomeCodec to store consecutive genomes as deltas
     public static byte[] encode(Genome genome) throws IOException {
         if (genome == null)
             return null;
         
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream(100 * 1024);
-        final GZIPOutputStream gzout = new GZIPOutputStream(bout);
-        final DataOutputStream dout = new DataOutputStream(gzout);
-        
-        Genome.serialize(genome, dout);
-        dout.close();
-        
-        return bout.toByteArray();
+        return new GenomeCodec(1).encode(genome);
     }
 
     public static byte[] encode(String input) throws IOException {
+        return encode(input, Codecs.Default);
+    }
+
+    public static byte[] encode(String input, Codec codec) throws IOException {
+        Preconditions.checkNotNull(codec, "The parameter 'codec' must not be null");
         if (input == null || input.length() == 0)
             return null;
         
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream(10 * 1024);
-        final GZIPOutputStream gzout = new GZIPOutputStream(bout);
-        final DataOutputStream dout = new DataOutputStream(gzout);
-
-        final byte[] utf8 = input.getBytes(UTF8);
-        dout.writeInt(utf8.length);
-        dout.write(utf8, 0, utf8.length);
-        dout.close();
-        
-        return bout.toByteArray();
+        return wrap(input.getBytes(UTF8), codec);
+    }
+    
+    // prepends the id of the codec, the first byte can never be mistaken for the gzip magic of legacy blobs
+    private static byte[] wrap(byte[] raw, Codec codec) throws IOException {
+        byte[] compressed = codec.compress(raw, 0, raw.length);
+        // noisy photos or short strings hardly compress with the faster codecs, in which case the raw bytes are cheaper to read
+        if (compressed.length >= raw.length) {
+            codec = Codecs.Raw;
+            compressed = raw;
+        }
+        final byte[] result = new byte[compressed.length + 1];
+        result[0] = (byte) codec.getID();
+        System.arraycopy(compressed, 0, result, 1, compressed.length);
+        return result;
+    }
+    
+    private static byte[] unwrap(byte[] input, int maxLength) throws IOException {
+        return Codecs.forID(input[0]).decompress(input, 1, input.length - 1, maxLength);
     }
     
     private static DataInputStream din(byte[] input) throws IOException {
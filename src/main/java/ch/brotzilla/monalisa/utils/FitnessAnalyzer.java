@@ -17,18 +17,13 @@ public class FitnessAnalyzer {
     
     protected double computeFitness(Genome genome) {
         Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
-        renderer.render(genome);
-        if (renderer.getAutoUpdateBuffer()) {
-            return config.getFitnessFunction().compute(config, genome, renderer.getBuffer());
-        } else {
-            return config.getFitnessFunction().compute(config, genome, renderer.readData());
-        }
+        return config.getFitnessFunction().compute(config, genome, renderer);
     }
     
     public FitnessAnalyzer(VectorizerConfig config) {
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
         this.config = config;
-        this.renderer = config.createRenderer();
+        this.renderer = config.getFitnessFunction().needsRenderer() ? config.createRenderer() : null;
         this.targetData = config.getVectorizerContext().getTargetImageData();
         this.importanceMap = config.getVectorizerContext().getImportanceMapData();
     }
@@ -0,0 +1,364 @@
+package ch.brotzilla.monalisa.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.codecs.Codec;
+import ch.brotzilla.monalisa.codecs.Codecs;
+import ch.brotzilla.monalisa.evolution.genes.Gene;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+
+// compact storage format for genomes, version 0 is the gzipped Genome.serialize format, which is still read
+//   version 1, keyframe: header, gene count, all genes
+//   version 2, delta:    keyframe id, header, gene count, the genes which differ from the keyframe
+// integers are varints, coordinates are zigzag encoded deltas to the previous vertex or to the vertex of the keyframe gene
+// the upper four bits of the version byte hold the id of the codec which compressed the rest of a keyframe, deltas are too small to be worth it
+public class GenomeCodec {
+
+    public static final byte KeyframeVersion = 1;
+    public static final byte DeltaVersion = 2;
+    public static final int DefaultKeyframeInterval = 32;
+
+    private final int keyframeInterval;
+    private final Codec codec;
+
+    // the last keyframe written by this codec, deltas are encoded against it
+    private Genome keyframe;
+    private int keyframeSize, deltasSinceKeyframe;
+
+    private byte[] buffer = new byte[4096];
+    private int position;
+
+    private void ensure(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(position + bytes, buffer.length * 2));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeSignedVarint(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeDouble(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+    private void writeHeader(Genome genome) {
+        writeDouble(genome.fitness);
+        writeVarint(genome.numberOfImprovements);
+        writeVarint(genome.numberOfMutations);
+        writeVarint(genome.genes.length);
+    }
+
+    private void writeColor(Gene gene) {
+        final int[] color = gene.color;
+        writeByte(color[0]);
+        writeByte(color[1]);
+        writeByte(color[2]);
+        writeByte(color[3]);
+    }
+
+    private void writeGene(Gene gene) {
+        final int[] x = gene.x, y = gene.y;
+        writeColor(gene);
+        writeVarint(x.length);
+        int px = 0, py = 0;
+        for (int i = 0; i < x.length; i++) {
+            writeSignedVarint(x[i] - px);
+            writeSignedVarint(y[i] - py);
+            px = x[i];
+            py = y[i];
+        }
+    }
+
+    // genes with the same number of points as the keyframe gene are stored as vertex deltas
+    private void writeGeneDelta(Gene gene, Gene reference) {
+        if (reference == null || reference.x.length != gene.x.length) {
+            writeByte(0);
+            writeGene(gene);
+            return;
+        }
+        writeByte(1);
+        writeColor(gene);
+        final int[] x = gene.x, y = gene.y, rx = reference.x, ry = reference.y;
+        for (int i = 0; i < x.length; i++) {
+            writeSignedVarint(x[i] - rx[i]);
+            writeSignedVarint(y[i] - ry[i]);
+        }
+    }
+
+    private byte[] encodeKeyframe(Genome genome) throws IOException {
+        position = 0;
+        writeByte(KeyframeVersion);
+        writeHeader(genome);
+        for (final Gene gene : genome.genes) {
+            writeGene(gene);
+        }
+        if (codec.getID() != Codecs.Raw.getID()) {
+            final byte[] compressed = codec.compress(buffer, 1, position - 1);
+            if (compressed.length + 1 < position) {
+                final byte[] result = new byte[compressed.length + 1];
+                result[0] = (byte) ((codec.getID() << 4) | KeyframeVersion);
+                System.arraycopy(compressed, 0, result, 1, compressed.length);
+                return result;
+            }
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private byte[] encodeDelta(Genome genome) {
+        final Gene[] genes = genome.genes, reference = keyframe.genes;
+        position = 0;
+        writeByte(DeltaVersion);
+        writeVarint(keyframe.numberOfImprovements);
+        writeHeader(genome);
+        int changed = 0;
+        for (int i = 0; i < genes.length; i++) {
+            if (i >= reference.length || (genes[i] != reference[i] && !genes[i].equals(reference[i]))) {
+                ++changed;
+            }
+        }
+        writeVarint(changed);
+        int previous = -1;
+        for (int i = 0; i < genes.length; i++) {
+            final Gene ref = i < reference.length ? reference[i] : null;
+            if (ref != null && (genes[i] == ref || genes[i].equals(ref))) {
+                continue;
+            }
+            writeVarint(i - previous - 1);
+            writeGeneDelta(genes[i], ref);
+            previous = i;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public GenomeCodec(int keyframeInterval, Codec codec) {
+        Preconditions.checkArgument(keyframeInterval > 0, "The parameter 'keyframeInterval' has to be greater than zero");
+        Preconditions.checkNotNull(codec, "The parameter 'codec' must not be null");
+        this.keyframeInterval = keyframeInterval;
+        this.codec = codec;
+    }
+
+    public GenomeCodec(int keyframeInterval) {
+        this(keyframeInterval, Codecs.Default);
+    }
+
+    public GenomeCodec() {
+        this(DefaultKeyframeInterval);
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    // genomes have to be stored in the order they are encoded, a delta can only be decoded once its keyframe has been stored
+    public byte[] encode(Genome genome) throws IOException {
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        if (keyframe != null && deltasSinceKeyframe < keyframeInterval && genome.numberOfImprovements != keyframe.numberOfImprovements) {
+            final byte[] delta = encodeDelta(genome);
+            // a keyframe is cheaper as soon as the genome has drifted too far away from the last one
+            if (delta.length <= keyframeSize / 2) {
+                ++deltasSinceKeyframe;
+                return delta;
+            }
+        }
+        final byte[] result = encodeKeyframe(genome);
+        keyframe = genome;
+        // deltas are compared to the uncompressed size of the keyframe
+        keyframeSize = position;
+        deltasSinceKeyframe = 0;
+        return result;
+    }
+
+    // the next genome is encoded as keyframe, e.g. because the last keyframe could not be stored
+    public void reset() {
+        keyframe = null;
+        keyframeSize = 0;
+        deltasSinceKeyframe = 0;
+    }
+
+    public static boolean isLegacy(byte[] data) {
+        return data.length >= 2 && (data[0] & 0xFF) == 0x1F && (data[1] & 0xFF) == 0x8B;
+    }
+
+    // returns the id (number of improvements) of the keyframe the data refers to or -1 if the data can be decoded on its own
+    public static int getKeyframe(byte[] data) throws IOException {
+        Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
+        if (isLegacy(data) || data.length == 0 || data[0] != DeltaVersion) {
+            return -1;
+        }
+        return new Reader(data, 1).readVarint();
+    }
+
+    public static Genome decode(byte[] data, Genome keyframe) throws IOException {
+        Preconditions.checkNotNull(data, "The parameter 'data' must not be null");
+        if (isLegacy(data)) {
+            return Compression.decodeLegacyGenome(data);
+        }
+        Preconditions.checkState(data.length > 0, "Unable to decode genome, no data");
+        final int version = data[0] & 0x0F, codecId = (data[0] & 0xFF) >>> 4;
+        final Reader in = codecId == 0 ? new Reader(data, 1) : new Reader(Codecs.forID(codecId).decompress(data, 1, data.length - 1, Integer.MAX_VALUE), 0);
+        switch (version) {
+        case KeyframeVersion:
+            return in.readKeyframe();
+        case DeltaVersion:
+            final int keyframeId = in.readVarint();
+            Preconditions.checkState(keyframe != null && keyframe.numberOfImprovements == keyframeId, "Unable to decode genome, keyframe " + keyframeId + " required");
+            return in.readDelta(keyframe);
+        default:
+            throw new IOException("Unable to decode genome, version not supported (" + version + ")");
+        }
+    }
+
+    public static Genome decode(byte[] data) throws IOException {
+        return decode(data, null);
+    }
+
+    private static Genome createGenome(Gene[] genes, double fitness, int numberOfImprovements, int numberOfMutations) {
+        final Genome result = new Genome(genes, false);
+        result.fitness = fitness;
+        result.numberOfImprovements = numberOfImprovements;
+        result.numberOfMutations = numberOfMutations;
+        return result;
+    }
+
+    private static class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Unable to decode genome, unexpected end of data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private int readVarint() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Unable to decode genome, malformed varint");
+        }
+
+        private int readSignedVarint() throws IOException {
+            final int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private int[] readColor() throws IOException {
+            return new int[] { readByte(), readByte(), readByte(), readByte() };
+        }
+
+        private Gene readGene() throws IOException {
+            final int[] color = readColor();
+            final int length = readVarint();
+            Preconditions.checkState(length >= 3, "Unable to decode genome, too few coordinates");
+            final int[] x = new int[length], y = new int[length];
+            int px = 0, py = 0;
+            for (int i = 0; i < length; i++) {
+                px += readSignedVarint();
+                py += readSignedVarint();
+                x[i] = px;
+                y[i] = py;
+            }
+            return new Gene(x, y, color, false);
+        }
+
+        private Gene readGeneDelta(Gene reference) throws IOException {
+            if (readByte() == 0) {
+                return readGene();
+            }
+            Preconditions.checkState(reference != null, "Unable to decode genome, keyframe gene missing");
+            final int[] color = readColor();
+            final int length = reference.x.length;
+            final int[] x = new int[length], y = new int[length];
+            for (int i = 0; i < length; i++) {
+                x[i] = reference.x[i] + readSignedVarint();
+                y[i] = reference.y[i] + readSignedVarint();
+            }
+            return new Gene(x, y, color, false);
+        }
+
+        private int readLength() throws IOException {
+            final int length = readVarint();
+            Preconditions.checkState(length > 0, "Unable to decode genome, too few genes");
+            return length;
+        }
+
+        private Genome readKeyframe() throws IOException {
+            final double fitness = readDouble();
+            final int numberOfImprovements = readVarint(), numberOfMutations = readVarint();
+            final Gene[] genes = new Gene[readLength()];
+            for (int i = 0; i < genes.length; i++) {
+                genes[i] = readGene();
+            }
+            return createGenome(genes, fitness, numberOfImprovements, numberOfMutations);
+        }
+
+        // unchanged genes are shared with the keyframe
+        private Genome readDelta(Genome keyframe) throws IOException {
+            final double fitness = readDouble();
+            final int numberOfImprovements = readVarint(), numberOfMutations = readVarint();
+            final Gene[] target = new Gene[readLength()], reference = keyframe.genes;
+            final boolean[] changed = new boolean[target.length];
+            final int count = readVarint();
+            int index = -1;
+            for (int i = 0; i < count; i++) {
+                index += readVarint() + 1;
+                Preconditions.checkState(index < target.length, "Unable to decode genome, gene index out of bounds");
+                target[index] = readGeneDelta(index < reference.length ? reference[index] : null);
+                changed[index] = true;
+            }
+            for (int i = 0; i < target.length; i++) {
+                if (!changed[i]) {
+                    Preconditions.checkState(i < reference.length, "Unable to decode genome, keyframe gene missing");
+                    target[i] = reference[i];
+                }
+            }
+            return createGenome(target, fitness, numberOfImprovements, numberOfMutations);
+        }
+    }
+}
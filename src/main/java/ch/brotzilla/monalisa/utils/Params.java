@@ -8,6 +8,11 @@ import java.util.Random;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
+import ch.brotzilla.monalisa.codecs.Codec;
+import ch.brotzilla.monalisa.codecs.Codecs;
+import ch.brotzilla.monalisa.db.ConnectionProfile;
+import ch.brotzilla.monalisa.db.RetentionPolicy;
+
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 
@@ -41,11 +46,94 @@ public class Params {
     @Option(name = "--num-threads", metaVar = "Number", usage = "the number of threads to use")
     private int numThreads = 4;
     
+    @Option(name = "--islands", metaVar = "Number", usage = "the number of islands evolving independently, 1 disables the island model")
+    private int numIslands = 1;
+
+    @Option(name = "--migration-interval", metaVar = "Milliseconds", usage = "the interval at which islands adopt the best genome of all islands")
+    private long migrationInterval = 60000;
+    
     @Option(name = "--show-gui", metaVar = "Switch", usage = "displays a simple graphical user interface")
     private boolean showGui = false;
 
+    @Option(name = "--renderer", metaVar = "Name", usage = "the renderer to use, either 'java2d' (default) or 'scanline'")
+    private String rendererName = "java2d";
+
+    @Option(name = "--fused-fitness", metaVar = "Switch", usage = "rasterizes and scores genomes in a single pass, requires the scanline renderer")
+    private boolean fusedFitness = false;
+
+    @Option(name = "--parallel-fitness", metaVar = "Switch", usage = "scores horizontal tiles of each candidate concurrently, meant for very large images")
+    private boolean parallelFitness = false;
+
+    @Option(name = "--incremental", metaVar = "Switch", usage = "evaluates mutations incrementally by re-rendering only the regions which have changed")
+    private boolean incremental = false;
+
+    @Option(name = "--packed", metaVar = "Switch", usage = "mutates and scores candidates in a packed representation without copying their genes, requires the scanline renderer")
+    private boolean packed = false;
+
+    @Option(name = "--batch-size", metaVar = "Number", usage = "the number of mutants each thread evaluates before it submits the best one, 0 adapts the batch size to the acceptance rate")
+    private int batchSize = 1;
+
+    @Option(name = "--storage-interval", metaVar = "Milliseconds", usage = "stores at most one genome per interval, the newest one, 0 stores every improvement")
+    private long storageInterval = 10000;
+
+    @Option(name = "--db-profile", metaVar = "Name", usage = "the sqlite tuning profile, either 'default' (wal, normal sync) or 'durable' (wal, full sync)")
+    private String connectionProfileName = "default";
+    private ConnectionProfile connectionProfile;
+
+    @Option(name = "--genome-storage", metaVar = "Name", usage = "where new sessions store their genomes, either 'sqlite' (in the database) or 'journal' (in an append only file next to it)")
+    private String genomeStorage = "sqlite";
+
+    @Option(name = "--compact-interval", metaVar = "Seconds", usage = "thins out the stored history in the background at the specified interval, 0 keeps every stored genome")
+    private int compactionInterval = 0;
+
+    @Option(name = "--keep-all", metaVar = "Seconds", usage = "compaction keeps every genome stored within the specified number of seconds")
+    private int keepAll = 3600;
+
+    @Option(name = "--keep-every", metaVar = "Number", usage = "compaction keeps one genome per the specified number of improvements")
+    private int keepEvery = 100;
+
+    @Option(name = "--keep-log-after", metaVar = "Number", usage = "compaction doubles the spacing of older genomes with every doubling of their distance beyond the specified number of improvements, 0 disables")
+    private int keepLogAfter = 10000;
+    private RetentionPolicy retentionPolicy;
+
+    @Option(name = "--codec", metaVar = "Name", usage = "compresses stored images and genome keyframes, either 'lz' (fast), 'deflate', 'gzip' or 'none'")
+    private String codecName = "lz";
+    private Codec codec;
+
+    @Option(name = "--coordinator", metaVar = "Port", usage = "accepts remote workers on the specified port")
+    private int coordinatorPort = 0;
+
+    @Option(name = "--worker", metaVar = "Host:Port", usage = "runs as remote worker of the coordinator at the specified address")
+    private String workerAddress;
+    private String workerHost;
+    private int workerPort;
+
     @Option(name = "--export-latest", metaVar = "File", usage = "exports the latest genome file as an svg document to the specified directory")
     private File exportLatest;
+
+    @Option(name = "--batch", metaVar = "File", usage = "vectorizes all images of a folder or all images listed in a text file, one session per image is created in the session root folder")
+    private File batch;
+
+    @Option(name = "--max-concurrent", metaVar = "Number", usage = "the number of images vectorized at the same time in batch mode, 0 uses one image per thread")
+    private int maxConcurrent = 0;
+
+    @Option(name = "--target-fitness", metaVar = "Number", usage = "stops the vectorization as soon as its fitness is less than or equal to the specified value")
+    private double targetFitness = 0;
+
+    @Option(name = "--max-improvements", metaVar = "Number", usage = "stops the vectorization after the specified number of improvements")
+    private int maxImprovements = 0;
+
+    @Option(name = "--max-mutations", metaVar = "Number", usage = "stops the vectorization after the specified number of mutations")
+    private long maxMutations = 0;
+
+    @Option(name = "--max-time", metaVar = "Seconds", usage = "stops the vectorization after the specified number of seconds")
+    private long maxTime = 0;
+
+    @Option(name = "--min-improvement-rate", metaVar = "Number", usage = "stops the vectorization as soon as it finds less than the specified number of improvements per minute")
+    private double minImprovementRate = 0;
+
+    @Option(name = "--improvement-window", metaVar = "Seconds", usage = "the sliding window over which --min-improvement-rate is measured")
+    private long improvementWindow = 300;
     
     public Params(String[] args) {
         Preconditions.checkNotNull(args, "The parameter 'args' must not be null");
@@ -118,10 +206,38 @@ public class Params {
         return numThreads;
     }
     
+    public int getNumIslands() {
+        return numIslands;
+    }
+    
+    public long getMigrationInterval() {
+        return migrationInterval;
+    }
+    
     public boolean getShowGui() {
         return showGui;
     }
 
+    public String getRendererName() {
+        return rendererName;
+    }
+
+    public boolean getFusedFitness() {
+        return fusedFitness;
+    }
+
+    public boolean getParallelFitness() {
+        return parallelFitness;
+    }
+
+    public boolean getIncremental() {
+        return incremental;
+    }
+
+    public boolean getPacked() {
+        return packed;
+    }
+
     public String getBackgroundColorName() {
         return backgroundColorName;
     }
@@ -134,11 +250,131 @@ public class Params {
         return exportLatest;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getCoordinatorPort() {
+        return coordinatorPort;
+    }
+
+    public String getWorkerAddress() {
+        return workerAddress;
+    }
+
+    public String getWorkerHost() {
+        return workerHost;
+    }
+
+    public int getWorkerPort() {
+        return workerPort;
+    }
+
+    public boolean isWorker() {
+        return workerAddress != null;
+    }
+
+    public long getStorageInterval() {
+        return storageInterval;
+    }
+
+    public String getConnectionProfileName() {
+        return connectionProfileName;
+    }
+
+    public ConnectionProfile getConnectionProfile() {
+        return connectionProfile;
+    }
+
+    public String getGenomeStorage() {
+        return genomeStorage;
+    }
+
+    public long getCompactionInterval() {
+        return compactionInterval * 1000L;
+    }
+
+    public RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public File getBatch() {
+        return batch;
+    }
+
+    public boolean isBatch() {
+        return batch != null;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public double getTargetFitness() {
+        return targetFitness;
+    }
+
+    public int getMaxImprovements() {
+        return maxImprovements;
+    }
+
+    public long getMaxMutations() {
+        return maxMutations;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public double getMinImprovementRate() {
+        return minImprovementRate;
+    }
+
+    public long getImprovementWindow() {
+        return improvementWindow;
+    }
+
+    public boolean hasTerminationConditions() {
+        return targetFitness > 0 || maxImprovements > 0 || maxMutations > 0 || maxTime > 0 || minImprovementRate > 0;
+    }
+
     public boolean validate() {
         if (getNumArguments() == 0) {
             return false;
         }
-        if (sessionToResume != null) {
+        if (batch != null) {
+            if (targetImageFile != null || importanceMap != null || sessionToResume != null || workerAddress != null)
+                throw new IllegalArgumentException("--batch cannot be used with --image, --map, --resume or --worker");
+            if (coordinatorPort != 0 || exportLatest != null || showGui)
+                throw new IllegalArgumentException("--batch cannot be used with --coordinator, --export-latest or --show-gui");
+            if (!batch.exists())
+                throw new IllegalArgumentException("--batch has to be a folder or a file");
+            if (sessionRoot == null || !sessionRoot.isDirectory())
+                throw new IllegalArgumentException("--root has to be a directory");
+            if (maxConcurrent < 0)
+                throw new IllegalArgumentException("--max-concurrent must be greater than or equal to 0");
+            if (!hasTerminationConditions())
+                throw new IllegalArgumentException("--batch requires at least one of --target-fitness, --max-improvements, --max-mutations, --max-time or --min-improvement-rate");
+            if (numIslands > Math.max(numThreads / (maxConcurrent == 0 ? numThreads : maxConcurrent), 1))
+                throw new IllegalArgumentException("--islands must be less than or equal to the number of threads per image");
+        } else if (maxConcurrent != 0) {
+            throw new IllegalArgumentException("--max-concurrent requires --batch");
+        } else if (workerAddress != null) {
+            if (targetImageFile != null || importanceMap != null || sessionRoot != null || sessionToResume != null)
+                throw new IllegalArgumentException("--worker cannot be used with --image, --map, --root or --resume");
+            if (coordinatorPort != 0)
+                throw new IllegalArgumentException("--worker cannot be used with --coordinator");
+            if (exportLatest != null)
+                throw new IllegalArgumentException("--worker cannot be used with --export-latest");
+        } else if (sessionToResume != null) {
             if (targetImageFile != null)
                 throw new IllegalArgumentException("--image cannot be used with --resume");
             if (sessionRoot != null)
@@ -157,6 +393,42 @@ public class Params {
             throw new IllegalArgumentException("--export-latest has to be a directory");
         if (numThreads < 1) 
             throw new IllegalArgumentException("--num-threads must be greater than or equal to 1");
+        if (numIslands < 1) 
+            throw new IllegalArgumentException("--islands must be greater than or equal to 1");
+        if (numIslands > numThreads) 
+            throw new IllegalArgumentException("--islands must be less than or equal to --num-threads");
+        if (migrationInterval < 1) 
+            throw new IllegalArgumentException("--migration-interval must be greater than or equal to 1");
+        if (!"java2d".equals(rendererName) && !"scanline".equals(rendererName))
+            throw new IllegalArgumentException("--renderer has to be either 'java2d' or 'scanline'");
+        if (fusedFitness && !"scanline".equals(rendererName))
+            throw new IllegalArgumentException("--fused-fitness requires --renderer scanline");
+        if (packed && !"scanline".equals(rendererName))
+            throw new IllegalArgumentException("--packed requires --renderer scanline");
+        if (packed && incremental)
+            throw new IllegalArgumentException("--packed cannot be used with --incremental");
+        if (batchSize < 0)
+            throw new IllegalArgumentException("--batch-size must be greater than or equal to 0");
+        if (!"default".equals(connectionProfileName) && !"durable".equals(connectionProfileName))
+            throw new IllegalArgumentException("--db-profile has to be either 'default' or 'durable'");
+        if (!"sqlite".equals(genomeStorage) && !"journal".equals(genomeStorage))
+            throw new IllegalArgumentException("--genome-storage has to be either 'sqlite' or 'journal'");
+        if (compactionInterval > 0 && "journal".equals(genomeStorage))
+            throw new IllegalArgumentException("--compact-interval requires --genome-storage sqlite");
+        if (compactionInterval < 0 || keepAll < 0 || keepLogAfter < 0)
+            throw new IllegalArgumentException("--compact-interval, --keep-all and --keep-log-after must be greater than or equal to 0");
+        if (keepEvery < 1)
+            throw new IllegalArgumentException("--keep-every must be greater than or equal to 1");
+        if (Codecs.forName(codecName) == null)
+            throw new IllegalArgumentException("--codec has to be either 'lz', 'deflate', 'gzip' or 'none'");
+        if (storageInterval < 0)
+            throw new IllegalArgumentException("--storage-interval must be greater than or equal to 0");
+        if (targetFitness < 0 || maxImprovements < 0 || maxMutations < 0 || maxTime < 0 || minImprovementRate < 0)
+            throw new IllegalArgumentException("--target-fitness, --max-improvements, --max-mutations, --max-time and --min-improvement-rate must be greater than or equal to 0");
+        if (improvementWindow < 1)
+            throw new IllegalArgumentException("--improvement-window must be greater than or equal to 1");
+        if (coordinatorPort < 0 || coordinatorPort > 65535)
+            throw new IllegalArgumentException("--coordinator has to be a port in the range [1, 65535]");
         return true;
     }
 
@@ -167,6 +439,20 @@ public class Params {
         if (seed == 0) {
             seed = (new Random()).nextInt();
         }
+        if (workerAddress != null) {
+            final int index = workerAddress.lastIndexOf(':');
+            try {
+                workerHost = workerAddress.substring(0, index);
+                workerPort = Integer.parseInt(workerAddress.substring(index + 1));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("--worker is not a valid address (" + workerAddress + ")");
+            }
+            if (workerHost.isEmpty() || workerPort < 1 || workerPort > 65535)
+                throw new IllegalArgumentException("--worker is not a valid address (" + workerAddress + ")");
+        }
+        connectionProfile = ConnectionProfile.forName(connectionProfileName);
+        codec = Codecs.forName(codecName);
+        retentionPolicy = new RetentionPolicy.Builder().setKeepAllFor(keepAll * 1000L).setKeepEvery(keepEvery).setLogarithmicAfter(keepLogAfter).build();
         if (backgroundColorName != null && !backgroundColorName.isEmpty()) {
             try {
                 backgroundColor = Utils.decodeColor(backgroundColorName);
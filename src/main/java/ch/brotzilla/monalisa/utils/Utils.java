@@ -86,9 +86,13 @@ public class Utils {
         Preconditions.checkNotNull(x, "The parameter 'x' must not be null");
         Preconditions.checkNotNull(y, "The parameter 'y' must not be null");
         Preconditions.checkArgument(x.length == y.length, "The length of the parameters 'x' and 'y' has to be equal");
-        final int len = x.length;
+        return computeBoundingBox(x, y, 0, x.length, xEnlargementFactor, yEnlargementFactor);
+    }
+
+    // the polygon consists of the points x[offset .. offset + length) and y[offset .. offset + length), e.g. of a packed genome
+    public static BoundingBox computeBoundingBox(int[] x, int[] y, int offset, int length, double xEnlargementFactor, double yEnlargementFactor) {
         int xmin = Integer.MAX_VALUE, xmax = Integer.MIN_VALUE, ymin = Integer.MAX_VALUE, ymax = Integer.MIN_VALUE;
-        for (int i = 0; i < len; i++) {
+        for (int i = offset; i < offset + length; i++) {
             final int px = x[i], py = y[i];
             if (px < xmin) xmin = px;
             if (px > xmax) xmax = px;
@@ -175,22 +179,27 @@ public class Utils {
 
     public static boolean isSelfIntersecting(Gene gene) {
         Preconditions.checkNotNull(gene, "The parameter 'gene' must not be null");
-        final int len = gene.x.length;
+        return isSelfIntersecting(gene.x, gene.y, 0, gene.x.length);
+    }
+
+    // checks the polygon stored at x[offset .. offset + len) and y[offset .. offset + len)
+    public static boolean isSelfIntersecting(int[] x, int[] y, int offset, int len) {
+        Preconditions.checkNotNull(x, "The parameter 'x' must not be null");
+        Preconditions.checkNotNull(y, "The parameter 'y' must not be null");
         if (len < 4) {
             return false;
         }
         final int last = len - 1;
-        final int[] x = gene.x, y = gene.y;
         for (int lineA = 0; lineA < len - 2; lineA++) {
             for (int lineB = lineA + 2; lineB < len; lineB++) {
                 if (lineA == 0 && lineB == last) {
                     break;
                 }
-                final int ax1 = x[lineA], ay1 = y[lineA];
-                final int ax2 = x[lineA + 1], ay2 = y[lineA + 1];
-                final int bx1 = x[lineB], by1 = y[lineB];
-                final int bx2 = x[lineB == last ? 0 : lineB + 1];
-                final int by2 = y[lineB == last ? 0 : lineB + 1];
+                final int ax1 = x[offset + lineA], ay1 = y[offset + lineA];
+                final int ax2 = x[offset + lineA + 1], ay2 = y[offset + lineA + 1];
+                final int bx1 = x[offset + lineB], by1 = y[offset + lineB];
+                final int bx2 = x[offset + (lineB == last ? 0 : lineB + 1)];
+                final int by2 = y[offset + (lineB == last ? 0 : lineB + 1)];
                 if (Geometry.isLineIntersectingLine(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2)) {
                     return true;
                 }
@@ -0,0 +1,82 @@
+package ch.brotzilla.monalisa.vectorizer;
+
+import java.util.concurrent.ExecutorService;
+
+import ch.brotzilla.monalisa.db.Compactor;
+import ch.brotzilla.monalisa.db.Database;
+import ch.brotzilla.monalisa.db.RetentionPolicy;
+
+import com.google.common.base.Preconditions;
+
+// periodically thins out the stored history, works in small steps and pauses in between, so the storage thread never waits long for the write lock
+public class CompactionThread extends BasicThread {
+
+    private static final int GenomesPerStep = 256;
+    private static final int PagesPerStep = 256;
+    private static final long PauseBetweenSteps = 50;
+
+    private final RetentionPolicy policy;
+    private final long compactionInterval;
+
+    // returns false if the vectorizer is stopping
+    private boolean pause(long millis) {
+        final long until = System.currentTimeMillis() + millis;
+        while (!getExecutor().isShutdown()) {
+            final long remaining = until - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(Math.min(remaining, 100));
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void compact(Database db) throws Exception {
+        final Compactor compactor = new Compactor(db, policy);
+        while (compactor.step(GenomesPerStep)) {
+            if (!pause(PauseBetweenSteps)) {
+                return;
+            }
+        }
+        while (compactor.vacuum(PagesPerStep) > 0) {
+            if (!pause(PauseBetweenSteps)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected void execute() {
+
+        final Vectorizer v = getOwner();
+
+        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+
+        try (final Database db = v.getSession().connect()) {
+            while (pause(compactionInterval)) {
+                try {
+                    compact(db);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            v.getSession().disconnect();
+        }
+    }
+
+    public CompactionThread(Vectorizer owner, ExecutorService executor, RetentionPolicy policy, long compactionInterval) {
+        super(owner, executor);
+        Preconditions.checkNotNull(policy, "The parameter 'policy' must not be null");
+        Preconditions.checkArgument(compactionInterval > 0, "The parameter 'compactionInterval' has to be greater than zero");
+        this.policy = policy;
+        this.compactionInterval = compactionInterval;
+    }
+
+}
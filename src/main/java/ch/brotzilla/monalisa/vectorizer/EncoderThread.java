@@ -0,0 +1,84 @@
+package ch.brotzilla.monalisa.vectorizer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ch.brotzilla.monalisa.codecs.Codec;
+import ch.brotzilla.monalisa.db.EncodedGenome;
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.utils.GenomeCodec;
+
+import com.google.common.base.Preconditions;
+
+// first stage of the storage pipeline, encodes the newest genome of each flush window and hands it to the storage thread
+public class EncoderThread extends BasicThread {
+
+    private final BlockingQueue<Genome> storageQueue;
+    private final BlockingQueue<EncodedGenome> encodedQueue;
+    private final long flushInterval;
+    private final AtomicBoolean storageFailed;
+
+    // deltas refer to the previous keyframe, so all genomes of a session have to pass the same codec in order
+    private final GenomeCodec codec;
+
+    private Genome pending;
+    private long timeLastFlushed = 0;
+
+    // improvements are published in order, so the newest genome of the queue is the best one
+    private void collect(Genome genome) {
+        while (genome != null) {
+            if (flushInterval == 0) {
+                flush();
+            }
+            pending = genome;
+            genome = storageQueue.poll();
+        }
+    }
+
+    private void flush() {
+        if (pending == null) {
+            return;
+        }
+        // a failed write may have lost the keyframe the next delta would refer to
+        if (storageFailed.getAndSet(false)) {
+            codec.reset();
+        }
+        try {
+            encodedQueue.offer(new EncodedGenome(pending.fitness, pending.numberOfImprovements, pending.countPolygons(), codec.encode(pending)));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        pending = null;
+        timeLastFlushed = System.currentTimeMillis();
+    }
+
+    @Override
+    protected void execute() throws InterruptedException {
+        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+        while (!getExecutor().isShutdown()) {
+            collect(storageQueue.poll(100, TimeUnit.MILLISECONDS));
+            if (System.currentTimeMillis() - timeLastFlushed >= flushInterval) {
+                flush();
+            }
+        }
+        // the vectorizer has stopped, the newest genome is stored regardless of the flush window
+        collect(storageQueue.poll());
+        flush();
+    }
+
+    public EncoderThread(Vectorizer owner, ExecutorService executor, BlockingQueue<Genome> storageQueue, BlockingQueue<EncodedGenome> encodedQueue, long flushInterval, Codec codec, AtomicBoolean storageFailed) {
+        super(owner, executor);
+        Preconditions.checkNotNull(storageQueue, "The parameter 'storageQueue' must not be null");
+        Preconditions.checkNotNull(encodedQueue, "The parameter 'encodedQueue' must not be null");
+        Preconditions.checkArgument(flushInterval >= 0, "The parameter 'flushInterval' has to be greater than or equal to zero");
+        Preconditions.checkNotNull(storageFailed, "The parameter 'storageFailed' must not be null");
+        this.storageQueue = storageQueue;
+        this.encodedQueue = encodedQueue;
+        this.flushInterval = flushInterval;
+        this.storageFailed = storageFailed;
+        this.codec = new GenomeCodec(GenomeCodec.DefaultKeyframeInterval, codec);
+    }
+
+}
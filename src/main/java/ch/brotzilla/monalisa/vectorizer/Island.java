@@ -0,0 +1,108 @@
+package ch.brotzilla.monalisa.vectorizer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
+import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
+import ch.brotzilla.util.MersenneTwister;
+
+public class Island {
+
+    private final int index;
+    private final MersenneTwister rng;
+    private final EvolutionStrategy evolutionStrategy;
+    private final Object evolutionStrategyLock;
+    private final long migrationInterval;
+
+    private final Object lock = new Object();
+    private volatile Genome latestGenome;
+    private final AtomicLong timeLastMigrated;
+
+    public Island(int index, MersenneTwister rng, EvolutionStrategy evolutionStrategy, Object evolutionStrategyLock, Genome latestGenome, long migrationInterval) {
+        Preconditions.checkArgument(index >= 0, "The parameter 'index' has to be greater than or equal to zero");
+        Preconditions.checkNotNull(rng, "The parameter 'rng' must not be null");
+        Preconditions.checkArgument(migrationInterval > 0, "The parameter 'migrationInterval' has to be greater than zero");
+        this.index = index;
+        this.rng = rng;
+        this.evolutionStrategy = evolutionStrategy;
+        // evolution strategies shared between islands have to be applied by one island at a time
+        this.evolutionStrategyLock = evolutionStrategyLock != null ? evolutionStrategyLock : lock;
+        this.latestGenome = latestGenome;
+        this.migrationInterval = migrationInterval;
+        this.timeLastMigrated = new AtomicLong(System.currentTimeMillis());
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public EvolutionStrategy getEvolutionStrategy() {
+        return evolutionStrategy;
+    }
+
+    public long getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public Genome getLatestGenome() {
+        return latestGenome;
+    }
+
+    public boolean isMigrationDue() {
+        return System.currentTimeMillis() - timeLastMigrated.get() >= migrationInterval;
+    }
+
+    // returns the new latest genome of this island or null if the candidate has been rejected
+    public Genome improve(VectorizerConfig config, Genome genome) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        Preconditions.checkNotNull(genome, "The parameter 'genome' must not be null");
+        final FitnessFunction fc = config.getFitnessFunction();
+        synchronized (lock) {
+            final Genome latest = latestGenome;
+            if (latest == genome) {
+                return null;
+            }
+            Genome result = genome;
+            if (evolutionStrategy != null) {
+                synchronized (evolutionStrategyLock) {
+                    result = evolutionStrategy.apply(rng, config, result, latest == null || fc.isImprovement(latest, result));
+                }
+            }
+            if (result == null || (latest != null && !result.overrideFitness && !fc.isImprovement(latest, result))) {
+                return null;
+            }
+            latestGenome = result;
+            return result;
+        }
+    }
+
+    // returns the new latest genome of this island or null if the migration is not due, has been claimed by another thread or the migrant is not better
+    // the migrant bypasses the evolution strategy, which would reject it if this island has grown more polygons in the meantime
+    public Genome migrate(VectorizerConfig config, Genome migrant) {
+        Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
+        final long last = timeLastMigrated.get(), now = System.currentTimeMillis();
+        if (now - last < migrationInterval || !timeLastMigrated.compareAndSet(last, now)) {
+            return null;
+        }
+        if (migrant == null) {
+            return null;
+        }
+        final FitnessFunction fc = config.getFitnessFunction();
+        synchronized (lock) {
+            final Genome latest = latestGenome;
+            if (latest == migrant || (latest != null && !fc.isImprovement(latest, migrant))) {
+                return null;
+            }
+            if (evolutionStrategy != null) {
+                synchronized (evolutionStrategyLock) {
+                    evolutionStrategy.adopt(migrant);
+                }
+            }
+            latestGenome = migrant;
+            return migrant;
+        }
+    }
+}
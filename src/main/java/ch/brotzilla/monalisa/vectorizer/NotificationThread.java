@@ -0,0 +1,71 @@
+package ch.brotzilla.monalisa.vectorizer;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+public class NotificationThread extends BasicThread {
+
+    private final BlockingQueue<Genome> notificationQueue;
+    private final long updateInterval;
+
+    private long lastUpdateFired = -1;
+
+    private void fireImproved(List<Genome> genomes) {
+        final Vectorizer v = getOwner();
+        for (final Genome genome : genomes) {
+            try {
+                v.fireImproved(genome);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        genomes.clear();
+        lastUpdateFired = System.currentTimeMillis();
+    }
+
+    private void fireUpdate() {
+        final Vectorizer v = getOwner();
+        v.updateTickRate();
+        v.checkTerminationConditions();
+        if (lastUpdateFired < 0 || System.currentTimeMillis() - lastUpdateFired >= updateInterval) {
+            lastUpdateFired = System.currentTimeMillis();
+            try {
+                v.fireUpdate();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    protected void execute() throws InterruptedException {
+        final List<Genome> genomes = Lists.newArrayList();
+        while (!getExecutor().isShutdown()) {
+            final Genome genome = notificationQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (genome != null) {
+                genomes.add(genome);
+                notificationQueue.drainTo(genomes);
+                fireImproved(genomes);
+            }
+            fireUpdate();
+        }
+        notificationQueue.drainTo(genomes);
+        fireImproved(genomes);
+    }
+
+    public NotificationThread(Vectorizer owner, ExecutorService executor, BlockingQueue<Genome> notificationQueue, long updateInterval) {
+        super(owner, executor);
+        Preconditions.checkNotNull(notificationQueue, "The parameter 'notificationQueue' must not be null");
+        Preconditions.checkArgument(updateInterval > 0, "The parameter 'updateInterval' has to be greater than zero");
+        this.notificationQueue = notificationQueue;
+        this.updateInterval = updateInterval;
+    }
+
+}
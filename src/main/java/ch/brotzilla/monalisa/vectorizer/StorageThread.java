@@ -1,49 +1,95 @@
 package ch.brotzilla.monalisa.vectorizer;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import ch.brotzilla.monalisa.db.Database;
-import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.db.EncodedGenome;
+import ch.brotzilla.monalisa.db.GenomeStorage;
+import ch.brotzilla.monalisa.utils.GenomeCodec;
 
-import com.almworks.sqlite4java.SQLiteException;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
+// second stage of the storage pipeline, writes all genomes encoded in the meantime inside a single transaction
 public class StorageThread extends BasicThread {
     
-    private final BlockingQueue<Genome> storageQueue;
+    private final BlockingQueue<EncodedGenome> encodedQueue;
+    private final AtomicBoolean storageFailed;
+
+    // set after a failed write until the next keyframe arrives, the deltas in between refer to a keyframe which may not have been stored
+    private boolean awaitingKeyframe;
+
+    private void drain(List<EncodedGenome> batch, EncodedGenome genome) throws IOException {
+        final List<EncodedGenome> drained = Lists.newArrayList();
+        drained.add(genome);
+        encodedQueue.drainTo(drained);
+        for (final EncodedGenome g : drained) {
+            if (awaitingKeyframe && GenomeCodec.getKeyframe(g.data) >= 0) {
+                continue;
+            }
+            awaitingKeyframe = false;
+            batch.add(g);
+        }
+    }
+
+    private void write(GenomeStorage storage, List<EncodedGenome> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            storage.insertGenomes(batch);
+        } catch (Exception e) {
+            e.printStackTrace();
+            // the encoder starts over with a keyframe, so the stored history stays decodable
+            awaitingKeyframe = true;
+            storageFailed.set(true);
+        }
+        batch.clear();
+    }
 
     @Override
-    protected void execute() throws IOException, SQLiteException {
+    protected void execute() {
         
         final Vectorizer v = getOwner();
         
         Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
 
-        long timeLastStored = 0;
-        try (final Database db = v.getSession().connect()) {
+        final List<EncodedGenome> batch = Lists.newArrayList();
+        try (final GenomeStorage storage = v.getSession().openStorage()) {
             while (!getExecutor().isShutdown()) {
                 try {
-                    final Genome genome = storageQueue.poll(250, TimeUnit.MILLISECONDS);
-                    if (genome != null && System.currentTimeMillis() - timeLastStored >= 10000) {
-                        db.insertGenome(genome);
-                        timeLastStored = System.currentTimeMillis();
+                    final EncodedGenome genome = encodedQueue.poll(250, TimeUnit.MILLISECONDS);
+                    if (genome != null) {
+                        drain(batch, genome);
+                        write(storage, batch);
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
+            // the encoder thread has already been stopped, so the queue contains everything which is left to store
+            final EncodedGenome genome = encodedQueue.poll();
+            if (genome != null) {
+                drain(batch, genome);
+                write(storage, batch);
+            }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            v.getSession().disconnect();
         }
     }
 
-    public StorageThread(Vectorizer owner, ExecutorService executor, BlockingQueue<Genome> storageQueue) {
+    public StorageThread(Vectorizer owner, ExecutorService executor, BlockingQueue<EncodedGenome> encodedQueue, AtomicBoolean storageFailed) {
         super(owner, executor);
-        Preconditions.checkNotNull(storageQueue, "The parameter 'storageQueue' must not be null");
-        this.storageQueue = storageQueue;
+        Preconditions.checkNotNull(encodedQueue, "The parameter 'encodedQueue' must not be null");
+        Preconditions.checkNotNull(storageFailed, "The parameter 'storageFailed' must not be null");
+        this.encodedQueue = encodedQueue;
+        this.storageFailed = storageFailed;
     }
     
 }
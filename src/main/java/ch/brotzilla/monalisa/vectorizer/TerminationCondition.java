@@ -0,0 +1,13 @@
+package ch.brotzilla.monalisa.vectorizer;
+
+// evaluated periodically by the vectorizer, which stops itself as soon as one condition is satisfied
+public interface TerminationCondition {
+
+    // called whenever the vectorizer starts, budgets are measured from this point on
+    void started(Vectorizer vectorizer);
+
+    boolean isSatisfied(Vectorizer vectorizer);
+
+    String getDescription();
+
+}
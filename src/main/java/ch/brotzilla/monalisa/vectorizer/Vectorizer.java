@@ -2,14 +2,19 @@ package ch.brotzilla.monalisa.vectorizer;
 
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Queues;
 
+import ch.brotzilla.monalisa.db.EncodedGenome;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
@@ -21,44 +26,72 @@ public class Vectorizer {
 
     // created on construction
     private final List<VectorizerListener> listeners;
+    private final List<TerminationCondition> terminationConditions;
     private final TickRate tickrate;
 
     // supplied by the user
     private final SessionManager session;
     private final VectorizerConfig config;
     
+    // optional pool shared by several vectorizers, worker threads of a shared pool stop as soon as this vectorizer stops
+    private final ExecutorService sharedWorkerThreads;
+    
     // created on startup
     private MersenneTwister seeds, rng;
     private ExecutorService workerThreads;
+    private List<Future<?>> workerFutures;
     private BlockingQueue<Genome> storageQueue;
+    private ExecutorService encoderThread;
+    private BlockingQueue<EncodedGenome> encodedQueue;
     private ExecutorService storageThread;
+    private ExecutorService compactionThread;
+    private BlockingQueue<Genome> notificationQueue;
+    private ExecutorService notificationThread;
+    private Island[] islands;
 
     // internal state
-    private State state = State.Stopped;
-    private long lastUpdateFired;
+    private final Object improvementLock = new Object();
+    private final Object stateLock = new Object();
+    private volatile State state = State.Stopped;
+    private volatile TerminationCondition terminatedBy;
     
     public enum State {
         Running, Stopping, Stopped
     }
 
-    public Vectorizer(SessionManager session, VectorizerConfig config) {
+    public Vectorizer(SessionManager session, VectorizerConfig config, ExecutorService sharedWorkerThreads) {
         Preconditions.checkNotNull(session, "The parameter 'session' must not be null");
         Preconditions.checkNotNull(config, "The parameter 'config' must not be null");
         Preconditions.checkArgument(session.getVectorizerContext() == config.getVectorizerContext(), "The parameters 'session' and 'config' have to reference the same vectorizer context");
         this.listeners = Lists.newArrayList();
+        this.terminationConditions = Lists.newArrayList();
         this.tickrate = new TickRate(60);
         this.session = session;
         this.config = config;
+        this.sharedWorkerThreads = sharedWorkerThreads;
+    }
+    
+    public Vectorizer(SessionManager session, VectorizerConfig config) {
+        this(session, config, null);
     }
     
     public State getState() {
         return state;
     }
 
+    // the condition which stopped the last run or null if it has been stopped by the user
+    public TerminationCondition getTerminatedBy() {
+        return terminatedBy;
+    }
+
     public double getTickRate() {
         return tickrate.getTickRate();
     }
 
+    public Island[] getIslands() {
+        return islands;
+    }
+
     public SessionManager getSession() {
         return session;
     }
@@ -77,6 +110,12 @@ public class Vectorizer {
     }
 
     public void start() {
+        synchronized (stateLock) {
+            doStart();
+        }
+    }
+    
+    private void doStart() {
         if (state != State.Stopped) {
             throw new IllegalStateException("Unable to start vectorizer");
         }
@@ -85,23 +124,54 @@ public class Vectorizer {
         rng = new MersenneTwister(nextSeed());
 
         state = State.Running;
-        lastUpdateFired = -1;
         tickrate.reset();
+        terminatedBy = null;
+        for (final TerminationCondition c : terminationConditions) {
+            c.started(this);
+        }
         
-        storageQueue = Queues.newLinkedBlockingQueue();
-        storageThread = Executors.newFixedThreadPool(1);
-        storageThread.submit(new StorageThread(this, storageThread, storageQueue));
+        // sessions without a database (remote workers) leave storage to the coordinator
+        if (getSession().hasDatabase()) {
+            // both queues are unbounded, storage must never block the worker threads
+            storageQueue = Queues.newLinkedBlockingQueue();
+            encodedQueue = Queues.newLinkedBlockingQueue();
+            // the storage thread reports failed writes, so the encoder does not keep encoding deltas against a lost keyframe
+            final AtomicBoolean storageFailed = new AtomicBoolean();
+            encoderThread = Executors.newFixedThreadPool(1);
+            encoderThread.submit(new EncoderThread(this, encoderThread, storageQueue, encodedQueue, getSession().getParams().getStorageInterval(), getSession().getParams().getCodec(), storageFailed));
+            storageThread = Executors.newFixedThreadPool(1);
+            storageThread.submit(new StorageThread(this, storageThread, encodedQueue, storageFailed));
+            // the journal is append only
+            if (getSession().getParams().getCompactionInterval() > 0 && !getSession().isJournaled()) {
+                compactionThread = Executors.newFixedThreadPool(1);
+                compactionThread.submit(new CompactionThread(this, compactionThread, getSession().getParams().getRetentionPolicy(), getSession().getParams().getCompactionInterval()));
+            }
+        }
+
+        notificationQueue = Queues.newLinkedBlockingQueue();
+        notificationThread = Executors.newFixedThreadPool(1);
+        notificationThread.submit(new NotificationThread(this, notificationThread, notificationQueue, 1000));
+
+        final int numIslands = getSession().getNumberOfIslands();
+        islands = numIslands > 1 ? createIslands(numIslands, getSession().getMigrationInterval()) : null;
 
         final int numThreads = getSession().getParams().getNumThreads();
-        workerThreads = Executors.newFixedThreadPool(numThreads);
+        workerThreads = sharedWorkerThreads != null ? sharedWorkerThreads : Executors.newFixedThreadPool(numThreads);
+        workerFutures = Lists.newArrayListWithCapacity(numThreads);
         for (int i = 0; i < numThreads; i++) {
-            workerThreads.submit(new WorkerThread(this, workerThreads));
+            workerFutures.add(workerThreads.submit(new WorkerThread(this, workerThreads, islands == null ? null : islands[i % islands.length])));
         }
 
         fireStarted(getSession().getVectorizerContext().getLatestGenome());
     }
 
     public void stop() {
+        synchronized (stateLock) {
+            doStop();
+        }
+    }
+    
+    private void doStop() {
         if (state != State.Running) {
             return;
         }
@@ -112,60 +182,208 @@ public class Vectorizer {
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            storageThread.shutdown();
-            workerThreads.shutdown();
-            try {
-                storageThread.awaitTermination(10, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            if (sharedWorkerThreads == null) {
+                workerThreads.shutdown();
             }
-            try {
-                workerThreads.awaitTermination(10, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            awaitWorkerThreads(10, TimeUnit.SECONDS);
+            // the worker threads have stopped, so the storage pipeline can be flushed stage by stage without losing the latest genome
+            if (compactionThread != null) {
+                shutdownAndAwait(compactionThread, 10, TimeUnit.SECONDS);
+            }
+            if (storageThread != null) {
+                shutdownAndAwait(encoderThread, 10, TimeUnit.SECONDS);
+                shutdownAndAwait(storageThread, 10, TimeUnit.SECONDS);
             }
+            shutdownAndAwait(notificationThread, 10, TimeUnit.SECONDS);
         } finally {
             state = State.Stopped;
+            encoderThread = null;
+            encodedQueue = null;
             storageThread = null;
+            compactionThread = null;
             workerThreads = null;
+            workerFutures = null;
+            notificationThread = null;
             storageQueue = null;
+            notificationQueue = null;
+            islands = null;
             fireStopped();
         }
     }
 
-    public synchronized Genome submit(Genome genome) {
+    // called periodically by the notification thread, which cannot stop the vectorizer itself because stop() waits for it
+    void checkTerminationConditions() {
+        if (state != State.Running || terminatedBy != null) {
+            return;
+        }
+        for (final TerminationCondition c : terminationConditions) {
+            if (c.isSatisfied(this)) {
+                terminatedBy = c;
+                final Thread t = new Thread("Vectorizer Termination") {
+                    @Override
+                    public void run() {
+                        Vectorizer.this.stop();
+                    }
+                };
+                t.setDaemon(true);
+                t.start();
+                return;
+            }
+        }
+    }
+
+    private static void shutdownAndAwait(ExecutorService executor, long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // a shared pool cannot be shut down, so the worker threads of this vectorizer are awaited one by one
+    private void awaitWorkerThreads(long timeout, TimeUnit unit) {
+        try {
+            if (sharedWorkerThreads == null) {
+                workerThreads.awaitTermination(timeout, unit);
+                return;
+            }
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (final Future<?> future : workerFutures) {
+                try {
+                    future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Island[] createIslands(int numIslands, long migrationInterval) {
+        final VectorizerConfig c = getConfig();
+        final Genome latest = c.getVectorizerContext().getLatestGenome();
+        final Island[] result = new Island[numIslands];
+        // islands share the configured evolution strategy if there is no factory to create one per island
+        final Object sharedLock = c.getEvolutionStrategyFactory() == null ? new Object() : null;
+        for (int i = 0; i < numIslands; i++) {
+            final EvolutionStrategy es = sharedLock == null ? c.createEvolutionStrategy() : c.getEvolutionStrategy();
+            result[i] = new Island(i, new MersenneTwister(nextSeed()), es, sharedLock, latest, migrationInterval);
+        }
+        return result;
+    }
+
+    private void publish(Genome genome) {
+        final VectorizerContext vc = getConfig().getVectorizerContext();
+        final FitnessFunction fc = getConfig().getFitnessFunction();
+        
+        Genome latest = vc.getLatestGenome();
+        if (latest != null && !fc.isImprovement(latest, genome)) {
+            return;
+        }
+        
+        synchronized (improvementLock) {
+            latest = vc.getLatestGenome();
+            if (latest != null && !fc.isImprovement(latest, genome)) {
+                return;
+            }
+            genome.numberOfImprovements = vc.getNumberOfImprovements() + 1;
+            genome.numberOfMutations = vc.getNumberOfMutations();
+            vc.setLatestGenome(genome);
+            vc.incNumberOfImprovements();
+            if (storageQueue != null) {
+                storageQueue.offer(genome);
+            }
+            notificationQueue.offer(genome);
+        }
+    }
+
+    public Genome submit(Island island, Genome genome) {
+        if (island == null) {
+            return submit(genome);
+        }
         if (state != State.Running || genome == null) {
             return null;
         }
         
-        final VectorizerConfig c = getConfig();
-        final VectorizerContext vc = c.getVectorizerContext();
-        final EvolutionStrategy es = c.getEvolutionStrategy();
-        final FitnessFunction fc = c.getFitnessFunction();
-        final Genome latest = vc.getLatestGenome();
-        final int numberOfMutations = vc.incNumberOfMutations();
+        final VectorizerContext vc = getConfig().getVectorizerContext();
+        final FitnessFunction fc = getConfig().getFitnessFunction();
+        final Genome latest = island.getLatestGenome();
+
+        vc.incNumberOfMutations();
+
+        if (latest == null || genome.overrideFitness || fc.isImprovement(latest, genome)) {
+            genome.markShared();
+            final Genome improved = island.improve(getConfig(), genome);
+            if (improved != null) {
+                // only genomes which beat the best genome of all islands are stored
+                publish(improved);
+            }
+        }
         
-        if (es != null) {
-            genome = es.apply(rng, c, genome, latest == null || fc.isImprovement(latest, genome));
+        if (island.isMigrationDue()) {
+            island.migrate(getConfig(), vc.getLatestGenome());
         }
+        
+        return island.getLatestGenome();
+    }
 
-        if (genome != null && (latest == null || genome.overrideFitness || fc.isImprovement(latest, genome))) {
-            genome.numberOfImprovements = vc.incNumberOfImprovements();
-            genome.numberOfMutations = numberOfMutations;
-            vc.setLatestGenome(genome);
-            storageQueue.offer(genome);
-            fireImproved(genome);
-            lastUpdateFired = System.currentTimeMillis();
+    public Genome submit(Genome genome) {
+        if (state != State.Running || genome == null) {
+            return null;
         }
         
-        tickrate.tick();
+        final VectorizerContext vc = getConfig().getVectorizerContext();
+        final FitnessFunction fc = getConfig().getFitnessFunction();
+        final Genome latest = vc.getLatestGenome();
+        
+        vc.incNumberOfMutations();
 
-        if (lastUpdateFired < 0 || System.currentTimeMillis() - lastUpdateFired >= 1000) {
-            lastUpdateFired = System.currentTimeMillis();
-            fireUpdate();
+        // the vast majority of all candidates is rejected without taking any lock
+        if (latest != null && !genome.overrideFitness && !fc.isImprovement(latest, genome)) {
+            return latest;
         }
         
-        return vc.getLatestGenome();
+        // candidates which pass the lock-free check may be kept by the evolution strategy or the vectorizer
+        genome.markShared();
+        return improve(genome);
+    }
+    
+    private Genome improve(Genome genome) {
+        final VectorizerConfig c = getConfig();
+        final VectorizerContext vc = c.getVectorizerContext();
+        final EvolutionStrategy es = c.getEvolutionStrategy();
+        final FitnessFunction fc = c.getFitnessFunction();
+        
+        // evolution strategies are stateful and therefore applied by one thread at a time
+        synchronized (improvementLock) {
+            while (true) {
+                final Genome latest = vc.getLatestGenome();
+                Genome result = genome;
+                
+                if (es != null) {
+                    result = es.apply(rng, c, result, latest == null || fc.isImprovement(latest, result));
+                }
+                
+                if (result == null || (latest != null && !result.overrideFitness && !fc.isImprovement(latest, result))) {
+                    return latest;
+                }
+                
+                result.numberOfImprovements = vc.getNumberOfImprovements() + 1;
+                result.numberOfMutations = vc.getNumberOfMutations();
+                if (vc.compareAndSetLatestGenome(latest, result)) {
+                    vc.incNumberOfImprovements();
+                    if (storageQueue != null) {
+                        storageQueue.offer(result);
+                    }
+                    notificationQueue.offer(result);
+                    return result;
+                }
+            }
+        }
     }
 
     public void addListener(VectorizerListener listener) {
@@ -185,19 +403,40 @@ public class Vectorizer {
         listeners.remove(listener);
     }
     
+    public void addTerminationCondition(TerminationCondition condition) {
+        Preconditions.checkNotNull(condition, "The parameter 'condition' must not be null");
+        if (state != State.Stopped) {
+            throw new IllegalStateException("Termination conditions cannot be added while vectorizer is running");
+        }
+        if (!terminationConditions.contains(condition)) {
+            terminationConditions.add(condition);
+        }
+    }
+
+    public void removeTerminationCondition(TerminationCondition condition) {
+        if (state != State.Stopped) {
+            throw new IllegalStateException("Termination conditions cannot be removed while vectorizer is running");
+        }
+        terminationConditions.remove(condition);
+    }
+    
     private void fireStarted(Genome latest) {
         for (VectorizerListener l : listeners) {
             l.started(this, latest);
         }
     }
 
-    private void fireImproved(Genome latest) {
+    void updateTickRate() {
+        tickrate.update(getConfig().getVectorizerContext().getNumberOfMutations());
+    }
+
+    void fireImproved(Genome latest) {
         for (VectorizerListener l : listeners) {
             l.improved(this, latest);
         }
     }
 
-    private void fireUpdate() {
+    void fireUpdate() {
         for (VectorizerListener l : listeners) {
             l.update(this);
         }
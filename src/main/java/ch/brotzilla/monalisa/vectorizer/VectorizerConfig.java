@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 
 import ch.brotzilla.monalisa.evolution.constraints.MutationConstraints;
 import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategy;
+import ch.brotzilla.monalisa.evolution.intf.EvolutionStrategyFactory;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
 import ch.brotzilla.monalisa.evolution.intf.GenomeFactory;
 import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
@@ -16,6 +17,7 @@ public class VectorizerConfig {
     private final VectorizerContext vectorizerContext;
     private final MutationConfig mutationConfig;
     private final EvolutionStrategy evolutionStrategy;
+    private final EvolutionStrategyFactory evolutionStrategyFactory;
     private final MutationStrategy mutationStrategy;
     private final GenomeFactory genomeFactory;
     private final RendererFactory rendererFactory;
@@ -28,6 +30,7 @@ public class VectorizerConfig {
         this.vectorizerContext = builder.getVectorizerContext();
         this.mutationConfig = builder.getMutationConfig();
         this.evolutionStrategy = builder.getEvolutionStrategy();
+        this.evolutionStrategyFactory = builder.getEvolutionStrategyFactory();
         this.mutationStrategy = builder.getMutationStrategy();
         this.genomeFactory = builder.getGenomeFactory();
         this.rendererFactory = builder.getRendererFactory();
@@ -55,6 +58,10 @@ public class VectorizerConfig {
         return evolutionStrategy;
     }
 
+    public EvolutionStrategyFactory getEvolutionStrategyFactory() {
+        return evolutionStrategyFactory;
+    }
+
     public MutationStrategy getMutationStrategy() {
         return mutationStrategy;
     }
@@ -75,6 +82,16 @@ public class VectorizerConfig {
         return fitnessFunction;
     }
 
+    // returns null if no factory has been configured
+    public EvolutionStrategy createEvolutionStrategy() {
+        if (evolutionStrategyFactory == null) {
+            return null;
+        }
+        final EvolutionStrategy result = evolutionStrategyFactory.createEvolutionStrategy(this);
+        Preconditions.checkState(result != null, "The evolution strategy factory must not return null");
+        return result;
+    }
+
     public Renderer createRenderer() {
         final Renderer result = getRendererFactory().createRenderer(this);
         Preconditions.checkState(result != null, "The renderer factory must not return null");
@@ -86,6 +103,7 @@ public class VectorizerConfig {
         private VectorizerContext vectorizerContext;
         private MutationConfig mutationConfig;
         private EvolutionStrategy evolutionStrategy;
+        private EvolutionStrategyFactory evolutionStrategyFactory;
         private MutationStrategy mutationStrategy;
         private GenomeFactory genomeFactory;
         private RendererFactory rendererFactory;
@@ -139,6 +157,15 @@ public class VectorizerConfig {
             return this;
         }
 
+        public EvolutionStrategyFactory getEvolutionStrategyFactory() {
+            return evolutionStrategyFactory;
+        }
+
+        public Builder setEvolutionStrategyFactory(EvolutionStrategyFactory value) {
+            this.evolutionStrategyFactory = value;
+            return this;
+        }
+
         public MutationStrategy getMutationStrategy() {
             return mutationStrategy;
         }
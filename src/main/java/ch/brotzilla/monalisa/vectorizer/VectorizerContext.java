@@ -1,9 +1,16 @@
 package ch.brotzilla.monalisa.vectorizer;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import ch.brotzilla.monalisa.evolution.fitness.TileErrorCache;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
 import ch.brotzilla.monalisa.images.ImageData;
+import ch.brotzilla.monalisa.images.PlanarTarget;
+import ch.brotzilla.monalisa.rendering.CompositeLayers;
+import ch.brotzilla.util.StripedCounter;
 
 import com.google.common.base.Preconditions;
 
@@ -12,10 +19,16 @@ public class VectorizerContext {
     // image data
     private final ImageData targetImage, importanceMap;
     private final int[] targetImageData, importanceMapData;
+    private final PlanarTarget planarTarget;
 
     // vectorization state
-    private Genome latestGenome;
-    private int numberOfGenomes, numberOfMutations, numberOfImprovements;
+    private final AtomicReference<Genome> latestGenome;
+    private final AtomicReference<TileErrorCache> tileErrorCache;
+    private final AtomicReference<CompositeLayers> compositeLayers;
+    private final AtomicBoolean compositeLayersUpdating;
+    private final StripedCounter numberOfMutations;
+    private final AtomicInteger numberOfImprovements;
+    private int numberOfGenomes;
 
     public VectorizerContext(ImageData targetImage, ImageData importanceMap, int numberOfGenomes, Genome latestGenome) {
         Preconditions.checkNotNull(targetImage, "The parameter 'targetImage' must not be null");
@@ -28,14 +41,18 @@ public class VectorizerContext {
             this.importanceMapData = new int[targetImage.getWidth() * targetImage.getHeight()];
             Arrays.fill(importanceMapData, 255);
         }
+        this.planarTarget = new PlanarTarget(targetImage.getWidth(), targetImage.getHeight(), targetImageData, importanceMapData);
         this.numberOfGenomes = numberOfGenomes;
-        this.latestGenome = latestGenome;
+        this.latestGenome = new AtomicReference<Genome>(latestGenome);
+        this.tileErrorCache = new AtomicReference<TileErrorCache>();
+        this.compositeLayers = new AtomicReference<CompositeLayers>();
+        this.compositeLayersUpdating = new AtomicBoolean();
+        this.numberOfMutations = new StripedCounter();
         if (latestGenome != null) {
-            this.numberOfMutations = latestGenome.numberOfMutations;
-            this.numberOfImprovements = latestGenome.numberOfImprovements;
+            this.numberOfMutations.set(latestGenome.numberOfMutations);
+            this.numberOfImprovements = new AtomicInteger(latestGenome.numberOfImprovements);
         } else {
-            this.numberOfMutations = 0;
-            this.numberOfImprovements = 0;
+            this.numberOfImprovements = new AtomicInteger(0);
         }
     }
     
@@ -63,12 +80,63 @@ public class VectorizerContext {
         return importanceMapData;
     }
     
+    public PlanarTarget getPlanarTarget() {
+        return planarTarget;
+    }
+    
     public Genome getLatestGenome() {
-        return latestGenome;
+        return latestGenome.get();
+    }
+    
+    public void setLatestGenome(Genome value) {
+        latestGenome.set(value);
+        tileErrorCache.set(null);
+    }
+    
+    public boolean compareAndSetLatestGenome(Genome expected, Genome value) {
+        if (latestGenome.compareAndSet(expected, value)) {
+            tileErrorCache.set(null);
+            return true;
+        }
+        return false;
+    }
+    
+    // returns the cached tile errors of the specified genome or null if it is not the latest genome or has not been cached yet
+    public TileErrorCache getTileErrorCache(Genome genome) {
+        final TileErrorCache result = tileErrorCache.get();
+        if (result != null && result.getGenome() == genome) {
+            return result;
+        }
+        return null;
+    }
+    
+    // caches the tile errors of the latest genome, caches of genomes which have been replaced in the meantime are dropped
+    public boolean setTileErrorCache(TileErrorCache value) {
+        Preconditions.checkNotNull(value, "The parameter 'value' must not be null");
+        if (value.getGenome() != latestGenome.get()) {
+            return false;
+        }
+        tileErrorCache.set(value);
+        return true;
+    }
+    
+    // the layers may belong to an older genome, renderers rebuild them from the old ones after an improvement
+    public CompositeLayers getCompositeLayers() {
+        return compositeLayers.get();
+    }
+    
+    public void setCompositeLayers(CompositeLayers value) {
+        Preconditions.checkNotNull(value, "The parameter 'value' must not be null");
+        compositeLayers.set(value);
     }
     
-    public synchronized void setLatestGenome(Genome value) {
-        this.latestGenome = value;
+    // only one renderer at a time rebuilds the layers, returns false if another renderer is already doing so
+    public boolean beginCompositeLayersUpdate() {
+        return compositeLayersUpdating.compareAndSet(false, true);
+    }
+    
+    public void endCompositeLayersUpdate() {
+        compositeLayersUpdating.set(false);
     }
     
     public int getNumberOfGenomes() {
@@ -85,28 +153,33 @@ public class VectorizerContext {
     }
 
     public int getNumberOfMutations() {
-        return numberOfMutations;
+        return (int) numberOfMutations.get();
     }
     
-    public synchronized void setNumberOfMutations(int value) {
+    public void setNumberOfMutations(int value) {
         Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
-        numberOfMutations = value;
+        numberOfMutations.set(value);
     }
     
-    public synchronized int incNumberOfMutations() {
-        return ++numberOfMutations;
+    public void incNumberOfMutations() {
+        numberOfMutations.increment();
+    }
+    
+    public void addNumberOfMutations(int value) {
+        Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
+        numberOfMutations.add(value);
     }
 
     public int getNumberOfImprovements() {
-        return numberOfImprovements;
+        return numberOfImprovements.get();
     }
     
-    public synchronized void setNumberOfImprovements(int value) {
+    public void setNumberOfImprovements(int value) {
         Preconditions.checkArgument(value >= 0, "The parameter 'value' has to be greater than or equal to zero");
-        this.numberOfImprovements = value;
+        numberOfImprovements.set(value);
     }
     
-    public synchronized int incNumberOfImprovements() {
-        return ++numberOfImprovements;
+    public int incNumberOfImprovements() {
+        return numberOfImprovements.incrementAndGet();
     }
 }
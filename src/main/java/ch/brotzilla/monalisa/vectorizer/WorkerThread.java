@@ -2,7 +2,10 @@ package ch.brotzilla.monalisa.vectorizer;
 
 import java.util.concurrent.ExecutorService;
 
+import ch.brotzilla.monalisa.evolution.fitness.IncrementalFitnessEvaluator;
 import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.evolution.genes.GenomePool;
+import ch.brotzilla.monalisa.evolution.genes.PackedGenome;
 import ch.brotzilla.monalisa.evolution.intf.FitnessFunction;
 import ch.brotzilla.monalisa.evolution.intf.GenomeFactory;
 import ch.brotzilla.monalisa.evolution.intf.MutationStrategy;
@@ -11,50 +14,190 @@ import ch.brotzilla.util.MersenneTwister;
 
 public class WorkerThread extends BasicThread {
     
+    // upper bound of the adaptive batch size
+    public static final int MaxAdaptiveBatchSize = 64;
+    
+    private final Island island;
+    
+    private Vectorizer v;
+    private VectorizerConfig c;
+    private IncrementalFitnessEvaluator ev;
+    private Renderer re;
+    private FitnessFunction ff;
+    
+    // the adaptive batch size aims at about one candidate per batch which beats the parent
+    private int batchSize;
+    private double acceptanceRate = 1.0d;
+    
+    private double evaluate(Genome parent, Genome mutated) {
+        if (ev != null) {
+            return ev.evaluate(parent, mutated);
+        }
+        return ff.compute(c, mutated, re);
+    }
+    
+    private void updateBatchSize(int evaluated, int accepted) {
+        acceptanceRate = acceptanceRate * 0.9d + ((double) accepted / evaluated) * 0.1d;
+        final double size = Math.ceil(1.0d / Math.max(acceptanceRate, 1e-6d));
+        batchSize = (int) Math.min(size, MaxAdaptiveBatchSize);
+    }
+    
+    // the packed counterpart of the loop in execute(), candidates are mutated and scored without copying their genes
+    // only the best candidate of a batch is converted into a genome and submitted
+    private void executePacked(MutationStrategy ms, MersenneTwister rng, Genome genome, boolean adaptive) {
+        final VectorizerContext vc = c.getVectorizerContext();
+        PackedGenome parent = new PackedGenome(genome), spare = null;
+        while (genome != null && !getExecutor().isShutdown() && v.getState() == Vectorizer.State.Running) {
+            try {
+                PackedGenome best = null;
+                int evaluated = 0, accepted = 0;
+                for (int i = 0; i < batchSize; i++) {
+                    final PackedGenome mutated = ms.mutate(rng, c, parent, spare);
+                    if (mutated == null) {
+                        throw new IllegalStateException("MutationStrategy must not return null");
+                    } else if (mutated == parent) {
+                        continue;
+                    } else if (mutated == spare) {
+                        spare = null;
+                    }
+                    mutated.fitness = ff.compute(c, mutated, re);
+                    ++evaluated;
+                    if (ff.isImprovement(parent.fitness, mutated.fitness)) {
+                        ++accepted;
+                    }
+                    // the candidate which is not kept becomes the scratch genome of the next mutation
+                    if (best == null || ff.isImprovement(best.fitness, mutated.fitness)) {
+                        spare = best != null ? best : spare;
+                        best = mutated;
+                    } else {
+                        spare = mutated;
+                    }
+                }
+                if (best == null) {
+                    continue;
+                }
+                if (evaluated > 1) {
+                    vc.addNumberOfMutations(evaluated - 1);
+                }
+                final Genome candidate = best.toGenome();
+                final Genome latest = v.submit(island, candidate);
+                if (latest == candidate) {
+                    spare = parent;
+                    parent = best;
+                } else {
+                    spare = best;
+                    // the latest genome only has to be converted if another thread has replaced it
+                    if (latest != null && latest != genome) {
+                        parent = new PackedGenome(latest);
+                    }
+                }
+                genome = latest;
+                if (adaptive) {
+                    updateBatchSize(evaluated, accepted);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
     @Override
     protected void execute() {
         
-        final Vectorizer v = getOwner();
-        final VectorizerConfig c = v.getConfig();
+        v = getOwner();
+        c = v.getConfig();
         
         final VectorizerContext vc = c.getVectorizerContext();
         final MutationStrategy ms = c.getMutationStrategy();
         final GenomeFactory gf = c.getGenomeFactory();
-        final Renderer re = c.createRenderer();
-        final FitnessFunction ff = c.getFitnessFunction(); 
+        ev = v.getSession().getParams().getIncremental() ? new IncrementalFitnessEvaluator(c) : null;
+        ff = c.getFitnessFunction(); 
+        re = ev != null ? ev.getRenderer() : ff.needsRenderer() ? c.createRenderer() : null;
+        
+        final boolean adaptive = v.getSession().getParams().getBatchSize() == 0;
+        batchSize = adaptive ? 1 : v.getSession().getParams().getBatchSize();
         
         final MersenneTwister rng = new MersenneTwister(v.nextSeed());
+        final GenomePool pool = GenomePool.forCurrentThread();
 
-        Genome genome = vc.getLatestGenome();
+        Genome genome = island != null ? island.getLatestGenome() : vc.getLatestGenome();
         if (genome == null) {
             genome = gf.createGenome(rng, c);
             if (genome == null) {
                 throw new IllegalStateException("GenomeFactory must not return null");
             }
         }
-        while (genome != null && !getExecutor().isShutdown()) {
+        if (v.getSession().getParams().getPacked()) {
+            executePacked(ms, rng, genome, adaptive);
+            return;
+        }
+        // worker threads of a shared pool have to check the state of their own vectorizer
+        while (genome != null && !getExecutor().isShutdown() && v.getState() == Vectorizer.State.Running) {
             try {
-                final Genome mutated = ms.mutate(rng, c, genome);
-                if (mutated == null) {
-                    throw new IllegalStateException("MutationStrategy must not return null");
-                } else if (mutated == genome) {
+                // only the best of several mutants is submitted, which takes load off the shared state of the vectorizer
+                Genome best = null, last = null;
+                int evaluated = 0, accepted = 0;
+                for (int i = 0; i < batchSize; i++) {
+                    final Genome mutated = ms.mutate(rng, c, genome);
+                    if (mutated == null) {
+                        throw new IllegalStateException("MutationStrategy must not return null");
+                    } else if (mutated == genome) {
+                        continue;
+                    }
+                    mutated.fitness = evaluate(genome, mutated);
+                    last = mutated;
+                    ++evaluated;
+                    if (ff.isImprovement(genome, mutated)) {
+                        ++accepted;
+                    }
+                    // rejected mutants have never left this thread, so their gene arrays can be reused
+                    if (best == null || ff.isImprovement(best, mutated)) {
+                        pool.recycle(best);
+                        best = mutated;
+                    } else {
+                        pool.recycle(mutated);
+                    }
+                }
+                if (best == null) {
                     continue;
                 }
-                re.render(mutated);
-                if (re.getAutoUpdateBuffer()) {
-                    mutated.fitness = ff.compute(c, mutated, re.getBuffer());
-                } else {
-                    mutated.fitness = ff.compute(c, mutated, re.readData());
+                if (ev != null && best != last) {
+                    // the incremental evaluator can only adopt the tiles of the last evaluated candidate
+                    ev.evaluate(genome, best);
+                }
+                if (evaluated > 1) {
+                    vc.addNumberOfMutations(evaluated - 1);
+                }
+                final Genome latest = v.submit(island, best);
+                if (latest != best) {
+                    // candidates which might be referenced by the vectorizer are marked as shared and not recycled
+                    pool.recycle(best);
+                }
+                genome = latest;
+                if (adaptive) {
+                    updateBatchSize(evaluated, accepted);
                 }
-                genome = v.submit(mutated);
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
 
-    public WorkerThread(Vectorizer owner, ExecutorService executor) {
+    public WorkerThread(Vectorizer owner, ExecutorService executor, Island island) {
         super(owner, executor);
+        this.island = island;
+    }
+
+    public WorkerThread(Vectorizer owner, ExecutorService executor) {
+        this(owner, executor, null);
+    }
+
+    public Island getIsland() {
+        return island;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
     }
 
 }
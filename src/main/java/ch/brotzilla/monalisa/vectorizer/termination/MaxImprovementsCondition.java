@@ -0,0 +1,37 @@
+package ch.brotzilla.monalisa.vectorizer.termination;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+
+public class MaxImprovementsCondition implements TerminationCondition {
+
+    private final int maxImprovements;
+    private int improvementsOnStart;
+
+    public MaxImprovementsCondition(int maxImprovements) {
+        Preconditions.checkArgument(maxImprovements > 0, "The parameter 'maxImprovements' has to be greater than zero");
+        this.maxImprovements = maxImprovements;
+    }
+
+    public int getMaxImprovements() {
+        return maxImprovements;
+    }
+
+    @Override
+    public void started(Vectorizer vectorizer) {
+        improvementsOnStart = vectorizer.getConfig().getVectorizerContext().getNumberOfImprovements();
+    }
+
+    @Override
+    public boolean isSatisfied(Vectorizer vectorizer) {
+        return vectorizer.getConfig().getVectorizerContext().getNumberOfImprovements() - improvementsOnStart >= maxImprovements;
+    }
+
+    @Override
+    public String getDescription() {
+        return "maximum number of improvements reached (" + maxImprovements + ")";
+    }
+
+}
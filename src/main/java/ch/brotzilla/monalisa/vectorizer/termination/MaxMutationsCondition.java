@@ -0,0 +1,37 @@
+package ch.brotzilla.monalisa.vectorizer.termination;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+
+public class MaxMutationsCondition implements TerminationCondition {
+
+    private final long maxMutations;
+    private long mutationsOnStart;
+
+    public MaxMutationsCondition(long maxMutations) {
+        Preconditions.checkArgument(maxMutations > 0, "The parameter 'maxMutations' has to be greater than zero");
+        this.maxMutations = maxMutations;
+    }
+
+    public long getMaxMutations() {
+        return maxMutations;
+    }
+
+    @Override
+    public void started(Vectorizer vectorizer) {
+        mutationsOnStart = vectorizer.getConfig().getVectorizerContext().getNumberOfMutations();
+    }
+
+    @Override
+    public boolean isSatisfied(Vectorizer vectorizer) {
+        return vectorizer.getConfig().getVectorizerContext().getNumberOfMutations() - mutationsOnStart >= maxMutations;
+    }
+
+    @Override
+    public String getDescription() {
+        return "maximum number of mutations reached (" + maxMutations + ")";
+    }
+
+}
@@ -0,0 +1,38 @@
+package ch.brotzilla.monalisa.vectorizer.termination;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+
+public class MaxTimeCondition implements TerminationCondition {
+
+    private final long maxTime;
+    private long timeStarted;
+
+    public MaxTimeCondition(long maxTime) {
+        Preconditions.checkArgument(maxTime > 0, "The parameter 'maxTime' has to be greater than zero");
+        this.maxTime = maxTime;
+    }
+
+    // milliseconds
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    @Override
+    public void started(Vectorizer vectorizer) {
+        timeStarted = System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean isSatisfied(Vectorizer vectorizer) {
+        return System.currentTimeMillis() - timeStarted >= maxTime;
+    }
+
+    @Override
+    public String getDescription() {
+        return "time limit reached (" + (maxTime / 1000) + " seconds)";
+    }
+
+}
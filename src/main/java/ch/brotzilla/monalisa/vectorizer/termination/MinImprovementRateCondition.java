@@ -0,0 +1,73 @@
+package ch.brotzilla.monalisa.vectorizer.termination;
+
+import java.util.ArrayDeque;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+
+// stops a vectorization which has reached a plateau, i.e. which found less than the required number of improvements per minute within the window
+public class MinImprovementRateCondition implements TerminationCondition {
+
+    public static final long SampleInterval = 1000;
+
+    private final double minImprovementsPerMinute;
+    private final long window;
+
+    // samples of the time and the number of improvements, the oldest sample is at most one window old
+    private final ArrayDeque<long[]> samples = new ArrayDeque<long[]>();
+    private long timeStarted;
+
+    public MinImprovementRateCondition(double minImprovementsPerMinute, long window) {
+        Preconditions.checkArgument(minImprovementsPerMinute > 0, "The parameter 'minImprovementsPerMinute' has to be greater than zero");
+        Preconditions.checkArgument(window > 0, "The parameter 'window' has to be greater than zero");
+        this.minImprovementsPerMinute = minImprovementsPerMinute;
+        this.window = window;
+    }
+
+    public double getMinImprovementsPerMinute() {
+        return minImprovementsPerMinute;
+    }
+
+    // milliseconds
+    public long getWindow() {
+        return window;
+    }
+
+    @Override
+    public void started(Vectorizer vectorizer) {
+        samples.clear();
+        timeStarted = System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean isSatisfied(Vectorizer vectorizer) {
+        final long now = System.currentTimeMillis();
+        final long improvements = vectorizer.getConfig().getVectorizerContext().getNumberOfImprovements();
+        if (samples.isEmpty() || now - samples.getLast()[0] >= SampleInterval) {
+            samples.addLast(new long[] { now, improvements });
+        }
+        // keep the newest sample which is at least one window old as the start of the window
+        while (samples.size() > 1) {
+            final long[] oldest = samples.removeFirst();
+            if (now - samples.getFirst()[0] < window) {
+                samples.addFirst(oldest);
+                break;
+            }
+        }
+        // the rate is meaningless until a full window has been observed
+        if (now - timeStarted < window) {
+            return false;
+        }
+        final long[] first = samples.getFirst();
+        final double minutes = (now - first[0]) / 60000.0d;
+        return minutes > 0 && (improvements - first[1]) / minutes < minImprovementsPerMinute;
+    }
+
+    @Override
+    public String getDescription() {
+        return "improvement rate dropped below " + minImprovementsPerMinute + " per minute";
+    }
+
+}
@@ -0,0 +1,38 @@
+package ch.brotzilla.monalisa.vectorizer.termination;
+
+import com.google.common.base.Preconditions;
+
+import ch.brotzilla.monalisa.evolution.genes.Genome;
+import ch.brotzilla.monalisa.vectorizer.TerminationCondition;
+import ch.brotzilla.monalisa.vectorizer.Vectorizer;
+
+public class TargetFitnessCondition implements TerminationCondition {
+
+    private final double targetFitness;
+
+    public TargetFitnessCondition(double targetFitness) {
+        Preconditions.checkArgument(targetFitness > 0, "The parameter 'targetFitness' has to be greater than zero");
+        this.targetFitness = targetFitness;
+    }
+
+    public double getTargetFitness() {
+        return targetFitness;
+    }
+
+    @Override
+    public void started(Vectorizer vectorizer) {
+    }
+
+    // fitness is an error sum, so lower values are better
+    @Override
+    public boolean isSatisfied(Vectorizer vectorizer) {
+        final Genome latest = vectorizer.getConfig().getVectorizerContext().getLatestGenome();
+        return latest != null && latest.fitness <= targetFitness;
+    }
+
+    @Override
+    public String getDescription() {
+        return "target fitness reached (" + targetFitness + ")";
+    }
+
+}
@@ -0,0 +1,120 @@
+// Created by Manuel Brotz, 2015.  Released into the public domain.
+//
+// Source is licensed for any use, provided this copyright notice is retained.
+// No warranty for any purpose whatsoever is implied or expressed.  The author
+// is not liable for any losses of any kind, direct or indirect, which result
+// from the use of this software.
+
+package ch.brotzilla.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A count-min sketch with 4-bit counters which estimates how often keys have been
+ * seen recently. Each key is counted in four counters and its frequency is the
+ * minimum of these counters, so estimates may be too high but never too low.<br>
+ * All counters are halved after a fixed number of increments, so the sketch forgets
+ * keys which are no longer used. This implementation is thread safe, the halving
+ * may lose a few concurrent increments.
+ *
+ * @author Manuel Brotz
+ *
+ */
+
+public class FrequencySketch {
+
+    public static final int MaxFrequency = 15;
+
+    private static final long[] Seeds = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long ResetMask = 0x7777777777777777L;
+
+    // each long contains 16 counters
+    private final AtomicLongArray table;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger size;
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + Seeds[i]) * Seeds[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int shift = counter << 2;
+        final long counterMask = 0xFL << shift;
+        while (true) {
+            final long value = table.get(index);
+            if ((value & counterMask) == counterMask) {
+                return false;
+            }
+            if (table.compareAndSet(index, value, value + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (!table.compareAndSet(i, value, (value >>> 1) & ResetMask));
+        }
+        size.set(0);
+    }
+
+    /**
+     * Creates a sketch for about the specified number of distinct keys.
+     */
+    public FrequencySketch(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "The parameter 'capacity' has to be greater than zero");
+        int length = 1;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        this.table = new AtomicLongArray(length);
+        this.mask = length - 1;
+        this.sampleSize = 10 * length;
+        this.size = new AtomicInteger();
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Returns the estimated frequency of the key with the specified hash code,
+     * between 0 and {@link #MaxFrequency}.
+     */
+    public int frequency(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        int result = MaxFrequency;
+        for (int i = 0; i < 4; i++) {
+            final int counter = (int) ((table.get(indexOf(hash, i)) >>> ((start + i) << 2)) & 0xF);
+            result = Math.min(result, counter);
+        }
+        return result;
+    }
+
+    public void increment(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && size.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// Created by Manuel Brotz, 2015.  Released into the public domain.
+//
+// Source is licensed for any use, provided this copyright notice is retained.
+// No warranty for any purpose whatsoever is implied or expressed.  The author
+// is not liable for any losses of any kind, direct or indirect, which result
+// from the use of this software.
+
+package ch.brotzilla.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A counter which spreads concurrent increments over several padded cells to avoid
+ * contention between threads. Increments are cheap, reading the total value has to
+ * sum up all cells and is therefore more expensive.<br>
+ * The value returned by {@link #get()} is not an atomic snapshot if other threads
+ * are incrementing the counter at the same time.
+ *
+ * @author Manuel Brotz
+ *
+ */
+
+public class StripedCounter {
+
+    // 16 longs = 128 bytes between two cells, enough to keep them on separate cache lines
+    private static final int Padding = 16;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    private static int computeNumberOfStripes() {
+        final int min = Runtime.getRuntime().availableProcessors() * 2;
+        int result = 1;
+        while (result < min) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    private int index() {
+        long h = Thread.currentThread().getId();
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return ((int) h & mask) * Padding;
+    }
+
+    public StripedCounter(int numberOfStripes) {
+        Preconditions.checkArgument(numberOfStripes > 0, "The parameter 'numberOfStripes' has to be greater than zero");
+        Preconditions.checkArgument(Integer.bitCount(numberOfStripes) == 1, "The parameter 'numberOfStripes' has to be a power of two");
+        this.cells = new AtomicLongArray(numberOfStripes * Padding);
+        this.mask = numberOfStripes - 1;
+    }
+
+    public StripedCounter() {
+        this(computeNumberOfStripes());
+    }
+
+    public int getNumberOfStripes() {
+        return mask + 1;
+    }
+
+    public void increment() {
+        cells.getAndIncrement(index());
+    }
+
+    public void add(long value) {
+        cells.getAndAdd(index(), value);
+    }
+
+    public long get() {
+        long result = 0;
+        for (int i = 0; i < cells.length(); i += Padding) {
+            result += cells.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the counter to the specified value. Increments done concurrently by other
+     * threads may get lost.
+     */
+    public void set(long value) {
+        for (int i = Padding; i < cells.length(); i += Padding) {
+            cells.set(i, 0);
+        }
+        cells.set(0, value);
+    }
+}
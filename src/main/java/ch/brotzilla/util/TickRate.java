@@ -24,6 +24,7 @@ public class TickRate {
     private boolean started;
     private long start;
     private int count;
+    private long ticks;
 
     private final double[] list;
     private final int size;
@@ -61,6 +62,7 @@ public class TickRate {
         started = false;
         start = 0;
         count = 0;
+        ticks = 0;
         sum = 0;
         index = 0;
         used = 0;
@@ -84,4 +86,27 @@ public class TickRate {
             }
         }
     }
+    
+    /**
+     * Updates the tickrate from an external, monotonically increasing tick counter.<br>
+     * This is meant to be called periodically by a single thread instead of calling
+     * {@link #tick()} for every single event.
+     * 
+     * @param total the current value of the tick counter
+     */
+    public synchronized void update(long total) {
+        if (!started) {
+            started = true;
+            start = System.nanoTime();
+            ticks = total;
+        } else {
+            long now = System.nanoTime();
+            long elapsed = now - start;
+            if (elapsed > 1000000000) {
+                add((total - ticks) * (1000000000d / elapsed));
+                start = now;
+                ticks = total;
+            }
+        }
+    }
 }
\ No newline at end of file